@@ -13,8 +13,26 @@ import java.util.Map;
 
 public class MavenCentral {
     private final Project project = new Project();
+    private final ResolvedArtifactManifest resolvedArtifactManifest;
+
+    public MavenCentral() {
+        this(new ResolvedArtifactManifest(ResolvedArtifactManifest.defaultFile()));
+    }
+
+    public MavenCentral(ResolvedArtifactManifest resolvedArtifactManifest) {
+        this.resolvedArtifactManifest = resolvedArtifactManifest;
+    }
 
     public Map<String, URL> getLocalArtifactUrls(RobolectricTestRunner robolectricTestRunner, Dependency... dependencies) {
+        Map<String, URL> urls = resolvedArtifactManifest.lookUp(dependencies);
+        if (urls == null) {
+            urls = resolveArtifactUrls(robolectricTestRunner, dependencies);
+            resolvedArtifactManifest.record(urls, dependencies);
+        }
+        return urls;
+    }
+
+    private Map<String, URL> resolveArtifactUrls(RobolectricTestRunner robolectricTestRunner, Dependency... dependencies) {
         DependenciesTask dependenciesTask = new DependenciesTask();
         if (robolectricTestRunner != null) {
             robolectricTestRunner.configureMaven(dependenciesTask);
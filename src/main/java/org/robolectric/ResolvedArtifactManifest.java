@@ -0,0 +1,241 @@
+package org.robolectric;
+
+import org.apache.maven.model.Dependency;
+import org.robolectric.util.Util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.FileLock;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * An on-disk record of how sets of {@link Dependency}s were resolved to jars in the local Maven repository, so
+ * later runs can skip Maven entirely (and work offline) as long as those jars are still in place.
+ *
+ * Each recorded jar is stored with its size, modification time and SHA-1; an entry is only used if the jar's size
+ * still matches and either its modification time or, failing that, its SHA-1 does too. Updates are merged into the
+ * file under a lock, so forks recording different dependencies at the same time don't lose each other's entries.
+ */
+public class ResolvedArtifactManifest {
+    private static final String SEPARATOR = "|";
+
+    private final File file;
+
+    // @GuardedBy("this")
+    private Properties properties;
+
+    public ResolvedArtifactManifest(File file) {
+        this.file = file;
+    }
+
+    public static File defaultFile() {
+        String path = System.getProperty("robolectric.artifactManifest");
+        if (path != null) return new File(path);
+        return new File(new File(System.getProperty("user.home"), ".m2"), "robolectric-resolved-artifacts.properties");
+    }
+
+    /**
+     * @return the artifact urls previously recorded for exactly these dependencies, or null if there are none or
+     *     any of the recorded jars has changed or gone missing
+     */
+    synchronized public Map<String, URL> lookUp(Dependency... dependencies) {
+        String prefix = requestKey(dependencies) + SEPARATOR;
+        Map<String, URL> urls = new HashMap<String, URL>();
+        for (String name : getProperties().stringPropertyNames()) {
+            if (!name.startsWith(prefix)) continue;
+
+            String[] parts = getProperties().getProperty(name).split("\\|");
+            if (parts.length != 4) return null;
+            File jar = new File(parts[0]);
+            try {
+                if (!isUnchanged(jar, Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3])) {
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                return null; // corrupt entry; no problem, we'll just ask Maven
+            }
+
+            try {
+                urls.put(name.substring(prefix.length()), Util.url(jar.getPath()));
+            } catch (MalformedURLException e) {
+                return null;
+            }
+        }
+        return urls.isEmpty() ? null : urls;
+    }
+
+    /**
+     * A jar whose size changed is out of date. One whose modification time changed (e.g. because it was downloaded
+     * again) is only used if its contents still have the recorded SHA-1.
+     */
+    private static boolean isUnchanged(File jar, long length, long lastModified, String sha1) {
+        if (!jar.isFile() || jar.length() != length) return false;
+        if (jar.lastModified() == lastModified) return true;
+
+        try {
+            return sha1.equals(sha1(jar));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    synchronized public void record(Map<String, URL> artifactUrls, Dependency... dependencies) {
+        String prefix = requestKey(dependencies) + SEPARATOR;
+        Map<String, String> entries = new HashMap<String, String>();
+        for (Map.Entry<String, URL> entry : artifactUrls.entrySet()) {
+            File jar = toFile(entry.getValue());
+            if (jar == null || !jar.isFile()) continue;
+
+            try {
+                entries.put(prefix + entry.getKey(), jar.getPath() + SEPARATOR + jar.length()
+                        + SEPARATOR + jar.lastModified() + SEPARATOR + sha1(jar));
+            } catch (IOException e) {
+                // no problem, we just won't remember that one
+            }
+        }
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        // other forks may have recorded other dependencies since we read the file, so merge into what's there now
+        synchronized (ResolvedArtifactManifest.class) { // FileLock is per-JVM, so keep other instances out too
+            try {
+                RandomAccessFile lockFile = new RandomAccessFile(new File(dir, file.getName() + ".lock"), "rw");
+                try {
+                    FileLock lock = lockFile.getChannel().lock();
+                    try {
+                        properties = load(file);
+                        merge(prefix, entries);
+                        save(dir);
+                    } finally {
+                        lock.release();
+                    }
+                } finally {
+                    lockFile.close();
+                }
+            } catch (IOException e) {
+                merge(prefix, entries); // no problem, we'll just ask Maven again next time
+            }
+        }
+    }
+
+    private void merge(String prefix, Map<String, String> entries) {
+        Properties properties = getProperties();
+        for (String name : new ArrayList<String>(properties.stringPropertyNames())) {
+            if (name.startsWith(prefix)) properties.remove(name);
+        }
+        properties.putAll(entries);
+    }
+
+    private Properties getProperties() {
+        if (properties == null) {
+            properties = load(file);
+        }
+        return properties;
+    }
+
+    private static Properties load(File file) {
+        Properties properties = new Properties();
+        if (file.isFile()) {
+            try {
+                InputStream in = new FileInputStream(file);
+                try {
+                    properties.load(in);
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                properties.clear(); // no problem, we'll just ask Maven
+            }
+        }
+        return properties;
+    }
+
+    private void save(File dir) throws IOException {
+        File tmpFile = new File(dir, file.getName() + "." + System.nanoTime() + ".tmp");
+        try {
+            OutputStream out = new FileOutputStream(tmpFile);
+            try {
+                properties.store(out, "Robolectric resolved artifacts");
+            } finally {
+                out.close();
+            }
+            if (!tmpFile.renameTo(file)) {
+                file.delete();
+                tmpFile.renameTo(file);
+            }
+        } finally {
+            tmpFile.delete(); // gone already if the rename worked
+        }
+    }
+
+    static String requestKey(Dependency... dependencies) {
+        List<String> coordinates = new ArrayList<String>();
+        for (Dependency dependency : dependencies) {
+            coordinates.add(dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + dependency.getType()
+                    + ":" + dependency.getClassifier() + ":" + dependency.getVersion());
+        }
+        Collections.sort(coordinates);
+
+        StringBuilder buf = new StringBuilder();
+        for (String coordinate : coordinates) {
+            if (buf.length() > 0) buf.append(",");
+            buf.append(coordinate);
+        }
+        return buf.toString();
+    }
+
+    private static File toFile(URL url) {
+        if (!"file".equals(url.getProtocol())) return null;
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            return new File(url.getPath()); // not escaped properly, so hopefully not escaped at all
+        } catch (IllegalArgumentException e) {
+            return new File(url.getPath());
+        }
+    }
+
+    private static String sha1(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, len);
+            }
+        } finally {
+            in.close();
+        }
+
+        StringBuilder buf = new StringBuilder();
+        for (byte b : digest.digest()) {
+            buf.append(String.format("%02x", b));
+        }
+        return buf.toString();
+    }
+}
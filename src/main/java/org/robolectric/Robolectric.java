@@ -23,6 +23,7 @@ import android.appwidget.AppWidgetHostView;
 import android.appwidget.AppWidgetManager;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
+import android.content.BroadcastReceiver;
 import android.content.ContentProviderOperation;
 import android.content.ContentProviderResult;
 import android.content.ContentResolver;
@@ -206,6 +207,7 @@ import org.robolectric.shadows.ShadowBitmapDrawable;
 import org.robolectric.shadows.ShadowBitmapFactory;
 import org.robolectric.shadows.ShadowBluetoothAdapter;
 import org.robolectric.shadows.ShadowBluetoothDevice;
+import org.robolectric.shadows.ShadowBroadcastReceiver;
 import org.robolectric.shadows.ShadowBundle;
 import org.robolectric.shadows.ShadowCamera;
 import org.robolectric.shadows.ShadowCanvas;
@@ -523,6 +525,10 @@ public class Robolectric {
         return (ShadowBluetoothDevice) Robolectric.shadowOf_(other);
     }
 
+    public static ShadowBroadcastReceiver shadowOf(BroadcastReceiver other) {
+        return (ShadowBroadcastReceiver) Robolectric.shadowOf_(other);
+    }
+
     public static ShadowBundle shadowOf(Bundle instance) {
         return (ShadowBundle) shadowOf_(instance);
     }
@@ -1413,6 +1419,7 @@ public class Robolectric {
         ShadowLooper.resetThreadLoopers();
         ShadowDialog.reset();
         ShadowContentResolver.reset();
+        ShadowSQLiteDatabase.reset();
 //        ShadowLocalBroadcastManager.reset();
         ShadowMimeTypeMap.reset();
         ShadowPowerManager.reset();
@@ -42,6 +42,7 @@ import org.robolectric.shadows.ShadowBitmapFactory;
 import org.robolectric.shadows.ShadowBitmapShader;
 import org.robolectric.shadows.ShadowBluetoothAdapter;
 import org.robolectric.shadows.ShadowBluetoothDevice;
+import org.robolectric.shadows.ShadowBroadcastReceiver;
 import org.robolectric.shadows.ShadowBundle;
 import org.robolectric.shadows.ShadowButton;
 import org.robolectric.shadows.ShadowCamera;
@@ -303,6 +304,8 @@ public class RobolectricBase {
             ShadowBitmapShader.class,
             ShadowBluetoothAdapter.class,
             ShadowBluetoothDevice.class,
+            ShadowBroadcastReceiver.class,
+            ShadowBroadcastReceiver.ShadowPendingResult.class,
             ShadowBundle.class,
             ShadowButton.class,
             ShadowCamera.class,
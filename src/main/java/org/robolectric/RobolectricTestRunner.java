@@ -17,13 +17,14 @@ import org.robolectric.annotation.WithConstantString;
 import org.robolectric.bytecode.AndroidTranslator;
 import org.robolectric.bytecode.AsmInstrumentingClassLoader;
 import org.robolectric.bytecode.ClassCache;
+import org.robolectric.bytecode.ClassLoadProfile;
 import org.robolectric.bytecode.ClassHandler;
 import org.robolectric.bytecode.JavassistInstrumentingClassLoader;
 import org.robolectric.bytecode.RobolectricInternals;
+import org.robolectric.bytecode.SegmentedClassCache;
 import org.robolectric.bytecode.Setup;
 import org.robolectric.bytecode.ShadowMap;
 import org.robolectric.bytecode.ShadowWrangler;
-import org.robolectric.bytecode.ZipClassCache;
 import org.robolectric.internal.ParallelUniverse;
 import org.robolectric.internal.ParallelUniverseInterface;
 import org.robolectric.res.OverlayResourceLoader;
@@ -50,6 +51,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import static org.fest.reflect.core.Reflection.staticField;
 
@@ -60,19 +64,27 @@ import static org.fest.reflect.core.Reflection.staticField;
  */
 public class RobolectricTestRunner extends BlockJUnit4ClassRunner {
     private static final MavenCentral MAVEN_CENTRAL = new MavenCentral();
+    private static final ExecutorService WARM_UP_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                @Override public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "robolectric-warm-up");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
 
     private static final Map<Class<? extends RobolectricTestRunner>, EnvHolder> envHoldersByTestRunner = new HashMap<Class<? extends RobolectricTestRunner>, EnvHolder>();
+    private static final SdkEnvironmentPool sdkEnvironmentPool = SdkEnvironmentPool.fromSystemProperties();
     private static final Map<AndroidManifest, ResourceLoader> resourceLoadersByAppManifest = new HashMap<AndroidManifest, ResourceLoader>();
-
-    private static Class<? extends RobolectricTestRunner> lastTestRunnerClass;
-    private static SdkConfig lastSdkConfig;
-    private static SdkEnvironment lastSdkEnvironment;
+    private static final Map<ResourcePath, PackageResourceLoader> resourceLoadersByResourcePath = new HashMap<ResourcePath, PackageResourceLoader>();
+    private static final Map<List<Object>, OverlayResourceLoader> overlayResourceLoaders = new HashMap<List<Object>, OverlayResourceLoader>();
 
     private static ShadowMap mainShadowMap;
 
     private final EnvHolder envHolder;
     private DatabaseMap databaseMap;
     private TestLifecycle<Application> testLifecycle;
+    private String sdkEnvironmentFingerprint;
 
     static {
         new SecureRandom(); // this starts up the Poller SunPKCS11-Darwin thread early, outside of any Robolectric classloader
@@ -141,7 +153,12 @@ public class RobolectricTestRunner extends BlockJUnit4ClassRunner {
         URL[] urls = MAVEN_CENTRAL.getLocalArtifactUrls(this, sdkConfig.getSdkClasspathDependencies()).values().toArray(new URL[0]);
         ClassLoader robolectricClassLoader;
         if (useAsm()) {
-            robolectricClassLoader = new AsmInstrumentingClassLoader(setup, urls);
+            AsmInstrumentingClassLoader asmInstrumentingClassLoader = new AsmInstrumentingClassLoader(setup, urls);
+            ClassLoadProfile classLoadProfile = createClassLoadProfile(sdkConfig);
+            if (classLoadProfile != null) {
+                asmInstrumentingClassLoader.warmUp(classLoadProfile, WARM_UP_EXECUTOR);
+            }
+            robolectricClassLoader = asmInstrumentingClassLoader;
         } else {
             ClassCache classCache = createClassCache();
             AndroidTranslator androidTranslator = createAndroidTranslator(setup, classCache);
@@ -152,15 +169,27 @@ public class RobolectricTestRunner extends BlockJUnit4ClassRunner {
     }
 
     public ClassCache createClassCache() {
+        return new SegmentedClassCache(new File(getClassCacheDirectory(), "cached-robolectric-classes"), AndroidTranslator.CACHE_VERSION);
+    }
+
+    /**
+     * Returns the profile used to instrument SDK classes ahead of time, or null to load them lazily.
+     * Warm-up is off by default; set the system property "robolectric.warmUp" to true to turn it on. The profile
+     * is kept in the class cache directory (see {@link #getClassCacheDirectory()}).
+     */
+    protected ClassLoadProfile createClassLoadProfile(SdkConfig sdkConfig) {
+        if (!Boolean.getBoolean("robolectric.warmUp")) return null;
+        String fileName = "class-load-profile-" + sdkConfig.getArtifactVersionString() + ".txt";
+        return ClassLoadProfile.forFile(new File(getClassCacheDirectory(), fileName));
+    }
+
+    protected File getClassCacheDirectory() {
         final String classCachePath = System.getProperty("cached.robolectric.classes.path");
-        final File classCacheDirectory;
         if (null == classCachePath || "".equals(classCachePath.trim())) {
-            classCacheDirectory = new File("./tmp");
+            return new File("./tmp");
         } else {
-            classCacheDirectory = new File(classCachePath);
+            return new File(classCachePath);
         }
-
-        return new ZipClassCache(new File(classCacheDirectory, "cached-robolectric-classes.jar").getAbsolutePath(), AndroidTranslator.CACHE_VERSION);
     }
 
     public AndroidTranslator createAndroidTranslator(Setup setup, ClassCache classCache) {
@@ -291,22 +320,37 @@ public class RobolectricTestRunner extends BlockJUnit4ClassRunner {
 
     private SdkEnvironment getEnvironment(final AndroidManifest appManifest, final Config config) {
         final SdkConfig sdkConfig = pickSdkVersion(appManifest, config);
-
-        // keep the most recently-used SdkEnvironment strongly reachable to prevent thrashing in low-memory situations.
-        if (getClass().equals(lastTestRunnerClass) && sdkConfig.equals(sdkConfig)) {
-            return lastSdkEnvironment;
+        if (sdkEnvironmentFingerprint == null) {
+            sdkEnvironmentFingerprint = getSdkEnvironmentFingerprint();
         }
-
-        lastTestRunnerClass = null;
-        lastSdkConfig = null;
-        lastSdkEnvironment = envHolder.getSdkEnvironment(sdkConfig, new SdkEnvironment.Factory() {
+        SdkEnvironmentPool.Key key = new SdkEnvironmentPool.Key(sdkConfig, sdkEnvironmentFingerprint);
+        return sdkEnvironmentPool.getSdkEnvironment(key, new SdkEnvironment.Factory() {
             @Override public SdkEnvironment create() {
                 return createSdkEnvironment(sdkConfig);
             }
         });
-        lastTestRunnerClass = getClass();
-        lastSdkConfig = sdkConfig;
-        return lastSdkEnvironment;
+    }
+
+    /**
+     * Test runners that produce equal fingerprints share SdkEnvironments. By default a runner only shares them with
+     * other instances of its own class. A runner whose environment is fully described by its {@link Setup} can
+     * opt in to sharing with other such runners by returning {@link #getSetupFingerprint()}.
+     */
+    protected String getSdkEnvironmentFingerprint() {
+        return getClass().getName() + "/" + getSetupFingerprint();
+    }
+
+    /**
+     * Identifies the environment {@link #createSdkEnvironment(SdkConfig)} builds, as far as {@link Setup} and the
+     * choice of instrumentation can tell. Doesn't account for overrides of
+     * {@link #createRobolectricClassLoader(Setup, SdkConfig)}.
+     */
+    protected final String getSetupFingerprint() {
+        return createSetup().getFingerprint() + (useAsm() ? "/asm" : "/javassist");
+    }
+
+    public static SdkEnvironmentPool getSdkEnvironmentPool() {
+        return sdkEnvironmentPool;
     }
 
     protected SdkConfig pickSdkVersion(AndroidManifest appManifest, Config config) {
@@ -571,17 +615,27 @@ public class RobolectricTestRunner extends BlockJUnit4ClassRunner {
         if (resourceLoader == null) {
             resourceLoader = createAppResourceLoader(systemResourceLoader, appManifest);
             resourceLoadersByAppManifest.put(appManifest, resourceLoader);
+        } else if (reloadChangedResources()) {
+            for (ResourcePath resourcePath : appManifest.getIncludedResourcePaths()) {
+                PackageResourceLoader packageResourceLoader = resourceLoadersByResourcePath.get(resourcePath);
+                if (packageResourceLoader != null) packageResourceLoader.reloadChangedResources();
+            }
         }
         return resourceLoader;
     }
 
+    /**
+     * Set the system property "robolectric.reloadResources" to true when tests run over and over in one JVM, e.g. in
+     * a test daemon, so each test sees app and library resource files edited since the last one without reloading
+     * the rest. Checking costs a directory listing per resource folder and a look at each file, before every test.
+     */
+    private static boolean reloadChangedResources() {
+        return Boolean.valueOf(System.getProperty("robolectric.reloadResources"));
+    }
+
     // this method must live on a InstrumentingClassLoader-loaded class, so it can't be on SdkEnvironment
     protected static ResourceLoader createAppResourceLoader(ResourceLoader systemResourceLoader, AndroidManifest appManifest) {
-        List<PackageResourceLoader> appAndLibraryResourceLoaders = new ArrayList<PackageResourceLoader>();
-        for (ResourcePath resourcePath : appManifest.getIncludedResourcePaths()) {
-            appAndLibraryResourceLoaders.add(createResourceLoader(resourcePath));
-        }
-        OverlayResourceLoader overlayResourceLoader = new OverlayResourceLoader(appManifest.getPackageName(), appAndLibraryResourceLoaders);
+        OverlayResourceLoader overlayResourceLoader = getOverlayResourceLoader(appManifest.getPackageName(), appManifest.getIncludedResourcePaths());
 
         Map<String, ResourceLoader> resourceLoaders = new HashMap<String, ResourceLoader>();
         resourceLoaders.put("android", systemResourceLoader);
@@ -589,6 +643,32 @@ public class RobolectricTestRunner extends BlockJUnit4ClassRunner {
         return new RoutingResourceLoader(resourceLoaders);
     }
 
+    /**
+     * Manifests that include the same resource paths share one overlay, and a library included by several manifests
+     * is loaded once, so multi-module projects don't load the same library for every module.
+     */
+    private static OverlayResourceLoader getOverlayResourceLoader(String packageName, List<ResourcePath> includedResourcePaths) {
+        List<Object> key = new ArrayList<Object>();
+        key.add(packageName);
+        key.addAll(includedResourcePaths);
+
+        OverlayResourceLoader overlayResourceLoader = overlayResourceLoaders.get(key);
+        if (overlayResourceLoader == null) {
+            List<PackageResourceLoader> appAndLibraryResourceLoaders = new ArrayList<PackageResourceLoader>();
+            for (ResourcePath resourcePath : includedResourcePaths) {
+                PackageResourceLoader resourceLoader = resourceLoadersByResourcePath.get(resourcePath);
+                if (resourceLoader == null) {
+                    resourceLoader = createResourceLoader(resourcePath);
+                    resourceLoadersByResourcePath.put(resourcePath, resourceLoader);
+                }
+                appAndLibraryResourceLoaders.add(resourceLoader);
+            }
+            overlayResourceLoader = new OverlayResourceLoader(packageName, appAndLibraryResourceLoaders);
+            overlayResourceLoaders.put(key, overlayResourceLoader);
+        }
+        return overlayResourceLoader;
+    }
+
     public static PackageResourceLoader createResourceLoader(ResourcePath systemResourcePath) {
         return new PackageResourceLoader(systemResourcePath);
     }
@@ -0,0 +1,158 @@
+package org.robolectric;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds {@link SdkEnvironment}s so they can be shared by every test class and runner subclass that would build an
+ * identical one, i.e. that asks for the same {@link SdkConfig} with the same {@link org.robolectric.bytecode.Setup}.
+ *
+ * Retention is controlled by the system properties "robolectric.sdkEnvironment.retention" ("strong", "soft" or
+ * "weak"; default "soft") and "robolectric.sdkEnvironment.maxCount" (the most environments to keep, least recently
+ * used first out; default unlimited). The most recently used environment is always strongly reachable.
+ */
+public class SdkEnvironmentPool {
+    public enum Retention {STRONG, SOFT, WEAK}
+
+    private final Retention retention;
+    private final int maxCount;
+
+    // @GuardedBy("this")
+    private final LinkedHashMap<Key, Reference<SdkEnvironment>> environments = new LinkedHashMap<Key, Reference<SdkEnvironment>>(16, 0.75f, true);
+    private SdkEnvironment mostRecentlyUsed;
+    private int builds;
+    private int reuses;
+    private int evictions;
+
+    public SdkEnvironmentPool(Retention retention, int maxCount) {
+        this.retention = retention;
+        this.maxCount = maxCount;
+    }
+
+    public static SdkEnvironmentPool fromSystemProperties() {
+        String retentionProperty = System.getProperty("robolectric.sdkEnvironment.retention");
+        Retention retention = retentionProperty == null ? Retention.SOFT : Retention.valueOf(retentionProperty.toUpperCase());
+        String maxCountProperty = System.getProperty("robolectric.sdkEnvironment.maxCount");
+        int maxCount = maxCountProperty == null ? 0 : Integer.parseInt(maxCountProperty);
+        return new SdkEnvironmentPool(retention, maxCount);
+    }
+
+    synchronized public SdkEnvironment getSdkEnvironment(Key key, SdkEnvironment.Factory factory) {
+        Reference<SdkEnvironment> reference = environments.get(key);
+        SdkEnvironment sdkEnvironment = reference == null ? null : reference.get();
+        if (sdkEnvironment != null) {
+            reuses++;
+        } else {
+            if (reference != null) {
+                evictions++; // collected by the GC
+            }
+
+            sdkEnvironment = factory.create();
+            builds++;
+            environments.put(key, createReference(sdkEnvironment));
+            evictLeastRecentlyUsed();
+        }
+
+        mostRecentlyUsed = sdkEnvironment;
+        return sdkEnvironment;
+    }
+
+    synchronized public int getBuildCount() {
+        return builds;
+    }
+
+    synchronized public int getReuseCount() {
+        return reuses;
+    }
+
+    synchronized public int getEvictionCount() {
+        return evictions;
+    }
+
+    synchronized public int size() {
+        return environments.size();
+    }
+
+    @Override
+    synchronized public String toString() {
+        return "SdkEnvironmentPool{" +
+                "retention=" + retention +
+                ", maxCount=" + maxCount +
+                ", size=" + environments.size() +
+                ", builds=" + builds +
+                ", reuses=" + reuses +
+                ", evictions=" + evictions +
+                '}';
+    }
+
+    private void evictLeastRecentlyUsed() {
+        if (maxCount <= 0) return;
+
+        Iterator<Map.Entry<Key, Reference<SdkEnvironment>>> iterator = environments.entrySet().iterator();
+        while (environments.size() > maxCount && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private Reference<SdkEnvironment> createReference(SdkEnvironment sdkEnvironment) {
+        switch (retention) {
+            case STRONG:
+                return new StrongReference<SdkEnvironment>(sdkEnvironment);
+            case WEAK:
+                return new WeakReference<SdkEnvironment>(sdkEnvironment);
+            default:
+                return new SoftReference<SdkEnvironment>(sdkEnvironment);
+        }
+    }
+
+    private static class StrongReference<T> extends SoftReference<T> {
+        @SuppressWarnings({"FieldCanBeLocal", "UnusedDeclaration"})
+        private final T referent;
+
+        StrongReference(T referent) {
+            super(referent);
+            this.referent = referent;
+        }
+    }
+
+    public static class Key {
+        private final SdkConfig sdkConfig;
+        private final String setupFingerprint;
+
+        public Key(SdkConfig sdkConfig, String setupFingerprint) {
+            this.sdkConfig = sdkConfig;
+            this.setupFingerprint = setupFingerprint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            if (!sdkConfig.equals(key.sdkConfig)) return false;
+            if (!setupFingerprint.equals(key.setupFingerprint)) return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = sdkConfig.hashCode();
+            result = 31 * result + setupFingerprint.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return sdkConfig.getArtifactVersionString() + "/" + setupFingerprint;
+        }
+    }
+}
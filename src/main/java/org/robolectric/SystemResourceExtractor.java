@@ -9,24 +9,19 @@ class SystemResourceExtractor extends ResourceExtractor {
         super(systemResourcePath);
     }
 
-    @Override public synchronized ResName getResName(int resourceId) {
+    @Override public ResName getResName(int resourceId) {
         ResName resName = super.getResName(resourceId);
 
         if (resName == null) {
-            // todo: pull in android.internal.R, remove this, and remove the "synchronized" on methods since we should then be immutable...
+            // todo: pull in android.internal.R and remove this, since we should then be immutable...
             if ((resourceId & 0xfff00000) == 0x01000000) {
                 new RuntimeException("WARN: couldn't find a name for resource id " + resourceId).printStackTrace(System.out);
                 ResName internalResName = new ResName("android.internal", "unknown", resourceId + "");
-                resourceNameToId.put(internalResName, resourceId);
-                resourceIdToResName.put(resourceId, internalResName);
+                addResource(internalResName, resourceId);
                 return internalResName;
             }
         }
 
         return resName;
     }
-
-    @Override public synchronized Integer getResourceId(ResName resName) {
-        return super.getResourceId(resName);
-    }
 }
@@ -39,6 +39,11 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static org.objectweb.asm.Type.*;
 import static org.robolectric.util.Util.readBytes;
@@ -66,6 +71,8 @@ public class AsmInstrumentingClassLoader extends ClassLoader implements Opcodes,
     private final Map<String, Class> classes = new HashMap<String, Class>();
     private final Set<Setup.MethodRef> methodsToIntercept;
     private final Map<String, String> classesToRemap;
+    private final Map<String, Future<byte[]>> preparedClasses = new ConcurrentHashMap<String, Future<byte[]>>();
+    private ClassLoadProfile classLoadProfile;
     private int number = 0;
 
 
@@ -108,51 +115,61 @@ public class AsmInstrumentingClassLoader extends ClassLoader implements Opcodes,
     private static class MissingClassMarker {
     }
 
+    /**
+     * Instruments the classes recorded in {@code classLoadProfile} on {@code executorService}, and then defines
+     * them in profile order, so that instrumentation overlaps with test discovery and resource loading rather
+     * than happening on the critical path of the first test. Every class defined from now on, by warm-up or on
+     * demand, is recorded in {@code classLoadProfile} for the next run; profiled classes that can no longer be
+     * found aren't defined, so they drop out.
+     */
+    public void warmUp(ClassLoadProfile classLoadProfile, ExecutorService executorService) {
+        this.classLoadProfile = classLoadProfile;
+
+        final List<String> classNames = classLoadProfile.getPreviouslyLoadedClasses();
+        for (final String className : classNames) {
+            if (!setup.shouldAcquire(className)) continue;
+            preparedClasses.put(className, executorService.submit(new Callable<byte[]>() {
+                @Override public byte[] call() throws Exception {
+                    return getByteCode(className);
+                }
+            }));
+        }
+
+        executorService.submit(new Runnable() {
+            @Override public void run() {
+                for (String className : classNames) {
+                    Future<byte[]> future = preparedClasses.get(className);
+                    if (future == null) continue;
+                    try {
+                        future.get(); // wait outside the lock...
+                        loadClass(className); // ... then define, unless a test got there first
+                    } catch (Exception e) {
+                        // no problem, it'll be loaded (or fail) on demand
+                    } catch (LinkageError e) {
+                        // ditto
+                    }
+                }
+            }
+        });
+    }
+
     @Override
     protected Class<?> findClass(final String className) throws ClassNotFoundException {
         if (setup.shouldAcquire(className)) {
-            String classFilename = className.replace('.', '/') + ".class";
-            InputStream classBytesStream = urls.getResourceAsStream(classFilename);
-            if (classBytesStream == null) {
-                classBytesStream = getResourceAsStream(classFilename);
+            byte[] bytes = getPreparedByteCode(className);
+            if (bytes == null) {
+                bytes = getByteCode(className);
             }
-            if (classBytesStream == null) throw new ClassNotFoundException(className);
 
-            byte[] origClassBytes;
-            try {
-                origClassBytes = readBytes(classBytesStream);
-            } catch (IOException e) {
-                throw new ClassNotFoundException("couldn't load " + className, e);
+            // once per class, since the JVM doesn't ask us again for classes we've defined
+            if (classLoadProfile != null) {
+                classLoadProfile.recordLoad(className);
             }
 
-            final ClassReader classReader = new ClassReader(origClassBytes);
-            ClassNode classNode = new ClassNode() {
-                @Override
-                public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
-                    desc = remapParamType(desc);
-                    return super.visitField(access, name, desc, signature, value);
-                }
-
-                @Override
-                public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
-                    return super.visitMethod(access, name, remapParams(desc), signature, exceptions);
-                }
-            };
-            classReader.accept(classNode, 0);
-
             try {
-                byte[] bytes;
-                AsmClassInfo classInfo = new AsmClassInfo(className, classNode);
-                if (setup.shouldInstrument(classInfo)) {
-                    bytes = getInstrumentedBytes(className, classNode, setup.containsStubs(classInfo));
-                } else {
-                    bytes = origClassBytes;
-                }
-//                System.out.println("[DEBUG] Defining " + classFilename + " (" + bytes.length + ") in " + this + ": class" + number++);
+//                System.out.println("[DEBUG] Defining " + className + " (" + bytes.length + ") in " + this + ": class" + number++);
                 ensurePackage(className);
                 return defineClass(className, bytes, 0, bytes.length);
-            } catch (Exception e) {
-                throw new ClassNotFoundException("couldn't load " + className, e);
             } catch (OutOfMemoryError e) {
                 System.err.println("[ERROR] couldn't load " + className + " in " + this);
                 throw e;
@@ -163,6 +180,67 @@ public class AsmInstrumentingClassLoader extends ClassLoader implements Opcodes,
         }
     }
 
+    private byte[] getPreparedByteCode(String className) {
+        Future<byte[]> future = preparedClasses.remove(className);
+        if (future == null) return null;
+
+        // don't wait behind the rest of the warm-up queue; if it isn't ready yet, just do it here
+        if (!future.isDone()) {
+            future.cancel(false);
+            return null;
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private byte[] getByteCode(String className) throws ClassNotFoundException {
+        String classFilename = className.replace('.', '/') + ".class";
+        InputStream classBytesStream = urls.getResourceAsStream(classFilename);
+        if (classBytesStream == null) {
+            classBytesStream = getResourceAsStream(classFilename);
+        }
+        if (classBytesStream == null) throw new ClassNotFoundException(className);
+
+        byte[] origClassBytes;
+        try {
+            origClassBytes = readBytes(classBytesStream);
+        } catch (IOException e) {
+            throw new ClassNotFoundException("couldn't load " + className, e);
+        }
+
+        final ClassReader classReader = new ClassReader(origClassBytes);
+        ClassNode classNode = new ClassNode() {
+            @Override
+            public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+                desc = remapParamType(desc);
+                return super.visitField(access, name, desc, signature, value);
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+                return super.visitMethod(access, name, remapParams(desc), signature, exceptions);
+            }
+        };
+        classReader.accept(classNode, 0);
+
+        try {
+            AsmClassInfo classInfo = new AsmClassInfo(className, classNode);
+            if (setup.shouldInstrument(classInfo)) {
+                return getInstrumentedBytes(className, classNode, setup.containsStubs(classInfo));
+            } else {
+                return origClassBytes;
+            }
+        } catch (Exception e) {
+            throw new ClassNotFoundException("couldn't load " + className, e);
+        }
+    }
+
     private void ensurePackage(final String className) {
         int lastDotIndex = className.lastIndexOf('.');
         if (lastDotIndex != -1) {
@@ -0,0 +1,140 @@
+package org.robolectric.bytecode;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ordered record of the classes acquired by an {@link AsmInstrumentingClassLoader} during a run.
+ *
+ * The previous run's profile is read at startup so those classes can be instrumented ahead of time; the
+ * current run's load order is written back out when the JVM exits.
+ */
+public class ClassLoadProfile {
+    // @GuardedBy("profilesByFile")
+    private static final Map<File, ClassLoadProfile> profilesByFile = new HashMap<File, ClassLoadProfile>();
+
+    private final File file;
+    private final List<String> previouslyLoaded;
+
+    // @GuardedBy("this")
+    private final Set<String> loaded = new LinkedHashSet<String>();
+
+    public ClassLoadProfile(File file) {
+        this.file = file;
+        this.previouslyLoaded = Collections.unmodifiableList(read(file));
+    }
+
+    /**
+     * Returns the profile kept in {@code file}, which is saved when the JVM exits. Class loaders for the same SDK
+     * share one profile, so the file is written once however many of them there are.
+     */
+    public static ClassLoadProfile forFile(File file) {
+        File key = file.getAbsoluteFile();
+        synchronized (profilesByFile) {
+            ClassLoadProfile profile = profilesByFile.get(key);
+            if (profile == null) {
+                final ClassLoadProfile newProfile = new ClassLoadProfile(key);
+                Runtime.getRuntime().addShutdownHook(new Thread() {
+                    @Override public void run() {
+                        newProfile.save();
+                    }
+                });
+                profilesByFile.put(key, profile = newProfile);
+            }
+            return profile;
+        }
+    }
+
+    public List<String> getPreviouslyLoadedClasses() {
+        return previouslyLoaded;
+    }
+
+    public void recordLoad(String className) {
+        synchronized (this) {
+            loaded.add(className);
+        }
+    }
+
+    public List<String> getLoadedClasses() {
+        synchronized (this) {
+            return new ArrayList<String>(loaded);
+        }
+    }
+
+    protected void save() {
+        List<String> classNames = getLoadedClasses();
+        if (classNames.isEmpty()) return;
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        // write to a temp file of our own and rename it, so a killed fork can't leave a truncated profile behind
+        // and forks exiting at the same time don't write over each other's half-written files
+        File tmpFile = null;
+        PrintWriter writer = null;
+        boolean written = false;
+        try {
+            tmpFile = File.createTempFile(file.getName(), ".tmp", dir);
+            writer = new PrintWriter(new FileWriter(tmpFile));
+            for (String className : classNames) {
+                writer.println(className);
+            }
+            written = !writer.checkError();
+        } catch (IOException e) {
+            // no problem, we'll just start cold next time
+        } finally {
+            if (writer != null) writer.close();
+        }
+
+        if (!written) {
+            if (tmpFile != null) tmpFile.delete();
+            return;
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            file.delete();
+            tmpFile.renameTo(file);
+        }
+    }
+
+    private static List<String> read(File file) {
+        List<String> classNames = new ArrayList<String>();
+        if (!file.exists()) return classNames;
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(file));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0) {
+                    classNames.add(line);
+                }
+            }
+        } catch (IOException e) {
+            // no problem, we'll just start cold
+            classNames.clear();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+        return classNames;
+    }
+}
@@ -0,0 +1,344 @@
+package org.robolectric.bytecode;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ClassCache} stored as a directory of immutable, indexed segment files.
+ *
+ * New classes are flushed to a fresh segment in the background every few seconds. A segment is written to a temp
+ * file and renamed into place once complete, so a killed fork loses at most its last few seconds of work, and forks
+ * sharing the directory never write to the same file. Segments are memory-mapped on startup; once there are too many
+ * of them, the next flush writes everything into a single segment and deletes the ones it replaces.
+ *
+ * All caches share one background flusher thread and one shutdown hook. A cache that's garbage collected without
+ * being closed stops being flushed; any classes it hadn't flushed yet are instrumented again next time.
+ *
+ * Segment layout: magic, cache version, entry count, then (name, offset, length) for each entry, then the class
+ * bytes. Offsets are relative to the end of the index.
+ */
+public class SegmentedClassCache implements ClassCache {
+    private static final int MAGIC = 0x526f4243; // "RoBC"
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final int MAX_SEGMENTS = 16;
+    private static final long FLUSH_INTERVAL_MS = 2000;
+
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "robolectric-class-cache-flusher");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    // @GuardedBy("OPEN_CACHES")
+    private static final Set<SegmentedClassCache> OPEN_CACHES =
+            Collections.newSetFromMap(new WeakHashMap<SegmentedClassCache, Boolean>());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override public void run() {
+                List<SegmentedClassCache> caches;
+                synchronized (OPEN_CACHES) {
+                    caches = new ArrayList<SegmentedClassCache>(OPEN_CACHES);
+                }
+                for (SegmentedClassCache cache : caches) {
+                    cache.close();
+                }
+            }
+        });
+    }
+
+    private final File cacheDirectory;
+    private final int cacheVersion;
+    private final String segmentPrefix;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final List<File> readSegments = new ArrayList<File>();
+
+    // @GuardedBy("this")
+    private Map<String, byte[]> pendingClasses = new LinkedHashMap<String, byte[]>();
+    private volatile boolean closed = false;
+
+    private final Object segmentLock = new Object();
+    private final ScheduledFuture<?> scheduledFlush;
+
+    public SegmentedClassCache(File cacheDirectory, final int cacheVersion) {
+        this.cacheDirectory = cacheDirectory;
+        this.cacheVersion = cacheVersion;
+        this.segmentPrefix = "classes-v" + cacheVersion + "-";
+
+        if (cacheVersion != -1) {
+            deleteSegmentsForOtherVersions();
+            readSegments();
+        }
+
+        FlushTask flushTask = new FlushTask(this);
+        scheduledFlush = FLUSHER.scheduleWithFixedDelay(flushTask, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        flushTask.scheduledFlush = scheduledFlush;
+
+        synchronized (OPEN_CACHES) {
+            OPEN_CACHES.add(this);
+        }
+    }
+
+    /**
+     * Flushes its cache periodically without keeping it reachable, and unschedules itself once the cache is gone.
+     */
+    private static class FlushTask implements Runnable {
+        private final WeakReference<SegmentedClassCache> cacheRef;
+        private volatile ScheduledFuture<?> scheduledFlush;
+
+        FlushTask(SegmentedClassCache cache) {
+            this.cacheRef = new WeakReference<SegmentedClassCache>(cache);
+        }
+
+        @Override public void run() {
+            SegmentedClassCache cache = cacheRef.get();
+            if (cache != null) {
+                cache.flush();
+            } else if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+            }
+        }
+    }
+
+    @Override
+    public byte[] getClassBytesFor(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? null : entry.getBytes();
+    }
+
+    @Override
+    public boolean isWriting() {
+        return closed;
+    }
+
+    @Override
+    public void addClass(String className, byte[] classBytes) {
+        entries.put(className, new Entry(classBytes));
+        synchronized (this) {
+            pendingClasses.put(className, classBytes);
+        }
+    }
+
+    /**
+     * Writes any classes added since the last flush to a new segment.
+     */
+    public void flush() {
+        Map<String, byte[]> toWrite;
+        synchronized (this) {
+            if (pendingClasses.isEmpty() || cacheVersion == -1) return;
+            toWrite = pendingClasses;
+            pendingClasses = new LinkedHashMap<String, byte[]>();
+        }
+
+        synchronized (segmentLock) {
+            List<File> replacedSegments = new ArrayList<File>();
+            if (readSegments.size() >= MAX_SEGMENTS) {
+                // compact: write everything we know about, and retire the segments we read it from
+                Map<String, byte[]> everything = new LinkedHashMap<String, byte[]>();
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    everything.put(entry.getKey(), entry.getValue().getBytes());
+                }
+                toWrite = everything;
+                replacedSegments.addAll(readSegments);
+            }
+
+            try {
+                File segment = writeSegment(toWrite);
+                readSegments.removeAll(replacedSegments);
+                readSegments.add(segment);
+                for (File replacedSegment : replacedSegments) {
+                    replacedSegment.delete(); // may fail on windows if another fork has it mapped; no problem
+                }
+            } catch (IOException e) {
+                // no problem, we'll just have to instrument those again next time
+            }
+        }
+    }
+
+    /**
+     * Flushes pending classes and stops flushing this cache in the background; called automatically at JVM shutdown.
+     */
+    public void close() {
+        closed = true;
+        scheduledFlush.cancel(false);
+        synchronized (OPEN_CACHES) {
+            OPEN_CACHES.remove(this);
+        }
+        flush();
+    }
+
+    private File writeSegment(Map<String, byte[]> classes) throws IOException {
+        if (!cacheDirectory.exists()) {
+            cacheDirectory.mkdirs();
+        }
+
+        String segmentName = segmentPrefix + UUID.randomUUID();
+        File tmpFile = new File(cacheDirectory, segmentName + ".tmp");
+        File segmentFile = new File(cacheDirectory, segmentName + SEGMENT_SUFFIX);
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 64 * 1024));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(cacheVersion);
+            out.writeInt(classes.size());
+            int offset = 0;
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(offset);
+                out.writeInt(entry.getValue().length);
+                offset += entry.getValue().length;
+            }
+            for (byte[] classBytes : classes.values()) {
+                out.write(classBytes);
+            }
+        } finally {
+            out.close();
+        }
+
+        if (!tmpFile.renameTo(segmentFile)) {
+            tmpFile.delete();
+            throw new IOException("couldn't publish " + segmentFile);
+        }
+        return segmentFile;
+    }
+
+    private void readSegments() {
+        File[] segmentFiles = cacheDirectory.listFiles(new FilenameFilter() {
+            @Override public boolean accept(File dir, String name) {
+                return name.startsWith(segmentPrefix) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        if (segmentFiles == null) return;
+
+        // oldest first, so newer copies of a class win
+        Arrays.sort(segmentFiles, new Comparator<File>() {
+            @Override public int compare(File a, File b) {
+                long diff = a.lastModified() - b.lastModified();
+                return diff < 0 ? -1 : diff > 0 ? 1 : a.getName().compareTo(b.getName());
+            }
+        });
+
+        for (File segmentFile : segmentFiles) {
+            try {
+                readSegment(segmentFile);
+                readSegments.add(segmentFile);
+            } catch (IOException e) {
+                // no problem, we didn't want those bytes that much anyway
+            } catch (RuntimeException e) {
+                // corrupt segment; ditto
+            }
+        }
+    }
+
+    private void readSegment(File segmentFile) throws IOException {
+        ByteBuffer buffer;
+        RandomAccessFile file = new RandomAccessFile(segmentFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            file.close(); // the mapping stays valid after the channel is closed
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != cacheVersion) return;
+            int count = buffer.getInt();
+            String[] names = new String[count];
+            int[] offsets = new int[count];
+            int[] lengths = new int[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = readUTF(buffer);
+                offsets[i] = buffer.getInt();
+                lengths[i] = buffer.getInt();
+            }
+
+            int dataStart = buffer.position();
+            for (int i = 0; i < count; i++) {
+                if (dataStart + offsets[i] + lengths[i] > buffer.limit()) {
+                    throw new IOException("truncated segment " + segmentFile);
+                }
+                entries.put(names[i], new Entry(buffer, dataStart + offsets[i], lengths[i]));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated segment " + segmentFile);
+        }
+    }
+
+    private static String readUTF(ByteBuffer buffer) throws IOException {
+        int length = buffer.getShort() & 0xffff;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        // class names are plain ASCII, which modified UTF-8 encodes as-is
+        return new String(bytes, "UTF-8");
+    }
+
+    private void deleteSegmentsForOtherVersions() {
+        File[] staleFiles = cacheDirectory.listFiles(new FilenameFilter() {
+            @Override public boolean accept(File dir, String name) {
+                return name.startsWith("classes-v") && !name.startsWith(segmentPrefix)
+                        && (name.endsWith(SEGMENT_SUFFIX) || name.endsWith(".tmp"));
+            }
+        });
+        if (staleFiles == null) return;
+        for (File staleFile : staleFiles) {
+            staleFile.delete();
+        }
+    }
+
+    private static class Entry {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int length;
+        private final byte[] bytes;
+
+        Entry(byte[] bytes) {
+            this.buffer = null;
+            this.offset = 0;
+            this.length = bytes.length;
+            this.bytes = bytes;
+        }
+
+        Entry(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+            this.bytes = null;
+        }
+
+        byte[] getBytes() {
+            if (bytes != null) return bytes;
+            byte[] copy = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset);
+            view.get(copy);
+            return copy;
+        }
+    }
+}
@@ -168,6 +168,15 @@ public class Setup {
         public static class FakeInnerClass {}
     }
 
+    /**
+     * Identifies the instrumentation this setup produces; test runners that opt in to sharing SdkEnvironments share
+     * them when their setups have equal fingerprints. Subclasses whose behavior depends on constructor arguments or
+     * other state must include it here.
+     */
+    public String getFingerprint() {
+        return getClass().getName();
+    }
+
     public boolean containsStubs(ClassInfo classInfo) {
         return classInfo.getName().startsWith("com.google.android.maps.");
     }
@@ -1,6 +1,5 @@
 package org.robolectric.bytecode;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -14,6 +13,12 @@ import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 
+import static org.robolectric.util.Util.readBytes;
+
+/**
+ * @deprecated use {@link SegmentedClassCache}, which writes incrementally instead of only at shutdown
+ */
+@Deprecated
 public class ZipClassCache implements ClassCache {
     private static final Attributes.Name VERSION_ATTRIBUTE = new Attributes.Name("version");
 
@@ -90,15 +95,9 @@ public class ZipClassCache implements ClassCache {
                 JarEntry entry = entries.nextElement();
                 String className = entry.getName();
                 if (className.endsWith(".class")) {
-                    int classSize = (int) entry.getSize();
                     InputStream inputStream = cacheFile.getInputStream(entry);
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream(classSize);
-                    int c;
-                    while ((c = inputStream.read()) != -1) {
-                        baos.write(c);
-                    }
                     className = className.substring(0, className.indexOf(".class")).replace('/', '.');
-                    addClass(className, baos.toByteArray());
+                    addClass(className, readBytes(inputStream));
                 }
 
             }
@@ -122,7 +121,6 @@ public class ZipClassCache implements ClassCache {
                     jarOutputStream = new JarOutputStream(new FileOutputStream(file), manifest);
                     for (Map.Entry<String, byte[]> entry : cachedClasses.entrySet()) {
                         String key = entry.getKey();
-                        writeToFile(file, entry, key);
                         jarOutputStream.putNextEntry(new JarEntry(key.replace('.', '/') + ".class"));
                         jarOutputStream.write(entry.getValue());
                         jarOutputStream.closeEntry();
@@ -141,12 +139,4 @@ public class ZipClassCache implements ClassCache {
             startedWriting = false;
         }
     }
-
-    private void writeToFile(File file, Map.Entry<String, byte[]> entry, String key) throws IOException {
-        File classFile = new File(new File(file.getParentFile(), "classes"), key.replaceAll("\\.", "/") + ".class");
-        classFile.getParentFile().mkdirs();
-        FileOutputStream fileOutputStream = new FileOutputStream(classFile);
-        fileOutputStream.write(entry.getValue());
-        fileOutputStream.close();
-    }
 }
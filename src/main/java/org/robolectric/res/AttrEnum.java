@@ -0,0 +1,90 @@
+package org.robolectric.res;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The named values of an enum or flag attribute as a view declares it, with each value parsed to an int up front.
+ * Converting an attribute's value is then a map lookup: no regex, and no keys built from the view, namespace and
+ * attribute names. Flag expressions like {@code center_vertical|left} are split by hand the first time they're seen
+ * and remembered after that.
+ */
+public final class AttrEnum {
+    private final String description;
+    private final Map<String, String> rawValues;
+    private final Map<String, Integer> values = new HashMap<String, Integer>();
+    private final ConcurrentMap<String, Integer> expressions = new ConcurrentHashMap<String, Integer>();
+
+    AttrEnum(String description, Map<String, String> rawValues) {
+        this.description = description;
+        this.rawValues = new HashMap<String, String>(rawValues);
+        for (Map.Entry<String, String> entry : rawValues.entrySet()) {
+            values.put(entry.getKey(), toInt(entry.getValue()));
+        }
+    }
+
+    /**
+     * @return the value of {@code name} as written in the resource file, e.g. {@code 0x11}
+     * @throws RuntimeException if the attribute has no value called {@code name}
+     */
+    public String getRawValue(String name) {
+        String rawValue = rawValues.get(name);
+        if (rawValue == null) throw unknownValue(name);
+        return rawValue;
+    }
+
+    /**
+     * @return the value of {@code name}
+     * @throws RuntimeException if the attribute has no value called {@code name}
+     */
+    public int getValue(String name) {
+        Integer value = values.get(name);
+        if (value == null) throw unknownValue(name);
+        return value;
+    }
+
+    /**
+     * @return the values of the names in {@code expression}, separated by {@code |}, or'd together
+     * @throws RuntimeException if any of the names isn't a value of the attribute
+     */
+    public int parse(String expression) {
+        Integer value = values.get(expression);
+        if (value != null) return value;
+
+        value = expressions.get(expression);
+        if (value == null) {
+            int intValue = 0;
+            int start = 0;
+            int end;
+            while ((end = expression.indexOf('|', start)) != -1) {
+                intValue |= getValue(expression.substring(start, end));
+                start = end + 1;
+            }
+            intValue |= getValue(expression.substring(start));
+
+            value = intValue;
+            expressions.putIfAbsent(expression, value);
+        }
+        return value;
+    }
+
+    private RuntimeException unknownValue(String name) {
+        return new RuntimeException("Unknown value \"" + name + "\" for enum " + description);
+    }
+
+    private static int toInt(String rawValue) {
+        try {
+            if (rawValue.startsWith("0x")) return (int) Long.parseLong(rawValue.substring(2), 16);
+            return Integer.parseInt(rawValue);
+        } catch (NumberFormatException e) {
+            System.out.println("WARN: couldn't parse \"" + rawValue + "\" as an integer");
+            return 0;
+        }
+    }
+
+    @Override public String toString() {
+        return "AttrEnum{" + description + '}';
+    }
+}
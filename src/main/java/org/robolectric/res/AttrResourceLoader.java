@@ -3,18 +3,21 @@ package org.robolectric.res;
 import android.view.View;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class AttrResourceLoader extends XmlLoader {
     Map<String, EnumDef> enums = new HashMap<String, EnumDef>();
     Map<String, EnumRef> enumRefs = new HashMap<String, EnumRef>();
     boolean resolved = false;
 
-    Map<String, String> classEnumToValue = new HashMap<String, String>();
-    Set<String> knownClassEnums = new HashSet<String>();
-  
+    Map<String, Map<String, String>> classEnums = new HashMap<String, Map<String, String>>();
+
+    private static final Object NO_ATTR_ENUM = new Object();
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, ConcurrentMap<String, Object>>> attrEnums =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<String, ConcurrentMap<String, Object>>>();
+
     static class EnumDef {
         final String name;
         final Map<String, String> values = new HashMap<String, String>();
@@ -47,8 +50,7 @@ public class AttrResourceLoader extends XmlLoader {
                 String viewName = node.getAttrValue("name");
                 node.popLocation();
 
-                classEnumToValue.put(key(viewName, enumName, name), value);
-                knownClassEnums.add(key(viewName, enumName));
+                classEnumValues(key(viewName, enumName)).put(name, value);
             }
         }
 
@@ -86,31 +88,100 @@ public class AttrResourceLoader extends XmlLoader {
     }
 
     public String convertValueToEnum(Class<? extends View> viewClass, String namespace, String attrName, String attrValue) {
-        resolveReferences();
-        String qualifiedAttrName = namespace + ":" + attrName;
-        String className = findKnownAttrClass(qualifiedAttrName, viewClass).getSimpleName();
-        String value = classEnumToValue.get(key(className, qualifiedAttrName, attrValue));
-        if (value == null) {
-            throw new RuntimeException("Unknown value \"" + attrValue + "\" for enum " + className + "." + qualifiedAttrName);
+        AttrEnum attrEnum = getAttrEnum(viewClass, namespace, attrName);
+        if (attrEnum == null) {
+            throw new RuntimeException(namespace + ":" + attrName + " isn't an enum or flag attribute of " + viewClass);
         }
-        return value;
+        return attrEnum.getRawValue(attrValue);
     }
 
     public boolean hasAttributeFor(Class<? extends View> viewClass, String namespace, String attrName) {
+        return getAttrEnum(viewClass, namespace, attrName) != null;
+    }
+
+    /**
+     * @return the values of {@code attrName} as {@code viewClass} or its nearest superclass declares them, or null if
+     *     none of them declares it as an enum or flag attribute
+     */
+    public AttrEnum getAttrEnum(Class<? extends View> viewClass, String namespace, String attrName) {
         resolveReferences();
-        String qualifiedAttrName = namespace + ":" + attrName;
-        return findKnownAttrClass(qualifiedAttrName, viewClass) != null;
+        if (viewClass == null) return null;
+
+        ConcurrentMap<String, Object> byAttrName = attrEnumsFor(viewClass, String.valueOf(namespace));
+        Object attrEnum = byAttrName.get(attrName);
+        if (attrEnum == null) {
+            attrEnum = findAttrEnum(viewClass, namespace + ":" + attrName);
+            Object raced = byAttrName.putIfAbsent(attrName, attrEnum);
+            if (raced != null) attrEnum = raced;
+        }
+        return attrEnum == NO_ATTR_ENUM ? null : (AttrEnum) attrEnum;
+    }
+
+    private ConcurrentMap<String, Object> attrEnumsFor(Class<?> viewClass, String namespace) {
+        ConcurrentMap<String, ConcurrentMap<String, Object>> byNamespace = attrEnums.get(viewClass);
+        if (byNamespace == null) {
+            attrEnums.putIfAbsent(viewClass, new ConcurrentHashMap<String, ConcurrentMap<String, Object>>());
+            byNamespace = attrEnums.get(viewClass);
+        }
+
+        ConcurrentMap<String, Object> byAttrName = byNamespace.get(namespace);
+        if (byAttrName == null) {
+            byNamespace.putIfAbsent(namespace, new ConcurrentHashMap<String, Object>());
+            byAttrName = byNamespace.get(namespace);
+        }
+        return byAttrName;
+    }
+
+    private Object findAttrEnum(Class<?> clazz, String qualifiedAttrName) {
+        while (clazz != null) {
+            Map<String, String> values = classEnums.get(key(clazz.getSimpleName(), qualifiedAttrName));
+            if (values != null) {
+                return new AttrEnum(clazz.getSimpleName() + "." + qualifiedAttrName, values);
+            }
+            clazz = clazz.getSuperclass();
+        }
+        return NO_ATTR_ENUM;
     }
 
     private String enumName(String name, String packageName) {
         return packageName + ":" + name;
     }
 
-    private void resolveReferences() {
+    /**
+     * Adds the attributes and enums {@code other} knows about, keeping ours where both define one, so a single index
+     * can answer for a package and all its libraries.
+     */
+    void merge(AttrResourceLoader other) {
+        for (Map.Entry<String, EnumDef> entry : other.enums.entrySet()) {
+            EnumDef enumDef = enums.get(entry.getKey());
+            if (enumDef == null) {
+                enumDef = new EnumDef(entry.getKey());
+                enums.put(entry.getKey(), enumDef);
+            }
+            putAbsent(enumDef.values, entry.getValue().values);
+        }
+        for (Map.Entry<String, EnumRef> entry : other.enumRefs.entrySet()) {
+            if (!enumRefs.containsKey(entry.getKey())) enumRefs.put(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Map<String, String>> entry : other.classEnums.entrySet()) {
+            putAbsent(classEnumValues(entry.getKey()), entry.getValue());
+        }
+        attrEnums.clear();
+        resolved = false;
+    }
+
+    private static void putAbsent(Map<String, String> to, Map<String, String> from) {
+        for (Map.Entry<String, String> entry : from.entrySet()) {
+            if (!to.containsKey(entry.getKey())) to.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    void resolveReferences() {
         if (!resolved) {
             for (EnumRef enumRef : enumRefs.values()) {
                 noteEnumUses(enumRef.viewName, enumRef.enumName);
             }
+            attrEnums.clear();
             resolved = true;
         }
     }
@@ -119,24 +190,16 @@ public class AttrResourceLoader extends XmlLoader {
         EnumDef enumDef = enums.get(enumName);
         if (enumDef == null) return;
 
-        for (Map.Entry<String, String> entry : enumDef.values.entrySet()) {
-            classEnumToValue.put(key(viewName, enumName, entry.getKey()), entry.getValue());
-        }
-        knownClassEnums.add(key(viewName, enumName));
+        classEnumValues(key(viewName, enumName)).putAll(enumDef.values);
     }
 
-    private Class<?> findKnownAttrClass(String attrName, Class<?> clazz) {
-        while (clazz != null) {
-            if (knownClassEnums.contains(key(clazz.getSimpleName(), attrName))) {
-                return clazz;
-            }
-            clazz = clazz.getSuperclass();
+    private Map<String, String> classEnumValues(String classEnumKey) {
+        Map<String, String> values = classEnums.get(classEnumKey);
+        if (values == null) {
+            values = new HashMap<String, String>();
+            classEnums.put(classEnumKey, values);
         }
-        return null;
-    }
-
-    private String key(String viewName, String enumName, String name) {
-        return viewName + "#" + enumName + "#" + name;
+        return values;
     }
 
     private String key(String viewName, String enumName) {
@@ -1,9 +1,6 @@
 package org.robolectric.res;
 
-import java.io.File;
-import java.io.FileFilter;
-
-class DirectoryMatchingFileFilter implements FileFilter {
+class DirectoryMatchingFileFilter extends PathFileFilter {
     private final String folderBaseName;
 
     public DirectoryMatchingFileFilter(String folderBaseName) {
@@ -11,7 +8,7 @@ class DirectoryMatchingFileFilter implements FileFilter {
     }
 
     @Override
-    public boolean accept(File file) {
-        return file.getPath().contains(File.separator + folderBaseName);
+    boolean accept(String path) {
+        return path.contains("/" + folderBaseName);
     }
 }
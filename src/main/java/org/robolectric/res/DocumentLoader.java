@@ -4,11 +4,12 @@ import com.ximpleware.VTDGen;
 import com.ximpleware.VTDNav;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.File;
 import java.io.FileFilter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,15 +17,16 @@ public class DocumentLoader {
     public static boolean DEBUG_PERF = false;
     private Map<String, Long> perfResponsibleParties = new HashMap<String, Long>();
 
-    private static final FileFilter ENDS_WITH_XML = new FileFilter() {
-        @Override public boolean accept(@NotNull File file) {
-            return file.getName().endsWith(".xml");
+    private static final FileFilter ENDS_WITH_XML = new PathFileFilter() {
+        @Override boolean accept(@NotNull String path) {
+            return path.endsWith(".xml");
         }
     };
 
     private final FsFile resourceBase;
     private final String packageName;
     private final VTDGen vtdGen;
+    private final Map<FsFile, Long> loadedFiles = new LinkedHashMap<FsFile, Long>();
 
     public DocumentLoader(ResourcePath resourcePath) {
         this.resourceBase = resourcePath.resourceBase;
@@ -36,12 +38,8 @@ public class DocumentLoader {
         long startTime = System.currentTimeMillis();
         if (DEBUG_PERF) perfResponsibleParties.clear();
 
-        FsFile[] files = resourceBase.listFiles(new DirectoryMatchingFileFilter(folderBaseName));
-        if (files == null) {
-            throw new RuntimeException(resourceBase.join(folderBaseName) + " is not a directory");
-        }
-        for (FsFile dir : files) {
-            loadFile(dir, xmlLoaders);
+        for (FsFile file : findFiles(folderBaseName)) {
+            loadResourceXmlFile(file, xmlLoaders);
         }
 
         if (DEBUG_PERF) {
@@ -54,18 +52,54 @@ public class DocumentLoader {
         }
     }
 
-    private void loadFile(FsFile dir, XmlLoader[] xmlLoaders) throws Exception {
-        if (!dir.exists()) {
-            throw new RuntimeException("no such directory " + dir);
+    /**
+     * Loads just {@code files}, e.g. the ones that have changed since {@link #load(String, XmlLoader...)}.
+     */
+    public void load(Collection<FsFile> files, XmlLoader... xmlLoaders) throws Exception {
+        for (FsFile file : files) {
+            loadResourceXmlFile(file, xmlLoaders);
         }
+    }
 
-        for (FsFile file : dir.listFiles(ENDS_WITH_XML)) {
-            loadResourceXmlFile(file, xmlLoaders);
+    /**
+     * Tracks {@code files}, which were loaded by other means, along with the xml files loaded here, so that
+     * {@link #getLoadedFiles()} covers them too.
+     */
+    public void addLoadedFiles(Collection<FsFile> files) {
+        for (FsFile file : files) {
+            loadedFiles.put(file, file.lastModified());
         }
     }
 
+    /**
+     * @return the xml files in every qualified version of {@code folderBaseName}, e.g. {@code layout-land}
+     */
+    public List<FsFile> findFiles(String folderBaseName) {
+        FsFile[] dirs = resourceBase.listFiles(new DirectoryMatchingFileFilter(folderBaseName));
+        if (dirs == null) {
+            throw new RuntimeException(resourceBase.join(folderBaseName) + " is not a directory");
+        }
+
+        List<FsFile> files = new ArrayList<FsFile>();
+        for (FsFile dir : dirs) {
+            if (!dir.exists()) {
+                throw new RuntimeException("no such directory " + dir);
+            }
+            Collections.addAll(files, dir.listFiles(ENDS_WITH_XML));
+        }
+        return files;
+    }
+
+    /**
+     * @return each file loaded so far, with when it last changed as of loading it
+     */
+    public Map<FsFile, Long> getLoadedFiles() {
+        return loadedFiles;
+    }
+
     private void loadResourceXmlFile(FsFile fsFile, XmlLoader... xmlLoaders) throws Exception {
         long startTime = DEBUG_PERF ? System.currentTimeMillis() : 0;
+        loadedFiles.put(fsFile, fsFile.lastModified());
         VTDNav vtdNav = parse(fsFile);
         if (DEBUG_PERF) perfBlame("DocumentLoader.parse", startTime);
 
@@ -0,0 +1,46 @@
+package org.robolectric.res;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The xml and nine-patch files in a package's drawable directories, found by listing the resource directory and each
+ * drawable directory once. Both nine-patch detection and xml drawable loading read from it, so the thousands of
+ * drawables in the system resources are listed once rather than once for each.
+ */
+public class DrawableCatalog {
+    private final List<FsFile> xmlFiles = new ArrayList<FsFile>();
+    private final List<FsFile> ninePatchFiles = new ArrayList<FsFile>();
+
+    public DrawableCatalog(ResourcePath resourcePath) {
+        FsFile resourceBase = resourcePath.resourceBase;
+        FsFile[] dirs = resourceBase.listFiles(new DirectoryMatchingFileFilter("drawable"));
+        if (dirs == null) {
+            throw new RuntimeException(resourceBase.join("drawable") + " is not a directory");
+        }
+
+        for (FsFile dir : dirs) {
+            FsFile[] files = dir.listFiles();
+            if (files == null) continue;
+
+            for (FsFile file : files) {
+                if (file.isDirectory()) continue;
+
+                String name = file.getName();
+                if (name.endsWith(".xml")) {
+                    xmlFiles.add(file);
+                } else if (name.endsWith(".9.png")) {
+                    ninePatchFiles.add(file);
+                }
+            }
+        }
+    }
+
+    public List<FsFile> getXmlFiles() {
+        return xmlFiles;
+    }
+
+    public List<FsFile> getNinePatchFiles() {
+        return ninePatchFiles;
+    }
+}
@@ -1,5 +1,7 @@
 package org.robolectric.res;
 
+import java.util.Collection;
+
 /**
  * DrawableResourceLoader
  */
@@ -33,25 +35,24 @@ public class DrawableResourceLoader extends XmlLoader {
      * @param resourcePath
      */
     public void findNinePatchResources(ResourcePath resourcePath) {
-        listNinePatchResources(resourcePath, resourcePath.resourceBase);
+        findNinePatchResources(resourcePath, new DrawableCatalog(resourcePath));
     }
 
-    private void listNinePatchResources(ResourcePath resourcePath, FsFile dir) {
-        FsFile[] files = dir.listFiles();
-        if (files != null) {
-            for (FsFile f : files) {
-                if (f.isDirectory() && f.toString().contains("/drawable")) {
-                    listNinePatchResources(resourcePath, f);
-                } else {
-                    String name = f.getName();
-                    if (name.endsWith(".9.png")) {
-                        String[] tokens = name.split("\\.9\\.png$");
-                        String shortName = tokens[0];
-                        XmlContext fakeXmlContext = new XmlContext(resourcePath.getPackageName(), f);
-                        drawableNodes.put("drawable", shortName, new DrawableNode.ImageFile(true), fakeXmlContext);
-                    }
-                }
-            }
+    /**
+     * Adds the nine-patch drawables in {@code drawableCatalog}, already listed from {@code resourcePath}.
+     */
+    public void findNinePatchResources(ResourcePath resourcePath, DrawableCatalog drawableCatalog) {
+        addNinePatchResources(resourcePath, drawableCatalog.getNinePatchFiles());
+    }
+
+    /**
+     * Adds the nine-patch drawables {@code ninePatchFiles}, from {@code resourcePath}.
+     */
+    public void addNinePatchResources(ResourcePath resourcePath, Collection<FsFile> ninePatchFiles) {
+        for (FsFile file : ninePatchFiles) {
+            String shortName = file.getName().split("\\.9\\.png$")[0];
+            XmlContext fakeXmlContext = new XmlContext(resourcePath.getPackageName(), file);
+            drawableNodes.put("drawable", shortName, new DrawableNode.ImageFile(true), fakeXmlContext);
         }
     }
 }
@@ -62,6 +62,10 @@ public class FileFsFile implements FsFile {
         return Util.readBytes(new FileInputStream(file));
     }
 
+    @Override public long lastModified() {
+        return file.lastModified();
+    }
+
     @Override public FsFile join(String... pathParts) {
         File f = file;
         for (String pathPart : pathParts) {
@@ -21,7 +21,21 @@ import static java.util.Arrays.asList;
 
 abstract public class Fs {
     public static Fs fromJar(URL url) {
-        return new JarFs(new File(url.getFile()));
+        File file = new File(url.getFile());
+        try {
+            return new MappedJarFs(file, jarIndexFile(file));
+        } catch (IOException e) {
+            return new JarFs(file);
+        }
+    }
+
+    /**
+     * Set the system property "robolectric.jarIndexDir" to keep the parsed directories of resource jars between runs.
+     */
+    private static File jarIndexFile(File jar) {
+        String jarIndexDir = System.getProperty("robolectric.jarIndexDir");
+        if (jarIndexDir == null) return null;
+        return new File(jarIndexDir, jar.getName() + "-" + Integer.toHexString(jar.getAbsolutePath().hashCode()) + ".index");
     }
 
     public static FsFile newFile(File file) {
@@ -31,8 +45,10 @@ abstract public class Fs {
     private static class JarFs extends Fs {
         private final JarFile jarFile;
         private final NavigableMap<String, JarEntry> jarEntryMap = new TreeMap<String, JarEntry>();
+        private final long lastModified;
 
         public JarFs(File file) {
+            lastModified = file.lastModified();
             try {
                 jarFile = new JarFile(file);
                 Enumeration<JarEntry> entries = jarFile.entries();
@@ -122,6 +138,10 @@ abstract public class Fs {
                 return Util.readBytes(getInputStream());
             }
 
+            @Override public long lastModified() {
+                return lastModified; // the jar is opened once, so its entries don't change after that
+            }
+
             @Override public FsFile join(String... pathParts) {
                 return new JarFsFile(path + "/" + Join.join("/", asList(pathParts)));
             }
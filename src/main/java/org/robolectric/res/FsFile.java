@@ -25,6 +25,11 @@ public interface FsFile {
 
     byte[] getBytes() throws IOException;
 
+    /**
+     * @return when the file last changed, in milliseconds since the epoch, or 0 if that isn't known
+     */
+    long lastModified();
+
     FsFile join(String... pathParts);
 
     @Override String toString();
@@ -0,0 +1,409 @@
+package org.robolectric.res;
+
+import org.robolectric.util.Join;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static java.util.Arrays.asList;
+
+/**
+ * A jar-backed {@link Fs} that memory-maps the jar, builds a directory tree from its central directory once, and
+ * reads stored or deflated entries straight out of the mapping.
+ *
+ * If an index file is given, the parsed central directory is saved there and reused as long as the jar's size and
+ * modification time are unchanged.
+ */
+class MappedJarFs extends Fs {
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_ENTRY_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final int INDEX_MAGIC = 0x526f4a69; // "RoJi"
+
+    private final File jar;
+    private final long lastModified;
+    private final ByteBuffer buffer;
+    private final Map<String, Entry> entriesByPath = new HashMap<String, Entry>();
+
+    MappedJarFs(File jar, File indexFile) throws IOException {
+        this.jar = jar;
+        this.lastModified = jar.lastModified();
+
+        RandomAccessFile file = new RandomAccessFile(jar, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        } finally {
+            file.close(); // the mapping stays valid after the channel is closed
+        }
+
+        List<Entry> entries = indexFile == null ? null : readIndex(indexFile);
+        if (entries == null) {
+            entries = readCentralDirectory();
+            if (indexFile != null) {
+                writeIndex(indexFile, entries);
+            }
+        }
+        buildTree(entries);
+    }
+
+    @Override public FsFile join(String folderBaseName) {
+        return new MappedJarFsFile(folderBaseName);
+    }
+
+    private List<Entry> readCentralDirectory() throws IOException {
+        int endOfCentralDirectory = -1;
+        for (int i = buffer.limit() - 22; i >= Math.max(0, buffer.limit() - 22 - 0xffff); i--) {
+            if (buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                endOfCentralDirectory = i;
+                break;
+            }
+        }
+        if (endOfCentralDirectory == -1) throw new IOException("no central directory in " + jar);
+
+        int entryCount = buffer.getShort(endOfCentralDirectory + 10) & 0xffff;
+        long centralDirectoryOffset = buffer.getInt(endOfCentralDirectory + 16) & 0xffffffffL;
+        if (entryCount == 0xffff || centralDirectoryOffset == 0xffffffffL) throw new IOException("zip64 isn't supported: " + jar);
+
+        List<Entry> entries = new ArrayList<Entry>(entryCount);
+        int position = (int) centralDirectoryOffset;
+        for (int i = 0; i < entryCount; i++) {
+            if (buffer.getInt(position) != CENTRAL_DIRECTORY_ENTRY_SIGNATURE) throw new IOException("bad central directory in " + jar);
+            int method = buffer.getShort(position + 10) & 0xffff;
+            int compressedSize = buffer.getInt(position + 20);
+            int size = buffer.getInt(position + 24);
+            int nameLength = buffer.getShort(position + 28) & 0xffff;
+            int extraLength = buffer.getShort(position + 30) & 0xffff;
+            int commentLength = buffer.getShort(position + 32) & 0xffff;
+            int localHeaderOffset = buffer.getInt(position + 42);
+
+            byte[] nameBytes = new byte[nameLength];
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + 46);
+            view.get(nameBytes);
+
+            entries.add(new Entry(new String(nameBytes, "UTF-8"), method, compressedSize, size, localHeaderOffset));
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    private List<Entry> readIndex(File indexFile) {
+        if (!indexFile.isFile()) return null;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            try {
+                if (in.readInt() != INDEX_MAGIC || in.readLong() != jar.length() || in.readLong() != jar.lastModified()) {
+                    return null;
+                }
+                int count = in.readInt();
+                List<Entry> entries = new ArrayList<Entry>(count);
+                for (int i = 0; i < count; i++) {
+                    entries.add(new Entry(in.readUTF(), in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+                }
+                return entries;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null; // no problem, we'll read the central directory
+        }
+    }
+
+    private void writeIndex(File indexFile, List<Entry> entries) {
+        File tmpFile = new File(indexFile.getPath() + "." + System.nanoTime() + ".tmp");
+        try {
+            indexFile.getAbsoluteFile().getParentFile().mkdirs();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            try {
+                out.writeInt(INDEX_MAGIC);
+                out.writeLong(jar.length());
+                out.writeLong(jar.lastModified());
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    out.writeUTF(entry.zipName);
+                    out.writeInt(entry.method);
+                    out.writeInt(entry.compressedSize);
+                    out.writeInt(entry.size);
+                    out.writeInt(entry.localHeaderOffset);
+                }
+            } finally {
+                out.close();
+            }
+            if (!tmpFile.renameTo(indexFile)) {
+                tmpFile.delete();
+            }
+        } catch (IOException e) {
+            tmpFile.delete(); // no problem, we'll just read the central directory again next time
+        }
+    }
+
+    private void buildTree(List<Entry> entries) {
+        Map<String, List<Entry>> childrenByPath = new HashMap<String, List<Entry>>();
+        entriesByPath.put("", new Entry(""));
+        for (Entry entry : entries) {
+            Entry existing = entriesByPath.get(entry.path);
+            if (existing != null) {
+                if (!entry.isDirectory) existing.becomeFile(entry);
+                continue;
+            }
+            entriesByPath.put(entry.path, entry);
+            addToParent(entry, childrenByPath);
+        }
+
+        Comparator<Entry> byName = new Comparator<Entry>() {
+            @Override public int compare(Entry a, Entry b) {
+                return a.name.compareTo(b.name);
+            }
+        };
+        for (Map.Entry<String, List<Entry>> children : childrenByPath.entrySet()) {
+            Entry[] array = children.getValue().toArray(new Entry[children.getValue().size()]);
+            Arrays.sort(array, byName);
+            entriesByPath.get(children.getKey()).children = array;
+        }
+    }
+
+    private void addToParent(Entry entry, Map<String, List<Entry>> childrenByPath) {
+        String parentPath = parentPath(entry.path);
+        Entry parent = entriesByPath.get(parentPath);
+        if (parent == null) {
+            // directories don't always have entries of their own
+            parent = new Entry(parentPath);
+            entriesByPath.put(parentPath, parent);
+            addToParent(parent, childrenByPath);
+        }
+
+        List<Entry> siblings = childrenByPath.get(parentPath);
+        if (siblings == null) {
+            siblings = new ArrayList<Entry>();
+            childrenByPath.put(parentPath, siblings);
+        }
+        siblings.add(entry);
+    }
+
+    private static String parentPath(String path) {
+        int lastSlash = path.lastIndexOf('/');
+        return lastSlash == -1 ? "" : path.substring(0, lastSlash);
+    }
+
+    private byte[] read(Entry entry) throws IOException {
+        ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int localHeader = entry.localHeaderOffset;
+        if (view.getInt(localHeader) != LOCAL_HEADER_SIGNATURE) throw new IOException("bad local header for " + entry.zipName + " in " + jar);
+        int nameLength = view.getShort(localHeader + 26) & 0xffff;
+        int extraLength = view.getShort(localHeader + 28) & 0xffff;
+        view.position(localHeader + LOCAL_HEADER_LENGTH + nameLength + extraLength);
+
+        byte[] bytes = new byte[entry.size];
+        switch (entry.method) {
+            case STORED:
+                view.get(bytes);
+                return bytes;
+
+            case DEFLATED:
+                byte[] compressed = new byte[entry.compressedSize];
+                view.get(compressed);
+                Inflater inflater = new Inflater(true);
+                try {
+                    // nowrap mode wants an extra dummy byte at the end of the input
+                    inflater.setInput(Arrays.copyOf(compressed, compressed.length + 1));
+                    int offset = 0;
+                    while (offset < bytes.length && !inflater.finished()) {
+                        int count = inflater.inflate(bytes, offset, bytes.length - offset);
+                        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                        offset += count;
+                    }
+                    if (offset != bytes.length) throw new IOException("truncated entry " + entry.zipName + " in " + jar);
+                } catch (DataFormatException e) {
+                    throw new IOException("corrupt entry " + entry.zipName + " in " + jar + ": " + e.getMessage());
+                } finally {
+                    inflater.end();
+                }
+                return bytes;
+
+            default:
+                throw new IOException("unsupported compression method " + entry.method + " for " + entry.zipName + " in " + jar);
+        }
+    }
+
+    private static class Entry {
+        private static final Entry[] NO_CHILDREN = new Entry[0];
+
+        final String path;
+        final String name;
+        String zipName;
+        boolean isDirectory;
+        int method;
+        int compressedSize;
+        int size;
+        int localHeaderOffset;
+        Entry[] children = NO_CHILDREN;
+
+        Entry(String zipName, int method, int compressedSize, int size, int localHeaderOffset) {
+            this.zipName = zipName;
+            this.isDirectory = zipName.endsWith("/");
+            this.path = isDirectory ? zipName.substring(0, zipName.length() - 1) : zipName;
+            this.name = path.substring(path.lastIndexOf('/') + 1);
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        Entry(String directoryPath) {
+            this(directoryPath + "/", STORED, 0, 0, 0);
+        }
+
+        void becomeFile(Entry entry) {
+            zipName = entry.zipName;
+            isDirectory = false;
+            method = entry.method;
+            compressedSize = entry.compressedSize;
+            size = entry.size;
+            localHeaderOffset = entry.localHeaderOffset;
+        }
+    }
+
+    private class MappedJarFsFile implements FsFile {
+        private final String path;
+
+        public MappedJarFsFile(String path) {
+            this.path = path;
+        }
+
+        private Entry entry() {
+            return entriesByPath.get(path);
+        }
+
+        @Override public boolean exists() {
+            return entry() != null;
+        }
+
+        @Override public boolean isDirectory() {
+            Entry entry = entry();
+            return entry != null && entry.isDirectory;
+        }
+
+        @Override public boolean isFile() {
+            Entry entry = entry();
+            return entry != null && !entry.isDirectory;
+        }
+
+        @Override public FsFile[] listFiles() {
+            Entry entry = entry();
+            if (entry == null || !entry.isDirectory) return null;
+            FsFile[] fsFiles = new FsFile[entry.children.length];
+            for (int i = 0; i < fsFiles.length; i++) {
+                fsFiles[i] = new MappedJarFsFile(entry.children[i].path);
+            }
+            return fsFiles;
+        }
+
+        @Override public FsFile[] listFiles(FileFilter fileFilter) {
+            Entry entry = entry();
+            if (entry == null || !entry.isDirectory) return null;
+            List<FsFile> filteredFsFiles = new ArrayList<FsFile>();
+            for (Entry child : entry.children) {
+                boolean accepted = fileFilter instanceof PathFileFilter
+                        ? ((PathFileFilter) fileFilter).accept(child.path)
+                        : fileFilter.accept(new File(child.path));
+                if (accepted) {
+                    filteredFsFiles.add(new MappedJarFsFile(child.path));
+                }
+            }
+            return filteredFsFiles.toArray(new FsFile[filteredFsFiles.size()]);
+        }
+
+        @Override public String[] listFileNames() {
+            Entry entry = entry();
+            if (entry == null || !entry.isDirectory) return null;
+            String[] fileNames = new String[entry.children.length];
+            for (int i = 0; i < fileNames.length; i++) {
+                fileNames[i] = entry.children[i].name;
+            }
+            return fileNames;
+        }
+
+        @Override public FsFile getParent() {
+            return new MappedJarFsFile(parentPath(path));
+        }
+
+        @Override public String getName() {
+            return path.substring(path.lastIndexOf('/') + 1);
+        }
+
+        @Override public InputStream getInputStream() throws IOException {
+            return new ByteArrayInputStream(getBytes());
+        }
+
+        @Override public byte[] getBytes() throws IOException {
+            Entry entry = entry();
+            if (entry == null || entry.isDirectory) throw new IOException("no such file " + this);
+            return read(entry);
+        }
+
+        @Override public long lastModified() {
+            return lastModified; // the jar is mapped once, so its entries don't change after that
+        }
+
+        @Override public FsFile join(String... pathParts) {
+            return new MappedJarFsFile(path + "/" + Join.join("/", asList(pathParts)));
+        }
+
+        @Override public String getBaseName() {
+            String name = getName();
+            int dotIndex = name.indexOf(".");
+            return dotIndex >= 0 ? name.substring(0, dotIndex) : name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            MappedJarFsFile that = (MappedJarFsFile) o;
+
+            if (!getJarFileName().equals(that.getJarFileName())) return false;
+            if (!path.equals(that.path)) return false;
+
+            return true;
+        }
+
+        private String getJarFileName() {
+            return jar.getPath();
+        }
+
+        @Override
+        public int hashCode() {
+            return getJarFileName().hashCode() * 31 + path.hashCode();
+        }
+
+        @Override public String toString() {
+            return "jar:" + getJarFileName() + "!/" + path;
+        }
+    }
+}
@@ -7,10 +7,12 @@ public class MergedResourceIndex extends ResourceIndex {
 
     public MergedResourceIndex(ResourceIndex... subIndexes) {
         this.subIndexes = subIndexes;
-        for (ResourceIndex subIndex : subIndexes) {
-            merge(resourceNameToId, subIndex.resourceNameToId, "resourceNameToId");
-            merge(resourceIdToResName, subIndex.resourceIdToResName, "resourceIdToResName");
+        ResourceIdTable[] idTables = new ResourceIdTable[subIndexes.length];
+        for (int i = 0; i < subIndexes.length; i++) {
+            merge(resourceNameToId, subIndexes[i].resourceNameToId, "resourceNameToId");
+            idTables[i] = subIndexes[i].resourceIdToResName;
         }
+        resourceIdToResName = ResourceIdTable.merge(idTables);
     }
 
     private static <K,V> void merge(Map<K, V> map1, Map<K, V> map2, String name) {
@@ -23,9 +25,9 @@ public class MergedResourceIndex extends ResourceIndex {
 
     @Override
     public Integer getResourceId(ResName resName) {
-        // todo: this is pretty silly...
         Integer id = resourceNameToId.get(resName);
         if (id == null) {
+            // ids the sub-indexes hand out after we were built
             for (ResourceIndex subIndex : subIndexes) {
                 id = subIndex.getResourceId(resName);
                 if (id != null) return id;
@@ -36,9 +38,9 @@ public class MergedResourceIndex extends ResourceIndex {
 
     @Override
     public ResName getResName(int resourceId) {
-        // todo: this is pretty silly...
         ResName resName = resourceIdToResName.get(resourceId);
         if (resName == null) {
+            // ids the sub-indexes hand out after we were built
             for (ResourceIndex subIndex : subIndexes) {
                 resName = subIndex.getResName(resourceId);
                 if (resName != null) return resName;
@@ -46,4 +48,4 @@ public class MergedResourceIndex extends ResourceIndex {
         }
         return resName;
     }
-}
\ No newline at end of file
+}
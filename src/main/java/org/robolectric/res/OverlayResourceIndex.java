@@ -24,6 +24,7 @@ class OverlayResourceIndex extends ResourceIndex {
         this.packageName = packageName;
 
         final ResEntries resEntries = new ResEntries();
+        Map<Integer, ResName> resNamesById = new HashMap<Integer, ResName>();
         for (ResourceIndex subResourceIndex : subResourceIndexes) {
             for (Map.Entry<ResName, Integer> entry : subResourceIndex.resourceNameToId.entrySet()) {
                 ResName resName = entry.getKey();
@@ -31,9 +32,10 @@ class OverlayResourceIndex extends ResourceIndex {
                 ResName localResName = resName.withPackageName(packageName);
                 if (OverlayResourceLoader.DEBUG) resEntries.add(localResName, resName, value);
                 resourceNameToId.put(localResName, value);
-                resourceIdToResName.put(value, localResName);
+                resNamesById.put(value, localResName);
             }
         }
+        resourceIdToResName = ResourceIdTable.of(resNamesById);
 
 //        if (OverlayResourceLoader.DEBUG) resEntries.check(subResourceIndexes);
     }
@@ -1,7 +1,5 @@
 package org.robolectric.res;
 
-import android.view.View;
-
 import java.util.List;
 
 public class OverlayResourceLoader extends XResourceLoader {
@@ -17,46 +15,41 @@ public class OverlayResourceLoader extends XResourceLoader {
     }
 
     @Override
-    void doInitialize() {
-        for (PackageResourceLoader subResourceLoader : subResourceLoaders) {
-            subResourceLoader.initialize();
-
-            booleanData.mergeLibraryStyle(subResourceLoader.booleanData, packageName);
-            colorData.mergeLibraryStyle(subResourceLoader.colorData, packageName);
-            dimenData.mergeLibraryStyle(subResourceLoader.dimenData, packageName);
-            integerData.mergeLibraryStyle(subResourceLoader.integerData, packageName);
-            pluralsData.mergeLibraryStyle(subResourceLoader.pluralsData, packageName);
-            stringData.mergeLibraryStyle(subResourceLoader.stringData, packageName);
-            layoutData.mergeLibraryStyle(subResourceLoader.layoutData, packageName);
-            menuData.mergeLibraryStyle(subResourceLoader.menuData, packageName);
-            drawableData.mergeLibraryStyle(subResourceLoader.drawableData, packageName);
-            preferenceData.mergeLibraryStyle(subResourceLoader.preferenceData, packageName);
-            xmlDocuments.mergeLibraryStyle(subResourceLoader.xmlDocuments, packageName);
-            rawResources.mergeLibraryStyle(subResourceLoader.rawResources, packageName);
-        }
-    }
-
-    @Override
-    public boolean hasAttributeFor(Class<? extends View> viewClass, String namespace, String attribute) {
-        initialize();
-
-        // todo: this sucks
-        for (PackageResourceLoader subResourceLoader : subResourceLoaders) {
-            boolean b = subResourceLoader.hasAttributeFor(viewClass, namespace, attribute);
-            if (b) return true;
-        }
-        return false;
-    }
-
-    @Override
-    public String convertValueToEnum(Class<? extends View> viewClass, String namespace, String attribute, String part) {
-        initialize();
-
-        // todo: this sucks
+    void doInitialize(ResourceKind kind) {
         for (PackageResourceLoader subResourceLoader : subResourceLoaders) {
-            String s = subResourceLoader.convertValueToEnum(viewClass, namespace, attribute, part);
-            if (s != null) return s;
+            subResourceLoader.initialize(kind);
+            String libraryPackageName = subResourceLoader.resourcePath.getPackageName();
+
+            switch (kind) {
+                case VALUES:
+                    booleanData.addLibrary(subResourceLoader.booleanData, libraryPackageName, packageName);
+                    colorData.addLibrary(subResourceLoader.colorData, libraryPackageName, packageName);
+                    dimenData.addLibrary(subResourceLoader.dimenData, libraryPackageName, packageName);
+                    integerData.addLibrary(subResourceLoader.integerData, libraryPackageName, packageName);
+                    pluralsData.addLibrary(subResourceLoader.pluralsData, libraryPackageName, packageName);
+                    stringData.addLibrary(subResourceLoader.stringData, libraryPackageName, packageName);
+                    attrResourceLoader.merge(subResourceLoader.attrResourceLoader);
+                    break;
+                case LAYOUT:
+                    layoutData.addLibrary(subResourceLoader.layoutData, libraryPackageName, packageName);
+                    break;
+                case MENU:
+                    menuData.addLibrary(subResourceLoader.menuData, libraryPackageName, packageName);
+                    break;
+                case DRAWABLE:
+                    drawableData.addLibrary(subResourceLoader.drawableData, libraryPackageName, packageName);
+                    break;
+                case PREFERENCE:
+                    preferenceData.addLibrary(subResourceLoader.preferenceData, libraryPackageName, packageName);
+                    break;
+                case XML:
+                    xmlBlocks.addLibrary(subResourceLoader.xmlBlocks, libraryPackageName, packageName);
+                    break;
+                case RAW:
+                    rawResources.addLibrary(subResourceLoader.rawResources, libraryPackageName, packageName);
+                    break;
+            }
         }
-        return null;
+        if (kind == ResourceKind.VALUES) attrResourceLoader.resolveReferences();
     }
 }
@@ -2,9 +2,15 @@ package org.robolectric.res;
 
 import org.robolectric.util.I18nException;
 
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 public class PackageResourceLoader extends XResourceLoader {
     ResourcePath resourcePath;
     ResourceIndex resourceIndex;
+    private final Map<ResourceKind, Map<FsFile, Long>> loadedFiles = new EnumMap<ResourceKind, Map<FsFile, Long>>(ResourceKind.class);
 
     public PackageResourceLoader(ResourcePath resourcePath) {
         this(resourcePath, new ResourceExtractor(resourcePath));
@@ -15,9 +21,10 @@ public class PackageResourceLoader extends XResourceLoader {
         this.resourcePath = resourcePath;
     }
 
-    void doInitialize() {
+    @Override
+    void doInitialize(ResourceKind kind) {
         try {
-            loadEverything();
+            load(kind);
         } catch (I18nException e) {
             throw e;
         } catch (Exception e) {
@@ -25,32 +32,164 @@ public class PackageResourceLoader extends XResourceLoader {
         }
     }
 
-    private void loadEverything() throws Exception {
-        System.out.println("DEBUG: Loading resources for " + resourcePath.getPackageName() + " from " + resourcePath.resourceBase + "...");
+    private void load(ResourceKind kind) throws Exception {
+        System.out.println("DEBUG: Loading " + kind.name().toLowerCase() + " resources for " + resourcePath.getPackageName() + " from " + resourcePath.resourceBase + "...");
+
+        DocumentLoader documentLoader = new DocumentLoader(resourcePath);
+        switch (kind) {
+            case VALUES:
+                documentLoader.load("values",
+                        new ValueResourceLoader(booleanData, "bool", false),
+                        new ValueResourceLoader(colorData, "color", false),
+                        new ValueResourceLoader(dimenData, "dimen", false),
+                        new ValueResourceLoader(integerData, "integer", true),
+                        new PluralResourceLoader(resourceIndex, pluralsData),
+                        new ValueResourceLoader(stringData, "string", true),
+                        attrResourceLoader
+                );
+                attrResourceLoader.resolveReferences();
+                loadOtherResources(resourcePath);
+                break;
+            case LAYOUT:
+                documentLoader.load("layout", new LayoutLoader(layoutData));
+                break;
+            case MENU:
+                documentLoader.load("menu", new MenuLoader(menuData));
+                break;
+            case DRAWABLE:
+                DrawableCatalog drawableCatalog = new DrawableCatalog(resourcePath);
+                DrawableResourceLoader drawableResourceLoader = new DrawableResourceLoader(drawableData);
+                drawableResourceLoader.findNinePatchResources(resourcePath, drawableCatalog);
+                documentLoader.load(drawableCatalog.getXmlFiles(), drawableResourceLoader);
+                documentLoader.addLoadedFiles(drawableCatalog.getNinePatchFiles());
+                break;
+            case PREFERENCE:
+                documentLoader.load("xml", new PreferenceLoader(preferenceData));
+                break;
+            case XML:
+                documentLoader.load("xml", new XmlFileLoader(xmlBlocks));
+                break;
+            case RAW:
+                new RawResourceLoader(resourcePath).loadTo(rawResources);
+                break;
+        }
+
+        if (kind != ResourceKind.VALUES && kind != ResourceKind.RAW) {
+            synchronized (loadedFiles) {
+                loadedFiles.put(kind, documentLoader.getLoadedFiles());
+            }
+        }
+    }
+
+    /**
+     * Reads again the layout, menu, drawable and xml files that have been added, changed or removed since they were
+     * loaded, and swaps in just their entries, so a JVM kept running between builds sees edited resources without
+     * loading everything again. Kinds that haven't been loaded yet are left alone, and so are values, which feed
+     * attributes and resolved values across files; a changed values file still needs a new loader.
+     *
+     * @return the files whose entries were swapped
+     */
+    public Set<FsFile> reloadChangedResources() {
+        Set<FsFile> reloadedFiles = new HashSet<FsFile>();
+        synchronized (loadedFiles) {
+            for (Map.Entry<ResourceKind, Map<FsFile, Long>> entry : loadedFiles.entrySet()) {
+                try {
+                    reloadedFiles.addAll(reloadChangedFiles(entry.getKey(), entry.getValue()));
+                } catch (I18nException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        return reloadedFiles;
+    }
 
+    private Set<FsFile> reloadChangedFiles(ResourceKind kind, Map<FsFile, Long> files) throws Exception {
         DocumentLoader documentLoader = new DocumentLoader(resourcePath);
-        documentLoader.load("values",
-                new ValueResourceLoader(booleanData, "bool", false),
-                new ValueResourceLoader(colorData, "color", false),
-                new ValueResourceLoader(dimenData, "dimen", false),
-                new ValueResourceLoader(integerData, "integer", true),
-                new PluralResourceLoader(resourceIndex, pluralsData),
-                new ValueResourceLoader(stringData, "string", true),
-                attrResourceLoader
-        );
-
-        documentLoader.load("layout", new LayoutLoader(layoutData));
-        documentLoader.load("menu", new MenuLoader(menuData));
-        DrawableResourceLoader drawableResourceLoader = new DrawableResourceLoader(drawableData);
-        drawableResourceLoader.findNinePatchResources(resourcePath);
-        documentLoader.load("drawable", drawableResourceLoader);
-        documentLoader.load("xml", new PreferenceLoader(preferenceData));
-        documentLoader.load("xml", new XmlFileLoader(xmlDocuments));
-        new RawResourceLoader(resourcePath).loadTo(rawResources);
-
-        loadOtherResources(resourcePath);
+        DrawableCatalog drawableCatalog = null;
+        Set<FsFile> currentFiles;
+        if (kind == ResourceKind.DRAWABLE) {
+            // nine-patches aren't xml, so they come from the catalog rather than DocumentLoader
+            drawableCatalog = new DrawableCatalog(resourcePath);
+            currentFiles = new HashSet<FsFile>(drawableCatalog.getXmlFiles());
+            currentFiles.addAll(drawableCatalog.getNinePatchFiles());
+        } else {
+            currentFiles = new HashSet<FsFile>(documentLoader.findFiles(folderBaseName(kind)));
+        }
+
+        Set<FsFile> filesToLoad = new HashSet<FsFile>();
+        for (FsFile file : currentFiles) {
+            Long lastModified = files.get(file);
+            if (lastModified == null || lastModified != file.lastModified()) {
+                filesToLoad.add(file);
+            }
+        }
+        Set<FsFile> changedFiles = new HashSet<FsFile>(files.keySet());
+        changedFiles.removeAll(currentFiles);
+        changedFiles.addAll(filesToLoad);
+        if (changedFiles.isEmpty()) return changedFiles;
+
+        System.out.println("DEBUG: Reloading " + changedFiles.size() + " " + kind.name().toLowerCase() + " resource files for " + resourcePath.getPackageName() + "...");
+        switch (kind) {
+            case LAYOUT:
+                ResBundle<ViewNode> layouts = new ResBundle<ViewNode>();
+                documentLoader.load(filesToLoad, new LayoutLoader(layouts));
+                layoutData.replaceValuesFrom(changedFiles, layouts);
+                break;
+            case MENU:
+                ResBundle<MenuNode> menus = new ResBundle<MenuNode>();
+                documentLoader.load(filesToLoad, new MenuLoader(menus));
+                menuData.replaceValuesFrom(changedFiles, menus);
+                break;
+            case DRAWABLE:
+                ResBundle<DrawableNode> drawables = new ResBundle<DrawableNode>();
+                DrawableResourceLoader drawableResourceLoader = new DrawableResourceLoader(drawables);
+                Set<FsFile> ninePatchesToLoad = new HashSet<FsFile>(drawableCatalog.getNinePatchFiles());
+                ninePatchesToLoad.retainAll(filesToLoad);
+                Set<FsFile> xmlFilesToLoad = new HashSet<FsFile>(filesToLoad);
+                xmlFilesToLoad.removeAll(ninePatchesToLoad);
+                drawableResourceLoader.addNinePatchResources(resourcePath, ninePatchesToLoad);
+                documentLoader.load(xmlFilesToLoad, drawableResourceLoader);
+                documentLoader.addLoadedFiles(ninePatchesToLoad);
+                drawableData.replaceValuesFrom(changedFiles, drawables);
+                break;
+            case PREFERENCE:
+                ResBundle<PreferenceNode> preferences = new ResBundle<PreferenceNode>();
+                documentLoader.load(filesToLoad, new PreferenceLoader(preferences));
+                preferenceData.replaceValuesFrom(changedFiles, preferences);
+                break;
+            case XML:
+                ResBundle<XmlBlock> xmls = new ResBundle<XmlBlock>();
+                documentLoader.load(filesToLoad, new XmlFileLoader(xmls));
+                xmlBlocks.replaceValuesFrom(changedFiles, xmls);
+                break;
+        }
+
+        files.keySet().retainAll(currentFiles);
+        files.putAll(documentLoader.getLoadedFiles());
+        return changedFiles;
+    }
+
+    private static String folderBaseName(ResourceKind kind) {
+        switch (kind) {
+            case LAYOUT:
+                return "layout";
+            case MENU:
+                return "menu";
+            case DRAWABLE:
+                return "drawable";
+            case PREFERENCE:
+            case XML:
+                return "xml";
+            default:
+                throw new IllegalArgumentException(kind + " resources aren't kept one to a file");
+        }
     }
 
+    /**
+     * Called once, after the values have been loaded.
+     */
     protected void loadOtherResources(ResourcePath resourcePath) {
     }
 
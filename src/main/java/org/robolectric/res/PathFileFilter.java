@@ -0,0 +1,20 @@
+package org.robolectric.res;
+
+import java.io.File;
+import java.io.FileFilter;
+
+/**
+ * A {@link FileFilter} that only looks at paths, so {@link FsFile}s that aren't backed by real files can apply it
+ * without creating a {@link File} for every entry.
+ */
+abstract class PathFileFilter implements FileFilter {
+    /**
+     * @param path a path using '/' as the separator
+     */
+    abstract boolean accept(String path);
+
+    @Override
+    public boolean accept(File file) {
+        return accept(file.getPath().replace(File.separatorChar, '/'));
+    }
+}
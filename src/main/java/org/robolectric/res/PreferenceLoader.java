@@ -1,11 +1,8 @@
 package org.robolectric.res;
 
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class PreferenceLoader extends XmlLoader {
     private final ResBundle<PreferenceNode> resBundle;
@@ -16,41 +13,21 @@ public class PreferenceLoader extends XmlLoader {
 
     @Override
     protected void processResourceXml(FsFile xmlFile, XpathResourceXmlLoader.XmlNode xmlNode, XmlContext xmlContext) throws Exception {
-        PreferenceNode topLevelNode = new PreferenceNode("top-level", new ArrayList<Attribute>());
-        processChildren(parse(xmlFile).getChildNodes(), topLevelNode, xmlContext);
-        resBundle.put("xml", xmlFile.getName().replace(".xml", ""), topLevelNode.getChildren().get(0), xmlContext);
-    }
-
-    private void processChildren(NodeList childNodes, PreferenceNode parent, XmlContext xmlContext) {
-        for (int i = 0; i < childNodes.getLength(); i++) {
-            Node node = childNodes.item(i);
-            processNode(node, parent, xmlContext);
-        }
+        // read the tree straight from the document loader's VTD index, rather than parsing the file again into a DOM
+        resBundle.put("xml", xmlFile.getName().replace(".xml", ""), processNode(xmlNode, xmlContext), xmlContext);
     }
 
-    private void processNode(Node node, PreferenceNode parent, XmlContext xmlContext) {
-        String name = node.getNodeName();
-        NamedNodeMap attributes = node.getAttributes();
+    private PreferenceNode processNode(XpathResourceXmlLoader.XmlNode node, XmlContext xmlContext) {
         List<Attribute> attrList = new ArrayList<Attribute>();
-
-        if (attributes != null) {
-            int length = attributes.getLength();
-            for (int i = 0; i < length; i++) {
-                Node attr = attributes.item(i);
-                String attrName = ResName.qualifyResourceName(attr.getNodeName(), xmlContext.packageName);
-                if (attrName.startsWith("xmlns:")) {
-                    // ignore
-                } else {
-                    attrList.add(new Attribute(Attribute.addType(attrName, "attr"), attr.getNodeValue(), xmlContext.packageName));
-                }
-            }
+        for (Map.Entry<String, String> attr : node.getAttributes().entrySet()) {
+            String attrName = ResName.qualifyResourceName(attr.getKey(), xmlContext.packageName);
+            attrList.add(new Attribute(Attribute.addType(attrName, "attr"), attr.getValue(), xmlContext.packageName));
         }
 
-        if (!name.startsWith("#")) {
-            PreferenceNode prefNode = new PreferenceNode(name, attrList);
-            if (parent != null) parent.addChild(prefNode);
-
-            processChildren(node.getChildNodes(), prefNode, xmlContext);
+        PreferenceNode prefNode = new PreferenceNode(node.getName(), attrList);
+        for (XpathResourceXmlLoader.XmlNode child : node.getChildElements()) {
+            prefNode.addChild(processNode(child, xmlContext));
         }
+        return prefNode;
     }
 }
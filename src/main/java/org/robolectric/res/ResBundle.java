@@ -1,10 +1,13 @@
 package org.robolectric.res;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class ResBundle<T> {
     private final ResMap<T> valuesMap = new ResMap<T>();
@@ -31,7 +34,7 @@ public class ResBundle<T> {
     }
 
     public Value<T> getValue(ResName resName, String qualifiers) {
-        Values<T> values = valuesMap.find(maybeOverride(resName));
+        Values<T> values = valuesMap.get(maybeOverride(resName));
         return (values != null) ? pick(values, qualifiers) : null;
     }
 
@@ -41,7 +44,7 @@ public class ResBundle<T> {
     }
 
     public Value<List<T>> getListValue(ResName resName, String qualifiers) {
-        Values<List<T>> values = valuesArrayMap.find(maybeOverride(resName));
+        Values<List<T>> values = valuesArrayMap.get(maybeOverride(resName));
         return (values != null) ? pick(values, qualifiers) : null;
     }
 
@@ -101,9 +104,25 @@ public class ResBundle<T> {
         return overrideNamespace == null ? resName : new ResName(overrideNamespace, resName.type, resName.name);
     }
 
-    public void mergeLibraryStyle(ResBundle<T> fromResBundle, String packageName) {
-        valuesMap.merge(packageName, fromResBundle.valuesMap);
-        valuesArrayMap.merge(packageName, fromResBundle.valuesArrayMap);
+    /**
+     * Makes the values in {@code library}, a bundle for {@code libraryPackageName}, visible in this one under
+     * {@code packageName}, after those of any library added before it. The library's maps are referenced rather than
+     * copied, so several overlays can share one; a name defined by more than one library is combined on first use.
+     */
+    public void addLibrary(ResBundle<T> library, String libraryPackageName, String packageName) {
+        valuesMap.addLibrary(library.valuesMap, libraryPackageName, packageName);
+        valuesArrayMap.addLibrary(library.valuesArrayMap, libraryPackageName, packageName);
+    }
+
+    /**
+     * Swaps the values that came from {@code files} for those in {@code reloaded}, a bundle holding just what was
+     * read from them again; a file that's gone simply has its values dropped. Each name changed is swapped for a new
+     * list of values in one step, so lookups never see a name half updated, and overlays sharing this bundle as a
+     * library see the new values from their next lookup on.
+     */
+    public synchronized void replaceValuesFrom(Collection<FsFile> files, ResBundle<T> reloaded) {
+        valuesMap.replaceValuesFrom(files, reloaded.valuesMap, this);
+        valuesArrayMap.replaceValuesFrom(files, reloaded.valuesArrayMap, this);
     }
 
     static class Value<T> implements Comparable<Value<T>> {
@@ -131,7 +150,13 @@ public class ResBundle<T> {
     }
 
     private static class ResMap<T> {
-        private final Map<ResName, Values<T>> map = new HashMap<ResName, Values<T>>();
+        private final Map<ResName, Values<T>> map = new ConcurrentHashMap<ResName, Values<T>>();
+        private final List<ResMap<T>> libraries = new ArrayList<ResMap<T>>();
+        private final List<String> libraryPackageNames = new ArrayList<String>();
+        private final ConcurrentMap<ResName, Values<T>> combined = new ConcurrentHashMap<ResName, Values<T>>();
+        private volatile int combinedGeneration;
+        private volatile int generation;
+        private String packageName;
         private boolean immutable;
 
         public Values<T> find(ResName resName) {
@@ -140,15 +165,97 @@ public class ResBundle<T> {
             return values;
         }
 
-        private void merge(String packageName, ResMap<T> sourceMap) {
+        public Values<T> get(ResName resName) {
+            if (libraries.isEmpty() || !resName.namespace.equals(packageName)) return map.get(resName);
+
+            int librariesGeneration = librariesGeneration();
+            if (combinedGeneration != librariesGeneration) {
+                combined.clear();
+                combinedGeneration = librariesGeneration;
+            }
+
+            Values<T> values = combined.get(resName);
+            if (values == null) {
+                values = combine(resName);
+                Values<T> raced = combined.putIfAbsent(resName, values);
+                if (raced != null) values = raced;
+            }
+            return values;
+        }
+
+        private Values<T> combine(ResName resName) {
+            Values<T> only = map.get(resName);
+            Values<T> values = null;
+            for (int i = 0; i < libraries.size(); i++) {
+                Values<T> libraryValues = libraries.get(i).get(resName.withPackageName(libraryPackageNames.get(i)));
+                if (libraryValues == null || libraryValues.isEmpty()) continue;
+
+                if (only == null || only.isEmpty()) {
+                    only = libraryValues;
+                } else {
+                    if (values == null) {
+                        values = new Values<T>();
+                        values.addAll(only);
+                    }
+                    values.addAll(libraryValues);
+                }
+            }
+            if (values != null) return values;
+            return only == null ? new Values<T>() : only;
+        }
+
+        private int librariesGeneration() {
+            int librariesGeneration = generation;
+            for (ResMap<T> library : libraries) {
+                librariesGeneration += library.generation;
+            }
+            return librariesGeneration;
+        }
+
+        private void replaceValuesFrom(Collection<FsFile> files, ResMap<T> reloaded, ResBundle<?> resBundle) {
+            Map<ResName, Values<T>> updates = new HashMap<ResName, Values<T>>();
+            for (Map.Entry<ResName, Values<T>> entry : map.entrySet()) {
+                Values<T> kept = new Values<T>();
+                for (Value<T> value : entry.getValue()) {
+                    if (value.xmlContext == null || !files.contains(value.xmlContext.getXmlFile())) kept.add(value);
+                }
+                if (kept.size() != entry.getValue().size()) updates.put(entry.getKey(), kept);
+            }
+
+            for (Map.Entry<ResName, Values<T>> entry : reloaded.map.entrySet()) {
+                ResName resName = resBundle.maybeOverride(entry.getKey());
+                Values<T> values = updates.get(resName);
+                if (values == null) {
+                    values = new Values<T>();
+                    Values<T> existing = map.get(resName);
+                    if (existing != null) values.addAll(existing);
+                    updates.put(resName, values);
+                }
+                values.addAll(entry.getValue());
+                Collections.sort(values);
+            }
+
+            for (Map.Entry<ResName, Values<T>> update : updates.entrySet()) {
+                if (update.getValue().isEmpty()) {
+                    map.remove(update.getKey());
+                } else {
+                    map.put(update.getKey(), update.getValue());
+                }
+            }
+            if (!updates.isEmpty()) generation++;
+        }
+
+        private void addLibrary(ResMap<T> library, String libraryPackageName, String packageName) {
             if (immutable) {
                 throw new IllegalStateException("immutable!");
             }
-
-            for (Map.Entry<ResName, Values<T>> entry : sourceMap.map.entrySet()) {
-                ResName resName = entry.getKey().withPackageName(packageName);
-                find(resName).addAll(entry.getValue());
+            if (this.packageName != null && !this.packageName.equals(packageName)) {
+                throw new IllegalArgumentException("libraries are already visible under " + this.packageName);
             }
+
+            this.packageName = packageName;
+            libraries.add(library);
+            libraryPackageNames.add(libraryPackageName);
         }
 
         public int size() {
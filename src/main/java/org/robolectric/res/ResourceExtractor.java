@@ -2,14 +2,15 @@ package org.robolectric.res;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 public class ResourceExtractor extends ResourceIndex {
     private static final ResourceRemapper RESOURCE_REMAPPER = new ResourceRemapper();
     private static final boolean REMAP_RESOURCES = false;
 
     private final Class<?> processedRFile;
-    private Integer maxUsedInt = null;
+    private int maxUsedInt = -1;
 
     public ResourceExtractor() {
         processedRFile = null;
@@ -21,8 +22,10 @@ public class ResourceExtractor extends ResourceIndex {
             androidRClass = classLoader.loadClass("android.R");
             Class<?> androidInternalRClass = classLoader.loadClass("com.android.internal.R");
 
-            process(androidRClass, "android", true);
-            process(androidInternalRClass, "android", false);
+            Map<Integer, ResName> resNamesById = new HashMap<Integer, ResName>();
+            process(androidRClass, "android", true, resNamesById);
+            process(androidInternalRClass, "android", false, resNamesById);
+            resourceIdToResName = ResourceIdTable.of(resNamesById);
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
@@ -33,10 +36,12 @@ public class ResourceExtractor extends ResourceIndex {
         if (REMAP_RESOURCES) RESOURCE_REMAPPER.remapRClass(resourcePath.rClass);
         processedRFile = resourcePath.rClass;
         String packageName = packageNameFor(resourcePath.rClass);
-        process(resourcePath.rClass, packageName, true);
+        Map<Integer, ResName> resNamesById = new HashMap<Integer, ResName>();
+        process(resourcePath.rClass, packageName, true, resNamesById);
+        resourceIdToResName = ResourceIdTable.of(resNamesById);
     }
 
-    private void process(Class<?> rClass, String packageName, boolean checkForCollisions) {
+    private void process(Class<?> rClass, String packageName, boolean checkForCollisions, Map<Integer, ResName> resNamesById) {
         for (Class innerClass : rClass.getClasses()) {
             for (Field field : innerClass.getDeclaredFields()) {
                 if (field.getType().equals(Integer.TYPE) && Modifier.isStatic(field.getModifiers())) {
@@ -54,9 +59,9 @@ public class ResourceExtractor extends ResourceIndex {
 
                         resourceNameToId.put(resName, value);
 
-                        if (checkForCollisions && resourceIdToResName.containsKey(value)) {
+                        if (checkForCollisions && resNamesById.containsKey(value)) {
                             String message =
-                                    value + " is already defined with name: " + resourceIdToResName.get(
+                                    value + " is already defined with name: " + resNamesById.get(
                                             value) + " can't also call it: " + resName;
                             if (REMAP_RESOURCES) {
                                 throw new RuntimeException(message);
@@ -65,7 +70,7 @@ public class ResourceExtractor extends ResourceIndex {
                             }
                         }
 
-                        resourceIdToResName.put(value, resName);
+                        resNamesById.put(value, resName);
                     }
                 }
             }
@@ -83,22 +88,29 @@ public class ResourceExtractor extends ResourceIndex {
     }
 
     @Override
-    public synchronized Integer getResourceId(ResName resName) {
+    public Integer getResourceId(ResName resName) {
         Integer id = resourceNameToId.get(resName);
         if (id == null && ("android".equals(resName.namespace) || "".equals(resName.namespace))) {
-            if (maxUsedInt == null) {
-                maxUsedInt = resourceIdToResName.isEmpty() ? 0 : Collections.max(resourceIdToResName.keySet());
-            }
-            id = ++maxUsedInt;
-            resourceNameToId.put(resName, id);
-            resourceIdToResName.put(id, resName);
-            System.out.println("INFO: no id mapping found for " + resName.getFullyQualifiedName() + "; assigning " + id);
+            id = assignResourceId(resName);
+        }
+        return id;
+    }
+
+    private synchronized Integer assignResourceId(ResName resName) {
+        Integer id = resourceNameToId.get(resName);
+        if (id != null) return id;
+
+        if (maxUsedInt == -1) {
+            maxUsedInt = resourceIdToResName.maxId();
         }
+        id = ++maxUsedInt;
+        addResource(resName, id);
+        System.out.println("INFO: no id mapping found for " + resName.getFullyQualifiedName() + "; assigning " + id);
         return id;
     }
 
     @Override
-    public synchronized ResName getResName(int resourceId) {
+    public ResName getResName(int resourceId) {
         return resourceIdToResName.get(resourceId);
     }
 
@@ -0,0 +1,124 @@
+package org.robolectric.res;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable map from resource id to {@link ResName}, kept as a sorted {@code int[]} of ids with a parallel array of
+ * names. Lookups are a binary search: they take no lock and allocate nothing, so any number of threads can share a
+ * table. Adding an id makes a new table.
+ */
+public final class ResourceIdTable {
+    public static final ResourceIdTable EMPTY = new ResourceIdTable(new int[0], new ResName[0]);
+
+    private final int[] ids;
+    private final ResName[] names;
+
+    private ResourceIdTable(int[] ids, ResName[] names) {
+        this.ids = ids;
+        this.names = names;
+    }
+
+    public static ResourceIdTable of(Map<Integer, ResName> resNamesById) {
+        int[] ids = new int[resNamesById.size()];
+        int i = 0;
+        for (Integer id : resNamesById.keySet()) {
+            ids[i++] = id;
+        }
+        Arrays.sort(ids);
+
+        ResName[] names = new ResName[ids.length];
+        for (i = 0; i < ids.length; i++) {
+            names[i] = resNamesById.get(ids[i]);
+        }
+        return new ResourceIdTable(ids, names);
+    }
+
+    /**
+     * Combines tables whose ids don't overlap.
+     *
+     * @throws IllegalStateException if an id is in more than one table
+     */
+    public static ResourceIdTable merge(ResourceIdTable... tables) {
+        int size = 0;
+        for (ResourceIdTable table : tables) {
+            size += table.size();
+        }
+
+        int[] ids = new int[size];
+        ResName[] names = new ResName[size];
+        int[] positions = new int[tables.length];
+        for (int i = 0; i < size; i++) {
+            int next = -1;
+            for (int t = 0; t < tables.length; t++) {
+                if (positions[t] < tables[t].ids.length
+                        && (next == -1 || tables[t].ids[positions[t]] < tables[next].ids[positions[next]])) {
+                    next = t;
+                }
+            }
+            ids[i] = tables[next].ids[positions[next]];
+            names[i] = tables[next].names[positions[next]];
+            positions[next]++;
+
+            if (i > 0 && ids[i] == ids[i - 1]) {
+                throw new IllegalStateException("resource id 0x" + Integer.toHexString(ids[i]) + " is defined as both "
+                        + names[i - 1] + " and " + names[i]);
+            }
+        }
+        return new ResourceIdTable(ids, names);
+    }
+
+    /**
+     * @return the name of {@code resourceId}, or null if it isn't in the table
+     */
+    public ResName get(int resourceId) {
+        int i = Arrays.binarySearch(ids, resourceId);
+        return i < 0 ? null : names[i];
+    }
+
+    public boolean contains(int resourceId) {
+        return Arrays.binarySearch(ids, resourceId) >= 0;
+    }
+
+    /**
+     * @return a table with {@code resourceId} mapped to {@code resName} as well as everything in this one
+     */
+    public ResourceIdTable with(int resourceId, ResName resName) {
+        int i = Arrays.binarySearch(ids, resourceId);
+        if (i >= 0) {
+            ResName[] newNames = names.clone();
+            newNames[i] = resName;
+            return new ResourceIdTable(ids, newNames);
+        }
+
+        int insertAt = -(i + 1);
+        int[] newIds = new int[ids.length + 1];
+        ResName[] newNames = new ResName[ids.length + 1];
+        System.arraycopy(ids, 0, newIds, 0, insertAt);
+        System.arraycopy(names, 0, newNames, 0, insertAt);
+        newIds[insertAt] = resourceId;
+        newNames[insertAt] = resName;
+        System.arraycopy(ids, insertAt, newIds, insertAt + 1, ids.length - insertAt);
+        System.arraycopy(names, insertAt, newNames, insertAt + 1, names.length - insertAt);
+        return new ResourceIdTable(newIds, newNames);
+    }
+
+    /**
+     * @return the largest id in the table, or 0 if it's empty
+     */
+    public int maxId() {
+        return ids.length == 0 ? 0 : ids[ids.length - 1];
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    public ResName nameAt(int index) {
+        return names[index];
+    }
+}
@@ -1,11 +1,11 @@
 package org.robolectric.res;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class ResourceIndex {
-    protected final Map<ResName, Integer> resourceNameToId = new HashMap<ResName, Integer>();
-    protected final Map<Integer, ResName> resourceIdToResName = new HashMap<Integer, ResName>();
+    protected final Map<ResName, Integer> resourceNameToId = new ConcurrentHashMap<ResName, Integer>();
+    protected volatile ResourceIdTable resourceIdToResName = ResourceIdTable.EMPTY;
 
     public abstract Integer getResourceId(ResName resName);
 
@@ -15,4 +15,13 @@ public abstract class ResourceIndex {
     }
 
     public abstract ResName getResName(int resourceId);
+
+    /**
+     * Maps a name to an id after the index has been built. Rare, so the id table is copied rather than locked on
+     * every lookup.
+     */
+    protected synchronized void addResource(ResName resName, int resourceId) {
+        resourceNameToId.put(resName, resourceId);
+        resourceIdToResName = resourceIdToResName.with(resourceId, resName);
+    }
 }
@@ -0,0 +1,18 @@
+package org.robolectric.res;
+
+/**
+ * The kinds of resources a {@link ResourceLoader} loads together. Each kind is loaded the first time one of its
+ * resources is asked for, so a test that only reads strings never parses layouts.
+ */
+public enum ResourceKind {
+    /** Everything under {@code values}: booleans, colors, dimens, integers, plurals, strings, arrays and attrs. */
+    VALUES,
+    LAYOUT,
+    MENU,
+    DRAWABLE,
+    /** Preference screens under {@code xml}. */
+    PREFERENCE,
+    /** Other documents under {@code xml}. */
+    XML,
+    RAW
+}
@@ -12,16 +12,29 @@ public interface ResourceLoader {
 
     String getColorValue(ResName resName, String qualifiers);
 
+    /**
+     * @return the color as an ARGB int, or null if there's no such color
+     */
+    Integer getColorIntValue(ResName resName, String qualifiers);
+
     String getStringValue(ResName resName, String qualifiers);
 
     String getPluralStringValue(ResName resName, int quantity, String qualifiers);
 
     String getDimenValue(ResName resName, String qualifiers);
 
+    /**
+     * @return the dimension's number, whatever its unit, or null if there's no such dimension
+     */
+    Float getDimenFloatValue(ResName resName, String qualifiers);
+
     int getIntegerValue(ResName resName, String qualifiers);
 
     boolean getBooleanValue(ResName resName, String qualifiers);
 
+    /**
+     * @return a new DOM of the xml resource, which the caller may change, or null if there's no such resource
+     */
     Document getXml(ResName resName, String qualifiers);
 
     DrawableNode getDrawableNode(ResName resName, String qualifiers);
@@ -43,4 +56,9 @@ public interface ResourceLoader {
     boolean hasAttributeFor(Class<? extends View> viewClass, String namespace, String attribute);
 
     String convertValueToEnum(Class<? extends View> viewClass, String namespace, String attribute, String part);
+
+    /**
+     * @return the values of an enum or flag attribute as {@code viewClass} sees it, or null if it isn't one
+     */
+    AttrEnum getAttrEnum(Class<? extends View> viewClass, String namespace, String attribute);
 }
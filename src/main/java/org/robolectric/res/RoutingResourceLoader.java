@@ -32,6 +32,11 @@ public class RoutingResourceLoader implements ResourceLoader {
         return pickFor(resName).getColorValue(resName, qualifiers);
     }
 
+    @Override
+    public Integer getColorIntValue(ResName resName, String qualifiers) {
+        return pickFor(resName).getColorIntValue(resName, qualifiers);
+    }
+
     @Override
     public String getStringValue(ResName resName, String qualifiers) {
         return pickFor(resName).getStringValue(resName, qualifiers);
@@ -47,6 +52,11 @@ public class RoutingResourceLoader implements ResourceLoader {
         return pickFor(resName).getDimenValue(resName, qualifiers);
     }
 
+    @Override
+    public Float getDimenFloatValue(ResName resName, String qualifiers) {
+        return pickFor(resName).getDimenFloatValue(resName, qualifiers);
+    }
+
     @Override
     public int getIntegerValue(ResName resName, String qualifiers) {
         return pickFor(resName).getIntegerValue(resName, qualifiers);
@@ -112,6 +122,11 @@ public class RoutingResourceLoader implements ResourceLoader {
         return pickFor(namespace).convertValueToEnum(viewClass, namespace, attribute, part);
     }
 
+    @Override
+    public AttrEnum getAttrEnum(Class<? extends View> viewClass, String namespace, String attribute) {
+        return pickFor(namespace).getAttrEnum(viewClass, namespace, attribute);
+    }
+
     private ResourceLoader pickFor(int id) {
         ResName resName = resourceIndex.getResName(id);
         return pickFor(resName);
@@ -138,7 +153,7 @@ public class RoutingResourceLoader implements ResourceLoader {
             super(null);
         }
 
-        @Override void doInitialize() {
+        @Override void doInitialize(ResourceKind kind) {
         }
 
         @Override
@@ -6,7 +6,14 @@ import org.w3c.dom.Document;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 abstract class XResourceLoader implements ResourceLoader {
     final AttrResourceLoader attrResourceLoader = new AttrResourceLoader();
@@ -20,38 +27,95 @@ abstract class XResourceLoader implements ResourceLoader {
     final ResBundle<MenuNode> menuData = new ResBundle<MenuNode>();
     final ResBundle<DrawableNode> drawableData = new ResBundle<DrawableNode>();
     final ResBundle<PreferenceNode> preferenceData = new ResBundle<PreferenceNode>();
-    final ResBundle<Document> xmlDocuments = new ResBundle<Document>();
+    final ResBundle<XmlBlock> xmlBlocks = new ResBundle<XmlBlock>();
     final ResBundle<FsFile> rawResources = new ResBundle<FsFile>();
     private final ResourceIndex resourceIndex;
-    boolean isInitialized = false;
+    private final Map<ResourceKind, Load> loads = new EnumMap<ResourceKind, Load>(ResourceKind.class);
+
+    private final BasicResolver colorResolver = new BasicResolver(colorData);
+    private final ColorResolver colorIntResolver = new ColorResolver(colorData);
+    private final BasicResolver dimenResolver = new BasicResolver(dimenData);
+    private final DimenResolver dimenFloatResolver = new DimenResolver(dimenData);
+    private final BasicResolver stringResolver = new BasicResolver(stringData);
+    private final IntegerResolver integerResolver = new IntegerResolver(integerData);
+    private final BooleanResolver booleanResolver = new BooleanResolver(booleanData);
+
+    private final ResolvedValues<String> resolvedColors = new ResolvedValues<String>(colorResolver);
+    private final ResolvedValues<Integer> resolvedColorInts = new ResolvedValues<Integer>(colorIntResolver);
+    private final ResolvedValues<String> resolvedDimens = new ResolvedValues<String>(dimenResolver);
+    private final ResolvedValues<Float> resolvedDimenFloats = new ResolvedValues<Float>(dimenFloatResolver);
+    private final ResolvedValues<String> resolvedStrings = new ResolvedValues<String>(stringResolver);
+    private final ResolvedValues<Integer> resolvedIntegers = new ResolvedValues<Integer>(integerResolver);
+    private final ResolvedValues<Boolean> resolvedBooleans = new ResolvedValues<Boolean>(booleanResolver);
 
     protected XResourceLoader(ResourceIndex resourceIndex) {
         this.resourceIndex = resourceIndex;
+        for (ResourceKind kind : ResourceKind.values()) {
+            loads.put(kind, new Load());
+        }
     }
 
-    abstract void doInitialize();
+    /**
+     * Fills in the bundles for one kind of resource. Called at most once per kind.
+     */
+    abstract void doInitialize(ResourceKind kind);
+
+    void initialize(ResourceKind kind) {
+        Load load = loads.get(kind);
+        load.lookups.incrementAndGet();
+        if (load.loaded) return;
+
+        synchronized (load) {
+            if (load.loaded) return;
+            doInitialize(kind);
+            makeImmutable(kind);
+            load.loaded = true;
+        }
+    }
 
-    void initialize() {
-        if (isInitialized) return;
-        doInitialize();
-        isInitialized = true;
+    protected void makeImmutable(ResourceKind kind) {
+        switch (kind) {
+            case VALUES:
+                booleanData.makeImmutable();
+                colorData.makeImmutable();
+                dimenData.makeImmutable();
+                integerData.makeImmutable();
+                pluralsData.makeImmutable();
+                stringData.makeImmutable();
+                break;
+            case LAYOUT:
+                layoutData.makeImmutable();
+                break;
+            case MENU:
+                menuData.makeImmutable();
+                break;
+            case DRAWABLE:
+                drawableData.makeImmutable();
+                break;
+            case PREFERENCE:
+                preferenceData.makeImmutable();
+                break;
+            case XML:
+                xmlBlocks.makeImmutable();
+                break;
+            case RAW:
+                rawResources.makeImmutable();
+                break;
+        }
+    }
 
-        makeImmutable();
+    /**
+     * @return true once resources of this kind have been loaded
+     */
+    public boolean isLoaded(ResourceKind kind) {
+        return loads.get(kind).loaded;
     }
 
-    protected void makeImmutable() {
-        booleanData.makeImmutable();
-        colorData.makeImmutable();
-        dimenData.makeImmutable();
-        integerData.makeImmutable();
-        pluralsData.makeImmutable();
-        stringData.makeImmutable();
-        layoutData.makeImmutable();
-        menuData.makeImmutable();
-        drawableData.makeImmutable();
-        preferenceData.makeImmutable();
-        xmlDocuments.makeImmutable();
-        rawResources.makeImmutable();
+    /**
+     * @return how many times resources of this kind have been asked for, to see which kinds a suite actually uses
+     */
+    public long getLookupCount(ResourceKind kind) {
+        return loads.get(kind).lookups.get();
     }
 
     @Override
@@ -61,59 +125,73 @@ abstract class XResourceLoader implements ResourceLoader {
 
     @Override
     public String getColorValue(ResName resName, String qualifiers) {
-        initialize();
-        return new BasicResolver(colorData).resolve(resName, qualifiers);
+        initialize(ResourceKind.VALUES);
+        return resolvedColors.get(resName, qualifiers);
+    }
+
+    @Override
+    public Integer getColorIntValue(ResName resName, String qualifiers) {
+        initialize(ResourceKind.VALUES);
+        return resolvedColorInts.get(resName, qualifiers);
     }
 
     @Override
     public String getStringValue(ResName resName, String qualifiers) {
-        initialize();
-        return new BasicResolver(stringData).resolve(resName, qualifiers);
+        initialize(ResourceKind.VALUES);
+        return resolvedStrings.get(resName, qualifiers);
     }
 
     @Override
     public String getPluralStringValue(ResName resName, int quantity, String qualifiers) {
-        initialize();
+        initialize(ResourceKind.VALUES);
         PluralResourceLoader.PluralRules pluralRules = pluralsData.get(resName, qualifiers);
         if (pluralRules == null) return null;
 
         PluralResourceLoader.Plural plural = pluralRules.find(quantity);
         if (plural == null) return null;
-        return new BasicResolver(stringData).resolveValue(qualifiers, plural.string, resName.namespace);
+        return stringResolver.resolveValue(qualifiers, plural.string, resName.namespace);
     }
 
     @Override
     public String getDimenValue(ResName resName, String qualifiers) {
-        initialize();
-        return new BasicResolver(dimenData).resolve(resName, qualifiers);
+        initialize(ResourceKind.VALUES);
+        return resolvedDimens.get(resName, qualifiers);
+    }
+
+    @Override
+    public Float getDimenFloatValue(ResName resName, String qualifiers) {
+        initialize(ResourceKind.VALUES);
+        return resolvedDimenFloats.get(resName, qualifiers);
     }
 
     @Override
     public int getIntegerValue(ResName resName, String qualifiers) {
-        initialize();
-        return new IntegerResolver(integerData).resolve(resName, qualifiers);
+        initialize(ResourceKind.VALUES);
+        return resolvedIntegers.get(resName, qualifiers);
     }
 
     @Override
     public boolean getBooleanValue(ResName resName, String qualifiers) {
-        initialize();
-        return new BooleanResolver(booleanData).resolve(resName, qualifiers);
+        initialize(ResourceKind.VALUES);
+        return resolvedBooleans.get(resName, qualifiers);
     }
 
     @Override
     public Document getXml(ResName resName, String qualifiers) {
-        initialize();
-        return xmlDocuments.get(resName, qualifiers);
+        initialize(ResourceKind.XML);
+        XmlBlock xmlBlock = xmlBlocks.get(resName, qualifiers);
+        return xmlBlock == null ? null : xmlBlock.getDocument();
     }
 
     @Override
     public DrawableNode getDrawableNode(ResName resName, String qualifiers) {
+        initialize(ResourceKind.DRAWABLE);
         return drawableData.get(resName, qualifiers);
     }
 
     @Override
     public InputStream getRawValue(ResName resName) {
-        initialize();
+        initialize(ResourceKind.RAW);
 
         FsFile file = rawResources.get(resName, "");
         try {
@@ -125,21 +203,21 @@ abstract class XResourceLoader implements ResourceLoader {
 
     @Override
     public String[] getStringArrayValue(ResName resName, String qualifiers) {
-        initialize();
+        initialize(ResourceKind.VALUES);
 
         if (resName == null) return null;
         resName = new ResName(resName.namespace, "string-array", resName.name); // ugh
-        List<String> strings = new BasicResolver(stringData).resolveArray(resName, qualifiers);
+        List<String> strings = stringResolver.resolveArray(resName, qualifiers);
         return strings == null ? null : strings.toArray(new String[strings.size()]);
     }
 
     @Override
     public int[] getIntegerArrayValue(ResName resName, String qualifiers) {
-        initialize();
+        initialize(ResourceKind.VALUES);
 
         if (resName == null) return null;
         resName = new ResName(resName.namespace, "integer-array", resName.name); // ugh
-        List<Integer> ints = new IntegerResolver(integerData).resolveArray(resName, qualifiers);
+        List<Integer> ints = integerResolver.resolveArray(resName, qualifiers);
         return ints == null ? null : toIntArray(ints);
     }
 
@@ -154,21 +232,21 @@ abstract class XResourceLoader implements ResourceLoader {
 
     @Override
     public PreferenceNode getPreferenceNode(ResName resName, String qualifiers) {
-        initialize();
+        initialize(ResourceKind.PREFERENCE);
 
         return preferenceData.get(resName, qualifiers);
     }
 
     @Override
     public ViewNode getLayoutViewNode(ResName resName, String qualifiers) {
-        initialize();
+        initialize(ResourceKind.LAYOUT);
         if (resName == null) return null;
         return layoutData.get(resName, qualifiers);
     }
 
     @Override
     public MenuNode getMenuNode(ResName resName, String qualifiers) {
-        initialize();
+        initialize(ResourceKind.MENU);
         if (resName == null) return null;
         return menuData.get(resName, qualifiers);
     }
@@ -180,16 +258,27 @@ abstract class XResourceLoader implements ResourceLoader {
 
     @Override
     public boolean hasAttributeFor(Class<? extends View> viewClass, String namespace, String attribute) {
-        initialize();
+        initialize(ResourceKind.VALUES);
         return attrResourceLoader.hasAttributeFor(viewClass, namespace, attribute);
     }
 
     @Override
     public String convertValueToEnum(Class<? extends View> viewClass, String namespace, String attribute, String part) {
-        initialize();
+        initialize(ResourceKind.VALUES);
         return attrResourceLoader.convertValueToEnum(viewClass, namespace, attribute, part);
     }
 
+    @Override
+    public AttrEnum getAttrEnum(Class<? extends View> viewClass, String namespace, String attribute) {
+        initialize(ResourceKind.VALUES);
+        return attrResourceLoader.getAttrEnum(viewClass, namespace, attribute);
+    }
+
+    private static class Load {
+        final AtomicLong lookups = new AtomicLong();
+        volatile boolean loaded;
+    }
+
     abstract static class Resolver<T> {
         private final ResBundle<String> resBundle;
 
@@ -273,6 +362,90 @@ abstract class XResourceLoader implements ResourceLoader {
         }
     }
 
+    private static class ColorResolver extends Resolver<Integer> {
+        private static final Map<String, Integer> COLOR_NAMES = new HashMap<String, Integer>();
+
+        static {
+            COLOR_NAMES.put("black", 0xFF000000);
+            COLOR_NAMES.put("darkgray", 0xFF444444);
+            COLOR_NAMES.put("gray", 0xFF888888);
+            COLOR_NAMES.put("lightgray", 0xFFCCCCCC);
+            COLOR_NAMES.put("white", 0xFFFFFFFF);
+            COLOR_NAMES.put("red", 0xFFFF0000);
+            COLOR_NAMES.put("green", 0xFF00FF00);
+            COLOR_NAMES.put("blue", 0xFF0000FF);
+            COLOR_NAMES.put("yellow", 0xFFFFFF00);
+            COLOR_NAMES.put("cyan", 0xFF00FFFF);
+            COLOR_NAMES.put("magenta", 0xFFFF00FF);
+            COLOR_NAMES.put("aqua", 0xFF00FFFF);
+            COLOR_NAMES.put("fuchsia", 0xFFFF00FF);
+            COLOR_NAMES.put("lime", 0xFF00FF00);
+            COLOR_NAMES.put("maroon", 0xFF800000);
+            COLOR_NAMES.put("navy", 0xFF000080);
+            COLOR_NAMES.put("olive", 0xFF808000);
+            COLOR_NAMES.put("purple", 0xFF800080);
+            COLOR_NAMES.put("silver", 0xFFC0C0C0);
+            COLOR_NAMES.put("teal", 0xFF008080);
+        }
+
+        private ColorResolver(ResBundle<String> resBundle) {
+            super(resBundle);
+        }
+
+        /**
+         * Parses colors as {@code Color.parseColor} does, also accepting the {@code #RGB} and {@code #ARGB} forms
+         * allowed in resource files.
+         */
+        @Override
+        Integer convert(String rawValue) {
+            if (rawValue.length() == 0) return null;
+
+            if (rawValue.charAt(0) == '#') {
+                String hex = rawValue.substring(1);
+                if (hex.length() == 3 || hex.length() == 4) {
+                    StringBuilder buf = new StringBuilder();
+                    for (int i = 0; i < hex.length(); i++) {
+                        buf.append(hex.charAt(i)).append(hex.charAt(i));
+                    }
+                    hex = buf.toString();
+                }
+                if (hex.length() == 6) {
+                    return (int) (Long.parseLong(hex, 16) | 0xFF000000L);
+                } else if (hex.length() == 8) {
+                    return (int) Long.parseLong(hex, 16);
+                }
+            } else {
+                Integer color = COLOR_NAMES.get(rawValue.toLowerCase(Locale.ENGLISH));
+                if (color != null) return color;
+            }
+            throw new IllegalArgumentException("Unknown color");
+        }
+    }
+
+    private static class DimenResolver extends Resolver<Float> {
+        private static final String[] UNITS = {"dp", "dip", "pt", "px", "sp"};
+
+        private DimenResolver(ResBundle<String> resBundle) {
+            super(resBundle);
+        }
+
+        /**
+         * Drops the unit, so {@code 12dp} and {@code 12px} are both 12.
+         */
+        @Override
+        Float convert(String rawValue) {
+            int end = rawValue.length();
+            for (String unit : UNITS) {
+                int index = rawValue.indexOf(unit);
+                if (index >= 0 && end > index) {
+                    end = index;
+                }
+            }
+
+            return Float.parseFloat(rawValue.substring(0, end));
+        }
+    }
+
     static class BasicResolver extends Resolver<String> {
         BasicResolver(ResBundle<String> resBundle) {
             super(resBundle);
@@ -283,4 +456,38 @@ abstract class XResourceLoader implements ResourceLoader {
             return rawValue;
         }
     }
+
+    /**
+     * The values a resolver has found, each looked up and converted at most once per set of qualifiers.
+     */
+    private static class ResolvedValues<T> {
+        private static final Object NOT_FOUND = new Object();
+
+        private final Resolver<T> resolver;
+        private final ConcurrentMap<ResName, ConcurrentMap<String, Object>> values =
+                new ConcurrentHashMap<ResName, ConcurrentMap<String, Object>>();
+
+        ResolvedValues(Resolver<T> resolver) {
+            this.resolver = resolver;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(ResName resName, String qualifiers) {
+            if (resName == null || qualifiers == null) return resolver.resolve(resName, qualifiers);
+
+            ConcurrentMap<String, Object> byQualifiers = values.get(resName);
+            if (byQualifiers == null) {
+                values.putIfAbsent(resName, new ConcurrentHashMap<String, Object>());
+                byQualifiers = values.get(resName);
+            }
+
+            Object value = byQualifiers.get(qualifiers);
+            if (value == null) {
+                T resolved = resolver.resolve(resName, qualifiers);
+                value = resolved == null ? NOT_FOUND : resolved;
+                byQualifiers.putIfAbsent(qualifiers, value);
+            }
+            return value == NOT_FOUND ? null : (T) value;
+        }
+    }
 }
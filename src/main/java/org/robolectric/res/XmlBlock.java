@@ -0,0 +1,62 @@
+package org.robolectric.res;
+
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * An xml resource, kept as the bytes of its file rather than as a DOM, after the framework's
+ * {@code android.content.res.XmlBlock}. A {@link Document} is built only when someone asks for one, and isn't kept,
+ * so xml resources that tests never read cost no more than their size on disk.
+ */
+public class XmlBlock {
+    private static final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<DocumentBuilder>() {
+        @Override protected DocumentBuilder initialValue() {
+            try {
+                return XmlLoader.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    };
+
+    private final FsFile file;
+    private final byte[] bytes;
+
+    public XmlBlock(FsFile file, byte[] bytes) {
+        this.file = file;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return a new DOM of the resource; callers own it and may change it
+     */
+    public Document getDocument() {
+        DocumentBuilder documentBuilder = documentBuilders.get();
+        try {
+            return documentBuilder.parse(new ByteArrayInputStream(bytes));
+        } catch (SAXException e) {
+            throw new RuntimeException("couldn't parse " + file, e);
+        } catch (IOException e) {
+            throw new RuntimeException("couldn't parse " + file, e);
+        } finally {
+            documentBuilder.reset();
+        }
+    }
+
+    public FsFile getFile() {
+        return file;
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+
+    @Override public String toString() {
+        return "XmlBlock{" + file + '}';
+    }
+}
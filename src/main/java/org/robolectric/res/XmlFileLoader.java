@@ -2,7 +2,6 @@ package org.robolectric.res;
 
 import android.content.res.Resources;
 import android.content.res.XmlResourceParser;
-import org.w3c.dom.Document;
 
 /**
  * Loader for xml property files.
@@ -10,20 +9,22 @@ import org.w3c.dom.Document;
  * <p>Given a resource file a concrete implementation of {@link XmlResourceParser}
  * is returned. The returned implementation is based on the current Android
  * implementation. Please see the android source code for further details.
+ * <p/>
+ * <p>Files are kept as {@link XmlBlock}s and only parsed into a DOM when a parser is asked for.
  *
  * @author msama (michele@swiftkey.net)
  * @see https://github.com/android/platform_frameworks_base/blob/master/core/java/android/content/res/XmlBlock.java
  * @see Resources#getXml(int)
  */
 public class XmlFileLoader extends XmlLoader {
-    private final ResBundle<Document> resBundle;
+    private final ResBundle<XmlBlock> resBundle;
 
-    public XmlFileLoader(ResBundle<Document> resBundle) {
+    public XmlFileLoader(ResBundle<XmlBlock> resBundle) {
         this.resBundle = resBundle;
     }
 
     @Override
     protected void processResourceXml(FsFile xmlFile, XpathResourceXmlLoader.XmlNode xmlNode, XmlContext xmlContext) throws Exception {
-        resBundle.put("xml", xmlFile.getName().replace(".xml", ""), parse(xmlFile), xmlContext);
+        resBundle.put("xml", xmlFile.getName().replace(".xml", ""), new XmlBlock(xmlFile, xmlFile.getBytes()), xmlContext);
     }
 }
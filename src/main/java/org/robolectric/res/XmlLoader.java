@@ -23,11 +23,18 @@ public abstract class XmlLoader {
 
     private DocumentBuilder documentBuilder;
 
+    /**
+     * @return a builder for the DOMs of resource files; {@link XmlBlock} builds its documents with these too
+     */
+    static DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        return documentBuilderFactory.newDocumentBuilder();
+    }
+
     synchronized protected Document parse(FsFile xmlFile) {
         InputStream inputStream = null;
         try {
             if (documentBuilder == null) {
-                documentBuilder = documentBuilderFactory.newDocumentBuilder();
+                documentBuilder = newDocumentBuilder();
             }
             inputStream = xmlFile.getInputStream();
             return documentBuilder.parse(inputStream);
@@ -63,6 +70,10 @@ public abstract class XmlLoader {
             this.xmlFile = xmlFile;
         }
 
+        public FsFile getXmlFile() {
+            return xmlFile;
+        }
+
         public String getQualifiers() {
             String parentDir = xmlFile.getParent().getName();
             Matcher matcher = DIR_QUALIFIER_PATTERN.matcher(parentDir);
@@ -8,6 +8,10 @@ import com.ximpleware.XPathParseException;
 import org.jetbrains.annotations.NotNull;
 
 import javax.xml.xpath.XPathExpressionException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public abstract class XpathResourceXmlLoader extends XmlLoader {
     private String expression;
@@ -85,6 +89,53 @@ public abstract class XpathResourceXmlLoader extends XmlLoader {
             }
         }
 
+        /**
+         * @return the name of this element as written, including any prefix
+         */
+        public String getName() {
+            try {
+                return vtdNav.toRawString(vtdNav.getCurrentIndex());
+            } catch (NavException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * @return this element's attributes by name as written, in document order, without namespace declarations
+         */
+        public Map<String, String> getAttributes() {
+            Map<String, String> attributes = new LinkedHashMap<String, String>();
+            try {
+                int tokenCount = vtdNav.getTokenCount();
+                for (int i = vtdNav.getCurrentIndex() + 1; i < tokenCount; i += 2) {
+                    int tokenType = vtdNav.getTokenType(i);
+                    if (tokenType == VTDNav.TOKEN_ATTR_NAME) {
+                        attributes.put(vtdNav.toRawString(i), vtdNav.toString(i + 1));
+                    } else if (tokenType != VTDNav.TOKEN_ATTR_NS) {
+                        break;
+                    }
+                }
+            } catch (NavException e) {
+                throw new RuntimeException(e);
+            }
+            return attributes;
+        }
+
+        public List<XmlNode> getChildElements() {
+            List<XmlNode> children = new ArrayList<XmlNode>();
+            VTDNav childVtdNav = vtdNav.cloneNav();
+            try {
+                if (childVtdNav.toElement(VTDNav.FIRST_CHILD)) {
+                    do {
+                        children.add(new XmlNode(childVtdNav.cloneNav()));
+                    } while (childVtdNav.toElement(VTDNav.NEXT_SIBLING));
+                }
+            } catch (NavException e) {
+                throw new RuntimeException(e);
+            }
+            return children;
+        }
+
         public void pushLocation() {
             vtdNav.push();
         }
@@ -25,7 +25,9 @@ import org.w3c.dom.NodeList;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.robolectric.Robolectric.shadowOf;
@@ -50,47 +52,112 @@ public class DrawableBuilder {
         this.resourceIndex = resourceIndex;
     }
 
-    private Drawable getXmlDrawable(Resources resources, DrawableNode.Xml drawableNode, ResName resName) {
+    /**
+     * Works out what a drawable resource resolves to, once: which items a state list or layer list is made of, whether
+     * an image is a nine-patch, and so on. The result builds a new {@link Drawable} each time it's asked, so callers
+     * can cache it per resource and still hand out drawables that are safe to {@code mutate()}.
+     */
+    public DrawableState getDrawableState(@NotNull ResName resName, DrawableNode drawableNode) {
+        if (drawableNode instanceof DrawableNode.Xml) {
+            DrawableState xmlDrawableState = getXmlDrawableState((DrawableNode.Xml) drawableNode, resName);
+            if (xmlDrawableState != null) {
+                return xmlDrawableState;
+            }
+        }
+
+        if ("anim".equals(resName.type)) {
+            return new DrawableState() {
+                @Override public Drawable newDrawable(Resources resources) {
+                    return new AnimationDrawable();
+                }
+            };
+        }
+
+        if ("color".equals(resName.type)) {
+            return new DrawableState() {
+                @Override public Drawable newDrawable(Resources resources) {
+                    return new ColorDrawable();
+                }
+            };
+        }
+
+        if (isNinePatchDrawable(drawableNode)) {
+            return new DrawableState() {
+                @Override public Drawable newDrawable(Resources resources) {
+                    return new NinePatchDrawable(resources, null);
+                }
+            };
+        }
+
+        final Integer resourceId = resourceIndex.getResourceId(resName);
+        return new DrawableState() {
+            @Override public Drawable newDrawable(Resources resources) {
+                return new BitmapDrawable(BitmapFactory.decodeResource(resources, resourceId));
+            }
+        };
+    }
+
+    public Drawable getDrawable(@NotNull ResName resName, Resources resources, DrawableNode drawableNode) {
+        return getDrawableState(resName, drawableNode).newDrawable(resources);
+    }
+
+    private DrawableState getXmlDrawableState(DrawableNode.Xml drawableNode, ResName resName) {
         Document xmlDoc = drawableNode.document;
         NodeList nodes = xmlDoc.getElementsByTagName("selector");
         if (nodes != null && nodes.getLength() > 0) {
-            return buildStateListDrawable(drawableNode);
+            return buildStateListDrawableState(drawableNode);
         }
 
         nodes = xmlDoc.getElementsByTagName("layer-list");
         if (nodes != null && nodes.getLength() > 0) {
             NodeList itemNodes = findNodes("/layer-list/item", xmlDoc);
-            Drawable[] layers = new Drawable[itemNodes.getLength()];
+            final int[] layerIds = new int[itemNodes.getLength()];
             for (int i = 0; i < itemNodes.getLength(); i++) {
-                Node node = itemNodes.item(i);
-                layers[i] = getDrawableForNode(node, resName, resources);
+                layerIds[i] = getDrawableIdForNode(itemNodes.item(i), resName);
             }
-            LayerDrawable layerDrawable = new LayerDrawable(layers);
-            shadowOf(layerDrawable).setLoadedFromResourceId(resourceIndex.getResourceId(resName));
-            return layerDrawable;
+            final Integer resourceId = resourceIndex.getResourceId(resName);
+            return new DrawableState() {
+                @Override public Drawable newDrawable(Resources resources) {
+                    Drawable[] layers = new Drawable[layerIds.length];
+                    for (int i = 0; i < layerIds.length; i++) {
+                        layers[i] = resources.getDrawable(layerIds[i]);
+                    }
+                    LayerDrawable layerDrawable = new LayerDrawable(layers);
+                    shadowOf(layerDrawable).setLoadedFromResourceId(resourceId);
+                    return layerDrawable;
+                }
+            };
         }
 
         nodes = xmlDoc.getElementsByTagName("animation-list");
         if (nodes != null && nodes.getLength() > 0) {
-            AnimationDrawable animationDrawable = new AnimationDrawable();
-
             NodeList itemNodes = findNodes("/animation-list/item", xmlDoc);
+            final int[] frameIds = new int[itemNodes.getLength()];
+            final int[] durations = new int[itemNodes.getLength()];
             for (int i = 0; i < itemNodes.getLength(); i++) {
                 Node node = itemNodes.item(i);
-                Drawable frameDrawable = getDrawableForNode(node, resName, resources);
+                frameIds[i] = getDrawableIdForNode(node, resName);
                 String duration = node.getAttributes().getNamedItemNS(ResourceLoader.ANDROID_NS, "duration").getNodeValue();
-                animationDrawable.addFrame(frameDrawable, Integer.parseInt(duration));
+                durations[i] = Integer.parseInt(duration);
             }
-            return animationDrawable;
+            return new DrawableState() {
+                @Override public Drawable newDrawable(Resources resources) {
+                    AnimationDrawable animationDrawable = new AnimationDrawable();
+                    for (int i = 0; i < frameIds.length; i++) {
+                        animationDrawable.addFrame(resources.getDrawable(frameIds[i]), durations[i]);
+                    }
+                    return animationDrawable;
+                }
+            };
         }
 
         return null;
     }
 
-    private Drawable getDrawableForNode(Node node, ResName resName, Resources resources) {
+    private int getDrawableIdForNode(Node node, ResName resName) {
         String drawableName = node.getAttributes().getNamedItemNS(ResourceLoader.ANDROID_NS, "drawable").getNodeValue();
         ResName otherDrawableResName = resName.qualify(drawableName);
-        return resources.getDrawable(resourceIndex.getResourceId(otherDrawableResName));
+        return resourceIndex.getResourceId(otherDrawableResName);
     }
 
     private NodeList findNodes(String xpathExpression, Document xmlDoc) {
@@ -101,20 +168,28 @@ public class DrawableBuilder {
         }
     }
 
-    private StateListDrawable buildStateListDrawable(DrawableNode.Xml drawableNode) {
-        StateListDrawable drawable = new StateListDrawable();
-        ShadowStateListDrawable shDrawable = Robolectric.shadowOf(drawable);
+    private DrawableState buildStateListDrawableState(DrawableNode.Xml drawableNode) {
         NodeList items = drawableNode.document.getElementsByTagName("item");
+        final List<int[]> states = new ArrayList<int[]>();
         for (int i = 0; i < items.getLength(); i++) {
             Node node = items.item(i);
             Node drawableName = node.getAttributes().getNamedItemNS(ResourceLoader.ANDROID_NS, "drawable");
             if (drawableName != null) {
                 int resId = ResName.getResourceId(resourceIndex, drawableName.getNodeValue(), drawableNode.xmlContext.packageName);
                 int stateId = getStateId(node);
-                shDrawable.addState(stateId, resId);
+                states.add(new int[]{stateId, resId});
             }
         }
-        return drawable;
+        return new DrawableState() {
+            @Override public Drawable newDrawable(Resources resources) {
+                StateListDrawable drawable = new StateListDrawable();
+                ShadowStateListDrawable shDrawable = Robolectric.shadowOf(drawable);
+                for (int[] state : states) {
+                    shDrawable.addState(state[0], state[1]);
+                }
+                return drawable;
+            }
+        };
     }
 
     private int getStateId(Node node) {
@@ -130,31 +205,14 @@ public class DrawableBuilder {
         return R.attr.state_active;
     }
 
-    public Drawable getDrawable(@NotNull ResName resName, Resources resources, DrawableNode drawableNode) {
-        if (drawableNode instanceof DrawableNode.Xml) {
-            Drawable xmlDrawable = getXmlDrawable(resources, (DrawableNode.Xml) drawableNode, resName);
-            if (xmlDrawable != null) {
-                return xmlDrawable;
-            }
-        }
-
-
-        if ("anim".equals(resName.type)) {
-            return new AnimationDrawable();
-        }
-
-        if ("color".equals(resName.type)) {
-            return new ColorDrawable();
-        }
-
-        if (isNinePatchDrawable(drawableNode)) {
-            return new NinePatchDrawable(resources, null);
-        }
-
-        return new BitmapDrawable(BitmapFactory.decodeResource(resources, resourceIndex.getResourceId(resName)));
-    }
-
     public boolean isNinePatchDrawable(DrawableNode drawableNode) {
         return drawableNode instanceof DrawableNode.ImageFile && ((DrawableNode.ImageFile) drawableNode).isNinePatch;
     }
+
+    /**
+     * A drawable resource, resolved; see {@link #getDrawableState}.
+     */
+    public abstract static class DrawableState {
+        public abstract Drawable newDrawable(Resources resources);
+    }
 }
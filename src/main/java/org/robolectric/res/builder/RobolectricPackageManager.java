@@ -11,6 +11,7 @@ import android.graphics.drawable.Drawable;
 import android.util.Pair;
 import org.robolectric.AndroidManifest;
 import org.robolectric.tester.android.content.pm.StubPackageManager;
+import org.robolectric.util.IntentResolver;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -23,6 +24,7 @@ public class RobolectricPackageManager extends StubPackageManager {
 
     private Map<String, PackageInfo> packageList;
     private Map<Intent, List<ResolveInfo>> resolveInfoForIntent = new HashMap<Intent, List<ResolveInfo>>();
+    private IntentResolver<ResolveInfo> resolveInfoForIntentFilter = new IntentResolver<ResolveInfo>();
     private Map<ComponentName, ComponentState> componentList = new HashMap<ComponentName, ComponentState>();
     private Map<ComponentName, Drawable> drawableList = new HashMap<ComponentName, Drawable>();
     private Map<String, Boolean> systemFeatureList = new HashMap<String, Boolean>();
@@ -79,7 +81,16 @@ public class RobolectricPackageManager extends StubPackageManager {
     @Override
     public List<ResolveInfo> queryIntentActivities(Intent intent, int flags) {
         List<ResolveInfo> result = resolveInfoForIntent.get(intent);
-        return (result == null) ? new ArrayList<ResolveInfo>() : result;
+        if (resolveInfoForIntentFilter.size() == 0) {
+            return (result == null) ? new ArrayList<ResolveInfo>() : result;
+        }
+
+        List<ResolveInfo> matches = new ArrayList<ResolveInfo>();
+        if (result != null) matches.addAll(result);
+        for (ResolveInfo info : resolveInfoForIntentFilter.query(intent)) {
+            if (!matches.contains(info)) matches.add(info);
+        }
+        return matches;
     }
 
     @Override
@@ -102,6 +113,15 @@ public class RobolectricPackageManager extends StubPackageManager {
         infoList.add(info);
     }
 
+    /**
+     * Non-Android accessor.  Makes {@code queryIntentActivities} return {@code info} for every intent that
+     * {@code filter} matches, after any added for that exact intent with {@code addResolveInfoForIntent}.
+     */
+    public void addResolveInfoForIntentFilter(IntentFilter filter, ResolveInfo info) {
+        info.filter = filter;
+        resolveInfoForIntentFilter.add(filter, info);
+    }
+
     public void removeResolveInfosForIntent(Intent intent, String packageName) {
         List<ResolveInfo> infoList = findOrCreateInfoList(intent);
         for (Iterator<ResolveInfo> iterator = infoList.iterator(); iterator.hasNext(); ) {
@@ -0,0 +1,135 @@
+package org.robolectric.shadows;
+
+import android.database.ContentObserver;
+import android.net.Uri;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registry of {@link ContentObserver}s keyed by the segments of the URIs they observe (authority first, then each
+ * path segment), after the framework's {@code ContentService.ObserverNode}.
+ *
+ * A change to a URI is delivered to the observers of that URI and of every URI below it, and to the observers of
+ * URIs above it that asked to be notified for descendants.
+ */
+class ContentObserverTree {
+    private final Node root = new Node();
+
+    public synchronized void add(Uri uri, boolean notifyForDescendents, ContentObserver observer) {
+        Node node = root;
+        for (String segment : segmentsOf(uri)) {
+            Node child = node.children.get(segment);
+            if (child == null) {
+                child = new Node();
+                node.children.put(segment, child);
+            }
+            node = child;
+        }
+        node.entries.add(new Entry(observer, notifyForDescendents));
+    }
+
+    /**
+     * Removes every registration of {@code observer}.
+     *
+     * @return true if it was registered
+     */
+    public synchronized boolean remove(ContentObserver observer) {
+        return remove(root, observer);
+    }
+
+    private static boolean remove(Node node, ContentObserver observer) {
+        boolean removed = false;
+        for (int i = node.entries.size() - 1; i >= 0; i--) {
+            if (node.entries.get(i).observer == observer) {
+                node.entries.remove(i);
+                removed = true;
+            }
+        }
+        for (Iterator<Node> children = node.children.values().iterator(); children.hasNext(); ) {
+            Node child = children.next();
+            removed |= remove(child, observer);
+            if (child.isEmpty()) children.remove();
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        root.entries.clear();
+        root.children.clear();
+    }
+
+    /**
+     * @return the observers registered for exactly {@code uri}, in registration order
+     */
+    public synchronized List<ContentObserver> get(Uri uri) {
+        List<ContentObserver> observers = new ArrayList<ContentObserver>();
+        Node node = root;
+        for (String segment : segmentsOf(uri)) {
+            node = node.children.get(segment);
+            if (node == null) return observers;
+        }
+        for (Entry entry : node.entries) {
+            observers.add(entry.observer);
+        }
+        return observers;
+    }
+
+    /**
+     * @return the observers that should hear about a change to {@code uri}, each once
+     */
+    public synchronized List<ContentObserver> collect(Uri uri) {
+        Set<ContentObserver> observers = new LinkedHashSet<ContentObserver>();
+        Node node = root;
+        for (String segment : segmentsOf(uri)) {
+            for (Entry entry : node.entries) {
+                if (entry.notifyForDescendents) observers.add(entry.observer);
+            }
+            node = node.children.get(segment);
+            if (node == null) return new ArrayList<ContentObserver>(observers);
+        }
+        collectAll(node, observers);
+        return new ArrayList<ContentObserver>(observers);
+    }
+
+    private static void collectAll(Node node, Set<ContentObserver> observers) {
+        for (Entry entry : node.entries) {
+            observers.add(entry.observer);
+        }
+        for (Node child : node.children.values()) {
+            collectAll(child, observers);
+        }
+    }
+
+    private static List<String> segmentsOf(Uri uri) {
+        List<String> segments = new ArrayList<String>();
+        String authority = uri.getAuthority();
+        segments.add(authority == null ? "" : authority);
+        segments.addAll(uri.getPathSegments());
+        return segments;
+    }
+
+    private static class Node {
+        final Map<String, Node> children = new LinkedHashMap<String, Node>();
+        final List<Entry> entries = new ArrayList<Entry>();
+
+        boolean isEmpty() {
+            return entries.isEmpty() && children.isEmpty();
+        }
+    }
+
+    private static class Entry {
+        final ContentObserver observer;
+        final boolean notifyForDescendents;
+
+        Entry(ContentObserver observer, boolean notifyForDescendents) {
+            this.observer = observer;
+            this.notifyForDescendents = notifyForDescendents;
+        }
+    }
+}
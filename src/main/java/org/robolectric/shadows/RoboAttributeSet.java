@@ -2,6 +2,7 @@ package org.robolectric.shadows;
 
 import android.util.AttributeSet;
 import android.view.View;
+import org.robolectric.res.AttrEnum;
 import org.robolectric.res.Attribute;
 import org.robolectric.res.ResName;
 import org.robolectric.res.ResourceIndex;
@@ -54,8 +55,9 @@ public class RoboAttributeSet implements AttributeSet {
         if (attr == null) return defaultValue;
         String value = attr.value;
 
-        if (isEnum(namespace, attribute)) {
-            return getEnumValue(namespace, attribute, value);
+        AttrEnum attrEnum = resourceLoader.getAttrEnum(viewClass, namespace, attribute);
+        if (attrEnum != null) {
+            return attrEnum.parse(value);
         }
 
         return extractInt(value, defaultValue);
@@ -73,15 +75,15 @@ public class RoboAttributeSet implements AttributeSet {
     }
 
     public boolean isEnum(String namespace, String attribute) {
-        return resourceLoader.hasAttributeFor(viewClass, namespace, attribute);
+        return resourceLoader.getAttrEnum(viewClass, namespace, attribute) != null;
     }
 
     public int getEnumValue(String namespace, String attribute, String value) {
-        int intValue = 0;
-        for (String part : value.split("\\|")) {
-            intValue |= extractInt(resourceLoader.convertValueToEnum(viewClass, namespace, attribute, part), 0);
+        AttrEnum attrEnum = resourceLoader.getAttrEnum(viewClass, namespace, attribute);
+        if (attrEnum == null) {
+            throw new RuntimeException(namespace + ":" + attribute + " isn't an enum or flag attribute of " + viewClass);
         }
-        return intValue;
+        return attrEnum.parse(value);
     }
 
     @Override
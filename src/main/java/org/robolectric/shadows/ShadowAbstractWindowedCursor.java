@@ -3,8 +3,8 @@ package org.robolectric.shadows;
 import android.database.AbstractWindowedCursor;
 import org.robolectric.internal.Implementation;
 import org.robolectric.internal.Implements;
+import org.robolectric.util.ColumnarCursorWindow;
 
-import java.sql.Clob;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -17,6 +17,11 @@ public class ShadowAbstractWindowedCursor extends ShadowAbstractCursor {
 
     private ResultSet resultSet;
 
+    /**
+     * The cached rows; filled in by subclasses.
+     */
+    protected ColumnarCursorWindow window;
+
 
     /**
      * Stores the column names so they are retrievable after the resultSet has closed
@@ -52,63 +57,43 @@ public class ShadowAbstractWindowedCursor extends ShadowAbstractCursor {
     @Implementation
     public byte[] getBlob(int columnIndex) {
         checkPosition();
-        return (byte[]) this.currentRow.get(getColumnNames()[columnIndex]);
+        return window.getBlob(currentRowNumber, columnIndex);
     }
 
     @Implementation
     public String getString(int columnIndex) {
         checkPosition();
-        Object value = this.currentRow.get(getColumnNames()[columnIndex]);
-        if (value instanceof Clob) {
-            try {
-                return ((Clob) value).getSubString(1, (int)((Clob) value).length());
-            } catch (SQLException x) {
-                throw new RuntimeException(x);
-            }
-        } else {
-            return (String)value;
-        }
+        return window.getString(currentRowNumber, columnIndex);
     }
 
     @Implementation
     public short getShort(int columnIndex) {
         checkPosition();
-        Object o =this.currentRow.get(getColumnNames()[columnIndex]);
-        if (o==null) return 0;
-        return new Short(o.toString());
+        return window.getShort(currentRowNumber, columnIndex);
     }
 
     @Implementation
     public int getInt(int columnIndex) {
         checkPosition();
-        Object o =this.currentRow.get(getColumnNames()[columnIndex]);
-        if (o==null) return 0;
-        return new Integer(o.toString());
+        return window.getInt(currentRowNumber, columnIndex);
     }
 
     @Implementation
     public long getLong(int columnIndex) {
         checkPosition();
-        Object o =this.currentRow.get(getColumnNames()[columnIndex]);
-        if (o==null) return 0;
-        return new Long(o.toString());
+        return window.getLong(currentRowNumber, columnIndex);
     }
 
     @Implementation
     public float getFloat(int columnIndex) {
         checkPosition();
-        Object o =this.currentRow.get(getColumnNames()[columnIndex]);
-        if (o==null) return 0;
-        return new Float(o.toString());
-
+        return window.getFloat(currentRowNumber, columnIndex);
     }
 
     @Implementation
     public double getDouble(int columnIndex) {
         checkPosition();
-        Object o =this.currentRow.get(getColumnNames()[columnIndex]);
-        if (o==null) return 0;
-        return new Double(o.toString());
+        return window.getDouble(currentRowNumber, columnIndex);
     }
 
     @Implementation
@@ -117,8 +102,7 @@ public class ShadowAbstractWindowedCursor extends ShadowAbstractCursor {
 
     @Implementation
     public boolean isNull(int columnIndex) {
-        Object o = this.currentRow.get(getColumnNames()[columnIndex]);
-        return o == null;
+        return window.isNull(currentRowNumber, columnIndex);
     }
 
     @Implementation
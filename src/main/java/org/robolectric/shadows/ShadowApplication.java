@@ -1,5 +1,6 @@
 package org.robolectric.shadows;
 
+import android.app.Activity;
 import android.app.Application;
 import android.app.SearchManager;
 import android.appwidget.AppWidgetManager;
@@ -13,6 +14,7 @@ import android.content.ServiceConnection;
 import android.content.res.AssetManager;
 import android.content.res.Configuration;
 import android.content.res.Resources;
+import android.os.Bundle;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
@@ -28,9 +30,12 @@ import org.robolectric.internal.RealObject;
 import org.robolectric.res.ResourceLoader;
 import org.robolectric.res.builder.RobolectricPackageManager;
 import org.robolectric.tester.org.apache.http.FakeHttpLayer;
+import org.robolectric.util.IntentResolver;
 import org.robolectric.util.Scheduler;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -87,6 +92,7 @@ public class ShadowApplication extends ShadowContextWrapper {
     private List<Intent> broadcastIntents = new ArrayList<Intent>();
     private List<ServiceConnection> unboundServiceConnections = new ArrayList<ServiceConnection>();
     private List<Wrapper> registeredReceivers = new ArrayList<Wrapper>();
+    private IntentResolver<Wrapper> receiverResolver = new IntentResolver<Wrapper>();
     private Map<String, Intent> stickyIntents = new HashMap<String, Intent>();
     private FakeHttpLayer fakeHttpLayer = new FakeHttpLayer();
     private Looper mainLooper = ShadowLooper.myLooper();
@@ -380,22 +386,150 @@ public class ShadowApplication extends ShadowContextWrapper {
     }
 
     /**
-     * Broadcasts the {@code Intent} by iterating through the registered receivers, invoking their filters, and calling
-     * {@code onRecieve(Application, Intent)} as appropriate. Does not enqueue the {@code Intent} for later inspection.
+     * Broadcasts the {@code Intent} by looking up the registered receivers whose filters match it, and posting a call
+     * to {@code onRecieve(Application, Intent)} for each to the main looper. Unless the main looper is paused, they
+     * run before this returns.
      *
      * @param intent the {@code Intent} to broadcast
-     *               todo: enqueue the Intent for later inspection
      */
     @Override
     @Implementation
-    public void sendBroadcast(Intent intent) {
+    public void sendBroadcast(final Intent intent) {
         broadcastIntents.add(intent);
-		
-        List<Wrapper> copy = new ArrayList<Wrapper>();
-        copy.addAll(registeredReceivers);
-        for (Wrapper wrapper : copy) {
-            if (wrapper.intentFilter.matchAction(intent.getAction())) {
-                wrapper.broadcastReceiver.onReceive(realApplication, intent);
+
+        for (final Wrapper wrapper : receiverResolver.query(intent)) {
+            postToMainLooper(new Runnable() {
+                @Override
+                public void run() {
+                    if (wrapper.registered) {
+                        deliverBroadcast(wrapper.broadcastReceiver, intent,
+                                ShadowBroadcastReceiver.newPendingResult(false, 0, null, null, null));
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    @Implementation
+    public void sendOrderedBroadcast(Intent intent, String receiverPermission) {
+        sendOrderedBroadcast(intent, receiverPermission, null, null, Activity.RESULT_OK, null, null);
+    }
+
+    /**
+     * Delivers the {@code Intent} to the registered receivers whose filters match it one at a time, highest priority
+     * first, each on its own pass through the main looper. Each receiver sees the result left by the one before; a
+     * receiver that calls {@code goAsync} holds up the rest until it calls {@code finish}, and one that aborts the
+     * broadcast stops it. {@code resultReceiver}, if given, gets the final result through {@code scheduler}, or the
+     * main looper if that's null.
+     */
+    @Override
+    @Implementation
+    public void sendOrderedBroadcast(Intent intent, String receiverPermission, BroadcastReceiver resultReceiver,
+                                     Handler scheduler, int initialCode, String initialData, Bundle initialExtras) {
+        broadcastIntents.add(intent);
+
+        List<Wrapper> receivers = receiverResolver.query(intent);
+        Collections.sort(receivers, BY_DESCENDING_PRIORITY);
+        new OrderedBroadcast(intent, receivers, resultReceiver, scheduler, initialCode, initialData, initialExtras)
+                .scheduleNext();
+    }
+
+    private void postToMainLooper(Runnable runnable) {
+        shadowOf(mainLooper).getScheduler().post(runnable);
+    }
+
+    private void deliverBroadcast(BroadcastReceiver receiver, Intent intent, BroadcastReceiver.PendingResult pendingResult) {
+        ShadowBroadcastReceiver shadowReceiver = shadowOf(receiver);
+        shadowReceiver.setPendingResult(pendingResult);
+        receiver.onReceive(realApplication, intent);
+
+        // unless the receiver called goAsync(), the broadcast is done when onReceive() returns
+        BroadcastReceiver.PendingResult remaining = shadowReceiver.getPendingResult();
+        shadowReceiver.setPendingResult(null);
+        if (remaining != null) {
+            remaining.finish();
+        }
+    }
+
+    private static final Comparator<Wrapper> BY_DESCENDING_PRIORITY = new Comparator<Wrapper>() {
+        @Override
+        public int compare(Wrapper a, Wrapper b) {
+            int aPriority = a.intentFilter.getPriority();
+            int bPriority = b.intentFilter.getPriority();
+            return aPriority > bPriority ? -1 : (aPriority == bPriority ? 0 : 1);
+        }
+    };
+
+    private class OrderedBroadcast {
+        private final Intent intent;
+        private final Iterator<Wrapper> receivers;
+        private final BroadcastReceiver resultReceiver;
+        private final Handler resultHandler;
+        private int resultCode;
+        private String resultData;
+        private Bundle resultExtras;
+        private boolean aborted;
+        private BroadcastReceiver.PendingResult currentResult;
+
+        OrderedBroadcast(Intent intent, List<Wrapper> receivers, BroadcastReceiver resultReceiver, Handler resultHandler,
+                         int resultCode, String resultData, Bundle resultExtras) {
+            this.intent = intent;
+            this.receivers = receivers.iterator();
+            this.resultReceiver = resultReceiver;
+            this.resultHandler = resultHandler;
+            this.resultCode = resultCode;
+            this.resultData = resultData;
+            this.resultExtras = resultExtras;
+        }
+
+        void scheduleNext() {
+            postToMainLooper(new Runnable() {
+                @Override
+                public void run() {
+                    deliverNext();
+                }
+            });
+        }
+
+        private void deliverNext() {
+            Wrapper next = null;
+            while (!aborted && next == null && receivers.hasNext()) {
+                Wrapper candidate = receivers.next();
+                if (candidate.registered) next = candidate;
+            }
+            if (next == null) {
+                deliverFinalResult();
+                return;
+            }
+
+            currentResult = ShadowBroadcastReceiver.newPendingResult(true, resultCode, resultData, resultExtras, new Runnable() {
+                @Override
+                public void run() {
+                    resultCode = currentResult.getResultCode();
+                    resultData = currentResult.getResultData();
+                    resultExtras = currentResult.getResultExtras(false);
+                    aborted = currentResult.getAbortBroadcast();
+                    scheduleNext();
+                }
+            });
+            deliverBroadcast(next.broadcastReceiver, intent, currentResult);
+        }
+
+        private void deliverFinalResult() {
+            if (resultReceiver == null) return;
+
+            Runnable delivery = new Runnable() {
+                @Override
+                public void run() {
+                    deliverBroadcast(resultReceiver, intent,
+                            ShadowBroadcastReceiver.newPendingResult(true, resultCode, resultData, resultExtras, null));
+                }
+            };
+            if (resultHandler != null) {
+                resultHandler.post(delivery);
+            } else {
+                postToMainLooper(delivery);
             }
         }
     }
@@ -423,7 +557,9 @@ public class ShadowApplication extends ShadowContextWrapper {
 
     Intent registerReceiverWithContext(BroadcastReceiver receiver, IntentFilter filter, Context context) {
         if (receiver != null) {
-            registeredReceivers.add(new Wrapper(receiver, filter, context));
+            Wrapper wrapper = new Wrapper(receiver, filter, context);
+            registeredReceivers.add(wrapper);
+            if (filter != null) receiverResolver.add(filter, wrapper);
         }
         return getStickyIntent(filter);
     }
@@ -451,6 +587,8 @@ public class ShadowApplication extends ShadowContextWrapper {
             Wrapper wrapper = iterator.next();
             if (wrapper.broadcastReceiver == broadcastReceiver) {
                 iterator.remove();
+                receiverResolver.remove(wrapper);
+                wrapper.registered = false;
                 found = true;
             }
         }
@@ -497,20 +635,13 @@ public class ShadowApplication extends ShadowContextWrapper {
     }
 
     public boolean hasReceiverForIntent(Intent intent) {
-        for (Wrapper wrapper : registeredReceivers) {
-            if (wrapper.intentFilter.matchAction(intent.getAction())) {
-                return true;
-            }
-        }
-        return false;
+        return receiverResolver.hasMatch(intent);
     }
 
     public List<BroadcastReceiver> getReceiversForIntent(Intent intent) {
         ArrayList<BroadcastReceiver> broadcastReceivers = new ArrayList<BroadcastReceiver>();
-        for (Wrapper wrapper : registeredReceivers) {
-            if (wrapper.intentFilter.matchAction(intent.getAction())) {
-                broadcastReceivers.add(wrapper.getBroadcastReceiver());
-            }
+        for (Wrapper wrapper : receiverResolver.query(intent)) {
+            broadcastReceivers.add(wrapper.getBroadcastReceiver());
         }
         return broadcastReceivers;
     }
@@ -518,10 +649,11 @@ public class ShadowApplication extends ShadowContextWrapper {
     /**
      * Non-Android accessor.
      *
-     * @return list of {@link Wrapper}s for registered receivers
+     * @return list of {@link Wrapper}s for registered receivers; register and unregister receivers to change it, so
+     *     the index used to deliver broadcasts stays in step
      */
     public List<Wrapper> getRegisteredReceivers() {
-        return registeredReceivers;
+        return Collections.unmodifiableList(registeredReceivers);
     }
 
     /**
@@ -633,6 +765,7 @@ public class ShadowApplication extends ShadowContextWrapper {
         public IntentFilter intentFilter;
         public Context context;
         public Throwable exception;
+        boolean registered = true;
 
         public Wrapper(BroadcastReceiver broadcastReceiver, IntentFilter intentFilter, Context context) {
             this.broadcastReceiver = broadcastReceiver;
@@ -0,0 +1,205 @@
+package org.robolectric.shadows;
+
+import android.content.BroadcastReceiver;
+import android.os.Bundle;
+import org.robolectric.Robolectric;
+import org.robolectric.internal.Implementation;
+import org.robolectric.internal.Implements;
+
+import static org.robolectric.Robolectric.shadowOf_;
+
+/**
+ * Shadow of {@code BroadcastReceiver} that keeps the result of the broadcast being delivered, so receivers of
+ * ordered broadcasts can read and change it, abort the broadcast, or finish it later with {@code goAsync}.
+ */
+@SuppressWarnings({"UnusedDeclaration"})
+@Implements(BroadcastReceiver.class)
+public class ShadowBroadcastReceiver {
+    private BroadcastReceiver.PendingResult pendingResult;
+
+    /**
+     * Non-Android accessor.  Sets the result of the broadcast about to be delivered to {@code onReceive}.
+     */
+    public void setPendingResult(BroadcastReceiver.PendingResult pendingResult) {
+        this.pendingResult = pendingResult;
+    }
+
+    /**
+     * Non-Android accessor.
+     *
+     * @return the result of the broadcast being delivered, or null if there isn't one or {@code goAsync} took it
+     */
+    public BroadcastReceiver.PendingResult getPendingResult() {
+        return pendingResult;
+    }
+
+    @Implementation
+    public BroadcastReceiver.PendingResult goAsync() {
+        BroadcastReceiver.PendingResult result = pendingResult;
+        pendingResult = null;
+        return result;
+    }
+
+    @Implementation
+    public boolean isOrderedBroadcast() {
+        return pendingResult != null && pending().ordered;
+    }
+
+    @Implementation
+    public void setResultCode(int code) {
+        pending().setResultCode(code);
+    }
+
+    @Implementation
+    public int getResultCode() {
+        return pendingResult == null ? 0 : pending().getResultCode();
+    }
+
+    @Implementation
+    public void setResultData(String data) {
+        pending().setResultData(data);
+    }
+
+    @Implementation
+    public String getResultData() {
+        return pendingResult == null ? null : pending().getResultData();
+    }
+
+    @Implementation
+    public void setResultExtras(Bundle extras) {
+        pending().setResultExtras(extras);
+    }
+
+    @Implementation
+    public Bundle getResultExtras(boolean makeMap) {
+        return pendingResult == null ? null : pending().getResultExtras(makeMap);
+    }
+
+    @Implementation
+    public void setResult(int code, String data, Bundle extras) {
+        pending().setResult(code, data, extras);
+    }
+
+    @Implementation
+    public void abortBroadcast() {
+        pending().abortBroadcast();
+    }
+
+    @Implementation
+    public boolean getAbortBroadcast() {
+        return pendingResult != null && pending().getAbortBroadcast();
+    }
+
+    @Implementation
+    public void clearAbortBroadcast() {
+        if (pendingResult != null) pending().clearAbortBroadcast();
+    }
+
+    static BroadcastReceiver.PendingResult newPendingResult(boolean ordered, int resultCode, String resultData,
+                                                           Bundle resultExtras, Runnable onFinish) {
+        BroadcastReceiver.PendingResult pendingResult = Robolectric.newInstanceOf(BroadcastReceiver.PendingResult.class);
+        ShadowPendingResult shadowPendingResult = (ShadowPendingResult) shadowOf_(pendingResult);
+        shadowPendingResult.ordered = ordered;
+        shadowPendingResult.resultCode = resultCode;
+        shadowPendingResult.resultData = resultData;
+        shadowPendingResult.resultExtras = resultExtras;
+        shadowPendingResult.onFinish = onFinish;
+        return pendingResult;
+    }
+
+    private ShadowPendingResult pending() {
+        if (pendingResult == null) {
+            throw new IllegalStateException("Call while result is not pending");
+        }
+        return (ShadowPendingResult) shadowOf_(pendingResult);
+    }
+
+    @Implements(BroadcastReceiver.PendingResult.class)
+    public static class ShadowPendingResult {
+        int resultCode;
+        String resultData;
+        Bundle resultExtras;
+        boolean abortBroadcast;
+        boolean ordered;
+        boolean finished;
+        Runnable onFinish;
+
+        @Implementation
+        public void setResultCode(int code) {
+            resultCode = code;
+        }
+
+        @Implementation
+        public int getResultCode() {
+            return resultCode;
+        }
+
+        @Implementation
+        public void setResultData(String data) {
+            resultData = data;
+        }
+
+        @Implementation
+        public String getResultData() {
+            return resultData;
+        }
+
+        @Implementation
+        public void setResultExtras(Bundle extras) {
+            resultExtras = extras;
+        }
+
+        @Implementation
+        public Bundle getResultExtras(boolean makeMap) {
+            if (makeMap && resultExtras == null) {
+                resultExtras = new Bundle();
+            }
+            return resultExtras;
+        }
+
+        @Implementation
+        public void setResult(int code, String data, Bundle extras) {
+            resultCode = code;
+            resultData = data;
+            resultExtras = extras;
+        }
+
+        @Implementation
+        public void abortBroadcast() {
+            abortBroadcast = true;
+        }
+
+        @Implementation
+        public boolean getAbortBroadcast() {
+            return abortBroadcast;
+        }
+
+        @Implementation
+        public void clearAbortBroadcast() {
+            abortBroadcast = false;
+        }
+
+        /**
+         * Hands the result on to the next receiver of an ordered broadcast.
+         */
+        @Implementation
+        public void finish() {
+            if (finished) {
+                throw new IllegalStateException("Broadcast already finished");
+            }
+            finished = true;
+            if (onFinish != null) {
+                onFinish.run();
+            }
+        }
+
+        /**
+         * Non-Android accessor.
+         *
+         * @return true once {@code finish} has been called
+         */
+        public boolean isFinished() {
+            return finished;
+        }
+    }
+}
@@ -149,8 +149,11 @@ public class ShadowConfiguration {
     	realConfiguration.locale = l;
     }
 
+    /**
+     * Non-Android accessor. Qualifiers are interned, so a change of qualifiers can be noticed with one comparison.
+     */
     public void overrideQualifiers(String qualifiers) {
-        this.qualifiers = qualifiers;
+        this.qualifiers = qualifiers == null ? null : qualifiers.intern();
     }
 
     public String getQualifiers() {
@@ -2,6 +2,7 @@ package org.robolectric.shadows;
 
 import android.database.ContentObserver;
 import android.net.Uri;
+import android.os.Handler;
 import org.robolectric.internal.Implementation;
 import org.robolectric.internal.Implements;
 import org.robolectric.internal.RealObject;
@@ -13,14 +14,51 @@ public class ShadowContentObserver {
 	@RealObject
 	private ContentObserver realObserver;
 
+	private Handler handler;
+
+	public void __constructor__( Handler handler ) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Calls {@code onChange} right away if the observer was created without a handler, otherwise posts it to the
+	 * handler so it runs when that handler's looper does, as on a device.
+	 */
 	@Implementation
-	public void dispatchChange( boolean selfChange, Uri uri ) {
-		realObserver.onChange(selfChange, uri);
+	public void dispatchChange( final boolean selfChange, final Uri uri ) {
+		if ( handler == null ) {
+			realObserver.onChange(selfChange, uri);
+		} else {
+			handler.post(new Runnable() {
+				@Override
+				public void run() {
+					realObserver.onChange(selfChange, uri);
+				}
+			});
+		}
 	}
-	
+
 	@Implementation
-	public void dispatchChange( boolean selfChange ) {
-		realObserver.onChange(selfChange);		
+	public void dispatchChange( final boolean selfChange ) {
+		if ( handler == null ) {
+			realObserver.onChange(selfChange);
+		} else {
+			handler.post(new Runnable() {
+				@Override
+				public void run() {
+					realObserver.onChange(selfChange);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Non-Android accessor.
+	 *
+	 * @return the handler {@code onChange} is posted to, or null if it's called directly
+	 */
+	public Handler getHandler() {
+		return handler;
 	}
 
 }
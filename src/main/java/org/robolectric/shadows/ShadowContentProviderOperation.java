@@ -1,7 +1,12 @@
 package org.robolectric.shadows;
 
+import android.content.ContentProvider;
 import android.content.ContentProviderOperation;
 import android.content.ContentProviderOperation.Builder;
+import android.content.ContentProviderResult;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.net.Uri;
 import org.robolectric.Robolectric;
 import org.robolectric.internal.Implementation;
@@ -17,6 +22,8 @@ public class ShadowContentProviderOperation {
     private final Map<String, String[]> selections = new HashMap<String, String[]>();
     private final Map<String, Integer> withValueBackReferences = new HashMap<String, Integer>();
     private Uri uri;
+    private String selection;
+    private String[] selectionArgs;
     private boolean isInsert;
     private boolean isUpdate;
     private boolean isDelete;
@@ -64,6 +71,20 @@ public class ShadowContentProviderOperation {
     public Map<String, String[]> getSelections() {
         return selections;
     }
+
+    public void setSelection(String selection, String[] selectionArgs) {
+        selections.put(selection, selectionArgs);
+        this.selection = selection;
+        this.selectionArgs = selectionArgs;
+    }
+
+    public String getSelection() {
+        return selection;
+    }
+
+    public String[] getSelectionArgs() {
+        return selectionArgs;
+    }
     
     public boolean isInsert() {
         return isInsert;
@@ -97,6 +118,81 @@ public class ShadowContentProviderOperation {
         return withValueBackReferences.get(key);
     }
 
+    @Implementation
+    public ContentProviderResult apply(ContentProvider provider, ContentProviderResult[] backRefs, int numBackRefs)
+            throws OperationApplicationException {
+        ContentValues contentValues = resolveValueBackReferences(backRefs, numBackRefs);
+
+        if (isInsert) {
+            Uri newUri = provider.insert(uri, contentValues);
+            if (newUri == null) {
+                throw new OperationApplicationException("insert failed");
+            }
+            return new ContentProviderResult(newUri);
+        }
+
+        int count;
+        if (isDelete) {
+            count = provider.delete(uri, selection, selectionArgs);
+        } else if (isUpdate) {
+            count = provider.update(uri, contentValues, selection, selectionArgs);
+        } else {
+            throw new IllegalStateException("operation is neither an insert, an update nor a delete");
+        }
+        return new ContentProviderResult(count);
+    }
+
+    /**
+     * @return this operation's values, with each value back reference replaced by the id (or count) from the
+     *     earlier result it refers to
+     */
+    @Implementation
+    public ContentValues resolveValueBackReferences(ContentProviderResult[] backRefs, int numBackRefs) {
+        ContentValues contentValues = new ContentValues();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            put(contentValues, entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Integer> entry : withValueBackReferences.entrySet()) {
+            contentValues.put(entry.getKey(), backRefToValue(backRefs, numBackRefs, entry.getValue()));
+        }
+        return contentValues;
+    }
+
+    private static long backRefToValue(ContentProviderResult[] backRefs, int numBackRefs, int backRefIndex) {
+        if (backRefIndex >= numBackRefs) {
+            throw new ArrayIndexOutOfBoundsException("asked for back ref " + backRefIndex
+                    + " but there are only " + numBackRefs + " back refs");
+        }
+        ContentProviderResult backRef = backRefs[backRefIndex];
+        return backRef.uri != null ? ContentUris.parseId(backRef.uri) : backRef.count;
+    }
+
+    private static void put(ContentValues contentValues, String key, Object value) {
+        if (value == null) {
+            contentValues.putNull(key);
+        } else if (value instanceof String) {
+            contentValues.put(key, (String) value);
+        } else if (value instanceof Byte) {
+            contentValues.put(key, (Byte) value);
+        } else if (value instanceof Short) {
+            contentValues.put(key, (Short) value);
+        } else if (value instanceof Integer) {
+            contentValues.put(key, (Integer) value);
+        } else if (value instanceof Long) {
+            contentValues.put(key, (Long) value);
+        } else if (value instanceof Float) {
+            contentValues.put(key, (Float) value);
+        } else if (value instanceof Double) {
+            contentValues.put(key, (Double) value);
+        } else if (value instanceof Boolean) {
+            contentValues.put(key, (Boolean) value);
+        } else if (value instanceof byte[]) {
+            contentValues.put(key, (byte[]) value);
+        } else {
+            throw new IllegalArgumentException("bad value type: " + value.getClass().getName());
+        }
+    }
+
     @Implements(Builder.class)
     public static class ShadowBuilder {
         @RealObject private Builder realBuilder;
@@ -116,7 +212,7 @@ public class ShadowContentProviderOperation {
 
         @Implementation
         public Builder withSelection(String selection, String[] selectionArgs) {
-            shadowContentProviderOperation.getSelections().put(selection, selectionArgs);
+            shadowContentProviderOperation.setSelection(selection, selectionArgs);
             return realBuilder;
         }
 
@@ -6,6 +6,7 @@ import android.content.ContentProviderOperation;
 import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.content.PeriodicSync;
 import android.database.ContentObserver;
 import android.database.Cursor;
@@ -21,13 +22,14 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 
 @Implements(ContentResolver.class)
 public class ShadowContentResolver {
+    public static final int DEFAULT_NOTIFICATION_LOG_LIMIT = 10000;
+
     private int nextDatabaseIdForInserts;
     private int nextDatabaseIdForUpdates;
 
@@ -35,12 +37,14 @@ public class ShadowContentResolver {
     private final List<InsertStatement> insertStatements = new ArrayList<InsertStatement>();
     private final List<UpdateStatement> updateStatements = new ArrayList<UpdateStatement>();
     private final List<DeleteStatement> deleteStatements = new ArrayList<DeleteStatement>();
-    private List<NotifiedUri> notifiedUris = new ArrayList<NotifiedUri>();
+    private final LinkedList<NotifiedUri> notifiedUris = new LinkedList<NotifiedUri>();
+    private int notificationLogLimit = DEFAULT_NOTIFICATION_LOG_LIMIT;
     private HashMap<Uri, TestCursor> uriCursorMap = new HashMap<Uri, TestCursor>();
     private final Map<String, ArrayList<ContentProviderOperation>> contentProviderOperations = new HashMap<String, ArrayList<ContentProviderOperation>>();
     private ContentProviderResult[] contentProviderResults;
+    private final List<BatchTiming> batchTimings = new ArrayList<BatchTiming>();
 
-    private final Map<Uri, ContentObserver> contentObservers = new HashMap<Uri,ContentObserver>();
+    private final ContentObserverTree contentObservers = new ContentObserverTree();
     
     private static final Map<String, Map<Account, Status>>  syncableAccounts =
             new HashMap<String, Map<Account, Status>>();
@@ -171,24 +175,35 @@ public class ShadowContentResolver {
     public final int bulkInsert(Uri url, ContentValues[] values) {
         ContentProvider provider = getProvider(url);
         if (provider != null) {
-            return provider.bulkInsert(url, values);
+            long start = System.nanoTime();
+            try {
+                return provider.bulkInsert(url, values);
+            } finally {
+                batchTimings.add(new BatchTiming(url.getAuthority(), values.length, System.nanoTime() - start));
+            }
         } else {
-            return 0;
+            for (ContentValues contentValues : values) {
+                insertStatements.add(new InsertStatement(url, new ContentValues(contentValues)));
+            }
+            return values.length;
         }
     }
 
     @Implementation
     public void notifyChange(Uri uri, ContentObserver observer, boolean syncToNetwork) {
         notifiedUris.add(new NotifiedUri(uri, observer, syncToNetwork));
-        
-        // TODO does not support multiple observers for a URI
-        ContentObserver obs = contentObservers.get(uri);
-        if ( obs != null && obs != observer  ) {
-        	obs.dispatchChange( false, uri );
-        }
-    	if ( observer != null && observer.deliverSelfNotifications() ) {
-    		observer.dispatchChange( true, uri );
-    	}
+        while (notifiedUris.size() > notificationLogLimit) {
+            notifiedUris.removeFirst();
+        }
+
+        for (ContentObserver obs : contentObservers.collect(uri)) {
+            if (obs != observer) {
+                obs.dispatchChange(false, uri);
+            }
+        }
+        if (observer != null && observer.deliverSelfNotifications()) {
+            observer.dispatchChange(true, uri);
+        }
     }
 
     @Implementation
@@ -196,10 +211,26 @@ public class ShadowContentResolver {
         notifyChange(uri, observer, false);
     }
 
+    /**
+     * If a provider is registered for {@code authority}, applies {@code operations} to it with
+     * {@link ContentProvider#applyBatch}; otherwise returns the results set with {@link #setContentProviderResult}.
+     * Either way, the operations are recorded.
+     */
     @Implementation
-    public ContentProviderResult[] applyBatch(String authority, ArrayList<ContentProviderOperation> operations) {
+    public ContentProviderResult[] applyBatch(String authority, ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
         contentProviderOperations.put(authority, operations);
-        return contentProviderResults;
+        ContentProvider provider = providers.get(authority);
+        if (provider == null) {
+            return contentProviderResults;
+        }
+
+        long start = System.nanoTime();
+        try {
+            return provider.applyBatch(operations);
+        } finally {
+            batchTimings.add(new BatchTiming(authority, operations.size(), System.nanoTime() - start));
+        }
     }
 
     @Implementation
@@ -347,10 +378,25 @@ public class ShadowContentResolver {
         return deleteStatements;
     }
 
+    /**
+     * Non-Android accessor.  Returns the most recent calls to {@code notifyChange}, oldest first; see
+     * {@link #setNotificationLogLimit(int)}.
+     */
     public List<NotifiedUri> getNotifiedUris() {
         return notifiedUris;
     }
 
+    /**
+     * Non-Android accessor.  Sets how many calls to {@code notifyChange} are remembered (by default
+     * {@value #DEFAULT_NOTIFICATION_LOG_LIMIT}); older ones are forgotten.
+     */
+    public void setNotificationLogLimit(int notificationLogLimit) {
+        this.notificationLogLimit = notificationLogLimit;
+        while (notifiedUris.size() > notificationLogLimit) {
+            notifiedUris.removeFirst();
+        }
+    }
+
     public ArrayList<ContentProviderOperation> getContentProviderOperations(String authority) {
         ArrayList<ContentProviderOperation> operations = contentProviderOperations.get(authority);
         if (operations == null)
@@ -361,24 +407,24 @@ public class ShadowContentResolver {
     public void setContentProviderResult(ContentProviderResult[] contentProviderResults) {
         this.contentProviderResults = contentProviderResults;
     }
+
+    /**
+     * Non-Android accessor.  Returns how long each {@code applyBatch} and {@code bulkInsert} that went to a
+     * registered provider took, in the order they were made.
+     */
+    public List<BatchTiming> getBatchTimings() {
+        return batchTimings;
+    }
     
     @Implementation
     public void registerContentObserver( Uri uri, boolean notifyForDescendents, ContentObserver observer) {
-        // TODO does not support multiple observers for a URI
-    	contentObservers.put( uri, observer );
+    	contentObservers.add( uri, notifyForDescendents, observer );
     }
     
     @Implementation
     public void unregisterContentObserver( ContentObserver observer ) {
-    	if ( observer != null && contentObservers.containsValue( observer ) ) {
-    		Set<Entry<Uri,ContentObserver>> entries = contentObservers.entrySet();
-    		for ( Entry<Uri,ContentObserver> e : entries ) {
-    			ContentObserver other = e.getValue();
-    			if ( observer == other || observer.equals(other) ) {
-    	        	contentObservers.remove( e.getKey() );
-    	        	return;
-    			}
-    		}
+    	if ( observer != null ) {
+    		contentObservers.remove( observer );
     	}
     }
     
@@ -391,12 +437,21 @@ public class ShadowContentResolver {
     }
     
     /**
-     * Non-Android accessor.  Returns the content observer registered with
+     * Non-Android accessor.  Returns the first content observer registered with
      * the given URI, or null if none registered.
      * @param uri
      * @return
      */
     public ContentObserver getContentObserver( Uri uri ) {
+    	List<ContentObserver> observers = contentObservers.get(uri);
+    	return observers.isEmpty() ? null : observers.get(0);
+    }
+
+    /**
+     * Non-Android accessor.  Returns the content observers registered with
+     * exactly the given URI, in the order they were registered.
+     */
+    public List<ContentObserver> getContentObservers( Uri uri ) {
     	return contentObservers.get(uri);
     }
 
@@ -458,6 +513,35 @@ public class ShadowContentResolver {
         }
     }
 
+    public static class BatchTiming {
+        private final String authority;
+        private final int operationCount;
+        private final long elapsedNanos;
+
+        public BatchTiming(String authority, int operationCount, long elapsedNanos) {
+            this.authority = authority;
+            this.operationCount = operationCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getAuthority() {
+            return authority;
+        }
+
+        public int getOperationCount() {
+            return operationCount;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return authority + ": " + operationCount + " operations in " + (elapsedNanos / 1000) + "us";
+        }
+    }
+
     public static class DeleteStatement {
         private final Uri uri;
         private final String where;
@@ -13,6 +13,8 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.content.res.AssetManager;
 import android.content.res.Resources;
+import android.os.Bundle;
+import android.os.Handler;
 import android.os.Looper;
 import android.view.View;
 import org.robolectric.AndroidManifest;
@@ -167,6 +169,18 @@ public class ShadowContextWrapper extends ShadowContext {
         getApplicationContext().sendBroadcast(intent);
     }
 
+    @Implementation
+    public void sendOrderedBroadcast(Intent intent, String receiverPermission) {
+        getApplicationContext().sendOrderedBroadcast(intent, receiverPermission);
+    }
+
+    @Implementation
+    public void sendOrderedBroadcast(Intent intent, String receiverPermission, BroadcastReceiver resultReceiver,
+                                     Handler scheduler, int initialCode, String initialData, Bundle initialExtras) {
+        getApplicationContext().sendOrderedBroadcast(intent, receiverPermission, resultReceiver, scheduler,
+                initialCode, initialData, initialExtras);
+    }
+
     public List<Intent> getBroadcastIntents() {
         return ((ShadowApplication) shadowOf(getApplicationContext())).getBroadcastIntents();
     }
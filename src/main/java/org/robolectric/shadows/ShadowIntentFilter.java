@@ -30,6 +30,8 @@ public class ShadowIntentFilter {
     List<String> schemes = new ArrayList<String>();
     List<IntentFilter.AuthorityEntry> authoritites = new ArrayList<IntentFilter.AuthorityEntry>();
     List<String> categories = new ArrayList<String>();
+    List<String> types = new ArrayList<String>();
+    int priority;
 
     public void __constructor__(String action) {
         actions.add(action);
@@ -37,6 +39,17 @@ public class ShadowIntentFilter {
 
     public void __constructor__(String action, String dataType) {
         actions.add(action);
+        types.add(dataType);
+    }
+
+    @Implementation
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    @Implementation
+    public int getPriority() {
+        return priority;
     }
 
     @Implementation
@@ -84,6 +97,36 @@ public class ShadowIntentFilter {
         return schemes.get(index);
     }
 
+    @Implementation
+    public int countDataSchemes() {
+        return schemes.size();
+    }
+
+    @Implementation
+    public boolean hasDataScheme(String scheme) {
+        return schemes.contains(scheme);
+    }
+
+    @Implementation
+    public void addDataType(String type) {
+        types.add(type);
+    }
+
+    @Implementation
+    public String getDataType(int index) {
+        return types.get(index);
+    }
+
+    @Implementation
+    public int countDataTypes() {
+        return types.size();
+    }
+
+    @Implementation
+    public boolean hasDataType(String type) {
+        return types.contains(type);
+    }
+
     @Implementation
     public void addCategory( String category ) {
         categories.add( category );
@@ -104,6 +147,11 @@ public class ShadowIntentFilter {
         return categories.get( index );
     }
 
+    @Implementation
+    public int countCategories() {
+        return categories.size();
+    }
+
     @Implementation
     public String matchCategories(Set<String> categories){
         if (categories == null) {
@@ -137,7 +185,8 @@ public class ShadowIntentFilter {
         ShadowIntentFilter that = (ShadowIntentFilter) o;
 
         return actions.equals( that.actions ) && categories.equals( that.categories )
-                && schemes.equals( that.schemes ) && authoritites.equals( that.authoritites );
+                && schemes.equals( that.schemes ) && authoritites.equals( that.authoritites )
+                && types.equals( that.types );
     }
 
     @Override @Implementation
@@ -147,6 +196,7 @@ public class ShadowIntentFilter {
         result = 31 * result + categories.hashCode();
         result = 31 * result + schemes.hashCode();
         result = 31 * result + authoritites.hashCode();
+        result = 31 * result + types.hashCode();
         return result;
     }
 
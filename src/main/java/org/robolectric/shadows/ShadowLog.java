@@ -5,15 +5,35 @@ import org.robolectric.internal.Implementation;
 import org.robolectric.internal.Implements;
 
 import java.io.PrintStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Shadow of {@code Log} that keeps the most recent entries in memory, indexed by tag and by level.
+ *
+ * At most {@value #DEFAULT_CAPACITY} entries are kept unless the system property {@value #CAPACITY_PROPERTY} or
+ * {@link #setCapacity(int)} says otherwise; {@value #TAG_CAPACITY_PROPERTY} and {@value #LEVEL_CAPACITY_PROPERTY}
+ * (or their setters) also limit how many are kept for any one tag or level, so a chatty library can't push out
+ * everything else. The oldest entries are dropped first. Entries are only formatted when printed to {@link #stream}
+ * or turned into strings.
+ */
 @Implements(Log.class)
 public class ShadowLog {
-    private static Map<String,List<LogItem>> logsByTag = new HashMap<String,List<LogItem>>();
-    private static List<LogItem> logs = new ArrayList<LogItem>();
+    public static final String CAPACITY_PROPERTY = "robolectric.logging.capacity";
+    public static final String TAG_CAPACITY_PROPERTY = "robolectric.logging.tagCapacity";
+    public static final String LEVEL_CAPACITY_PROPERTY = "robolectric.logging.levelCapacity";
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    private static final Bucket logs = new Bucket(); // @GuardedBy("ShadowLog.class")
+    private static final Map<String, Bucket> logsByTag = new HashMap<String, Bucket>(); // @GuardedBy("ShadowLog.class")
+    private static final Map<Integer, Bucket> logsByLevel = new HashMap<Integer, Bucket>(); // @GuardedBy("ShadowLog.class")
+    private static int capacity = intProperty(CAPACITY_PROPERTY, DEFAULT_CAPACITY); // @GuardedBy("ShadowLog.class")
+    private static int tagCapacity = intProperty(TAG_CAPACITY_PROPERTY, 0); // @GuardedBy("ShadowLog.class")
+    private static int levelCapacity = intProperty(LEVEL_CAPACITY_PROPERTY, 0); // @GuardedBy("ShadowLog.class")
     public static PrintStream stream;
 
     @Implementation
@@ -88,62 +108,189 @@ public class ShadowLog {
     }
 
     private static void addLog(int level, String tag, String msg, Throwable throwable) {
-        if (stream != null) {
-            logToStream(stream, level, tag, msg, throwable);
-        }
-        
         LogItem item = new LogItem(level, tag, msg, throwable);
-        List<LogItem> itemList = null;
-        
-        if (!logsByTag.containsKey(tag)) {
-        	itemList = new ArrayList<LogItem>();
-        	logsByTag.put(tag, itemList);
-        } else {
-        	itemList = logsByTag.get(tag);
-        }
-        
-        itemList.add(item);
+
+        PrintStream ps = stream;
+        if (ps != null) {
+            logToStream(ps, item);
+        }
+
+        record(item);
+    }
+
+    private static synchronized void record(LogItem item) {
         logs.add(item);
+        add(logsByTag, item.tag, item, tagCapacity);
+        add(logsByLevel, item.type, item, levelCapacity);
+        while (logs.live > capacity) {
+            drop(logs.oldest());
+        }
+    }
+
+    private static <K> void add(Map<K, Bucket> index, K key, LogItem item, int limit) {
+        Bucket bucket = index.get(key);
+        if (bucket == null) {
+            bucket = new Bucket();
+            index.put(key, bucket);
+        }
+        bucket.add(item);
+        if (limit > 0) {
+            while (bucket.live > limit) {
+                drop(bucket.oldest());
+            }
+        }
+    }
+
+    private static void drop(LogItem item) {
+        item.dropped = true;
+        logs.dropped();
+        dropped(logsByTag, item.tag);
+        dropped(logsByLevel, item.type);
     }
 
-    private static void logToStream(PrintStream ps, int level, String tag, String msg, Throwable throwable) {
-        final char c;
-        switch (level) {
-            case Log.ASSERT: c = 'A'; break;
-            case Log.DEBUG:  c = 'D'; break;
-            case Log.ERROR:  c = 'E'; break;
-            case Log.WARN:   c = 'W'; break;
-            case Log.INFO:   c = 'I'; break;
-            case Log.VERBOSE:c = 'V'; break;
-            default:         c = '?';
+    private static <K> void dropped(Map<K, Bucket> index, K key) {
+        Bucket bucket = index.get(key);
+        bucket.dropped();
+        if (bucket.live == 0) {
+            index.remove(key);
         }
-        ps.println(c + "/" + tag + ": " + msg);
-        if (throwable != null) {
-            throwable.printStackTrace(ps);
+    }
+
+    private static void logToStream(PrintStream ps, LogItem item) {
+        ps.println(item);
+        if (item.throwable != null) {
+            item.throwable.printStackTrace(ps);
         }
     }
 
     /**
-     * Non-Android accessor.  Returns ordered list of all log entries.
+     * Non-Android accessor.  Returns ordered list of all log entries still kept.
      * @return
      */
-    public static List<LogItem> getLogs() {
-    	return logs;
+    public static synchronized List<LogItem> getLogs() {
+    	return logs.snapshot();
     }
     
     /**
-     * Non-Android accessor.  Returns ordered list of all log items for a specific tag.
+     * Non-Android accessor.  Returns ordered list of all log items still kept for a specific tag, or null if there
+     * are none.
      * 
      * @param tag
      * @return
      */
-    public static List<LogItem> getLogsForTag( String tag ) {
-    	return logsByTag.get(tag);
+    public static synchronized List<LogItem> getLogsForTag( String tag ) {
+    	Bucket bucket = logsByTag.get(tag);
+    	return bucket == null ? null : bucket.snapshot();
+    }
+
+    /**
+     * Non-Android accessor.  Returns ordered list of all log items still kept for a specific level, e.g.
+     * {@code Log.ERROR}.
+     */
+    public static synchronized List<LogItem> getLogsForLevel( int level ) {
+        Bucket bucket = logsByLevel.get(level);
+        return bucket == null ? new ArrayList<LogItem>() : bucket.snapshot();
+    }
+
+    /**
+     * Non-Android accessor.  Sets how many entries are kept in all.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is negative
+     */
+    public static synchronized void setCapacity(int capacity) {
+        ShadowLog.capacity = checkCapacity("capacity", capacity);
+        while (logs.live > capacity) {
+            drop(logs.oldest());
+        }
     }
 
-    public static void reset() {
+    /**
+     * Non-Android accessor.  Sets how many entries are kept for any one tag, or 0 for no limit beyond the overall one.
+     * Applies to entries logged from now on.
+     *
+     * @throws IllegalArgumentException if {@code tagCapacity} is negative
+     */
+    public static synchronized void setTagCapacity(int tagCapacity) {
+        ShadowLog.tagCapacity = checkCapacity("tag capacity", tagCapacity);
+    }
+
+    /**
+     * Non-Android accessor.  Sets how many entries are kept for any one level, or 0 for no limit beyond the overall
+     * one. Applies to entries logged from now on.
+     *
+     * @throws IllegalArgumentException if {@code levelCapacity} is negative
+     */
+    public static synchronized void setLevelCapacity(int levelCapacity) {
+        ShadowLog.levelCapacity = checkCapacity("level capacity", levelCapacity);
+    }
+
+    public static synchronized void reset() {
         logs.clear();
         logsByTag.clear();
+        logsByLevel.clear();
+        capacity = intProperty(CAPACITY_PROPERTY, DEFAULT_CAPACITY);
+        tagCapacity = intProperty(TAG_CAPACITY_PROPERTY, 0);
+        levelCapacity = intProperty(LEVEL_CAPACITY_PROPERTY, 0);
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) return defaultValue;
+        try {
+            return checkCapacity(name, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " should be a whole number, not \"" + value + "\"", e);
+        }
+    }
+
+    private static int checkCapacity(String name, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException(name + " can't be negative: " + capacity);
+        }
+        return capacity;
+    }
+
+    /**
+     * Entries in the order they were logged. Dropped entries stay until they reach the front or the bucket is
+     * compacted, so the oldest entry is always a live one.
+     */
+    private static class Bucket {
+        final ArrayDeque<LogItem> items = new ArrayDeque<LogItem>();
+        int live;
+
+        void add(LogItem item) {
+            items.addLast(item);
+            live++;
+        }
+
+        LogItem oldest() {
+            return items.peekFirst();
+        }
+
+        void dropped() {
+            live--;
+            while (!items.isEmpty() && items.peekFirst().dropped) {
+                items.removeFirst();
+            }
+            if (items.size() > 2 * live + 16) {
+                for (Iterator<LogItem> iterator = items.iterator(); iterator.hasNext(); ) {
+                    if (iterator.next().dropped) iterator.remove();
+                }
+            }
+        }
+
+        List<LogItem> snapshot() {
+            List<LogItem> snapshot = new ArrayList<LogItem>(live);
+            for (LogItem item : items) {
+                if (!item.dropped) snapshot.add(item);
+            }
+            return snapshot;
+        }
+
+        void clear() {
+            items.clear();
+            live = 0;
+        }
     }
 
     public static class LogItem {
@@ -151,6 +298,7 @@ public class ShadowLog {
         public final String tag;
         public final String msg;
         public final Throwable throwable;
+        private boolean dropped; // @GuardedBy("ShadowLog.class")
 
         public LogItem(int type, String tag, String msg, Throwable throwable) {
             this.type = type;
@@ -158,5 +306,23 @@ public class ShadowLog {
             this.msg = msg;
             this.throwable = throwable;
         }
+
+        /**
+         * @return the entry as logcat would show it, e.g. {@code D/tag: msg}
+         */
+        @Override
+        public String toString() {
+            final char c;
+            switch (type) {
+                case Log.ASSERT: c = 'A'; break;
+                case Log.DEBUG:  c = 'D'; break;
+                case Log.ERROR:  c = 'E'; break;
+                case Log.WARN:   c = 'W'; break;
+                case Log.INFO:   c = 'I'; break;
+                case Log.VERBOSE:c = 'V'; break;
+                default:         c = '?';
+            }
+            return c + "/" + tag + ": " + msg;
+        }
     }
 }
@@ -6,7 +6,6 @@ import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.content.res.XmlResourceParser;
-import android.graphics.Color;
 import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
@@ -27,6 +26,9 @@ import org.w3c.dom.Document;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.robolectric.Robolectric.newInstanceOf;
 import static org.robolectric.Robolectric.shadowOf;
@@ -40,6 +42,7 @@ import static org.robolectric.Robolectric.shadowOf;
 @Implements(Resources.class)
 public class ShadowResources {
     private static Resources system = null;
+    private static final Object NOT_FOUND = new Object();
 
     private float density = 1.0f;
     Configuration configuration = null;
@@ -49,6 +52,11 @@ public class ShadowResources {
     private ResourceLoader resourceLoader;
     private ResourceIndex resourceIndex;
     private AssetManager assetManager;
+    private final Map<String, Map<Integer, DrawableBuilder.DrawableState>> drawableStatesByQualifiers =
+            new ConcurrentHashMap<String, Map<Integer, DrawableBuilder.DrawableState>>();
+    private final AtomicLong drawableCacheHits = new AtomicLong();
+    private final AtomicLong drawableCacheMisses = new AtomicLong();
+    private volatile ResolvedValues resolvedValues;
 
     public static void setSystemResources(ResourceLoader systemResourceLoader) {
         AssetManager assetManager = Robolectric.newInstanceOf(AssetManager.class);
@@ -105,13 +113,13 @@ public class ShadowResources {
 
     @Implementation
     public int getColor(int id) throws Resources.NotFoundException {
-        String colorValue = resourceLoader.getColorValue(getResName(id), getQualifiers());
-        if (isEmpty(colorValue)) throw new Resources.NotFoundException(notFound(id));
-        return Color.parseColor(colorValue);
-    }
-
-    private boolean isEmpty(String s) {
-        return s == null || s.length() == 0;
+        ResolvedValues values = resolvedValues();
+        Object color = values.colors.get(id);
+        if (color == null) {
+            color = remember(values.colors, id, resourceLoader.getColorIntValue(getResName(id), values.qualifiers));
+        }
+        if (color == NOT_FOUND) throw new Resources.NotFoundException(notFound(id));
+        return (Integer) color;
     }
 
     private ResName getResName(int id) {
@@ -123,7 +131,29 @@ public class ShadowResources {
     }
 
     private String getQualifiers() {
-        return shadowOf(getConfiguration()).getQualifiers();
+        return resolvedValues().qualifiers;
+    }
+
+    /**
+     * @return the values looked up so far for the current configuration and qualifiers, or a new, empty set of them
+     *     if either has changed since the last lookup
+     */
+    private ResolvedValues resolvedValues() {
+        Configuration configuration = getConfiguration();
+        ResolvedValues values = resolvedValues;
+        if (values == null || !values.isFor(configuration)) {
+            ShadowConfiguration shadowConfiguration = values != null && values.configuration == configuration
+                    ? values.shadowConfiguration : shadowOf(configuration);
+            values = new ResolvedValues(configuration, shadowConfiguration);
+            resolvedValues = values;
+        }
+        return values;
+    }
+
+    private static Object remember(Map<Integer, Object> values, int id, Object value) {
+        if (value == null) value = NOT_FOUND;
+        values.put(id, value);
+        return value;
     }
 
     @Implementation
@@ -145,7 +175,12 @@ public class ShadowResources {
 
     @Implementation
     public String getString(int id) throws Resources.NotFoundException {
-        return resourceLoader.getStringValue(getResName(id), getQualifiers());
+        ResolvedValues values = resolvedValues();
+        Object string = values.strings.get(id);
+        if (string == null) {
+            string = remember(values.strings, id, resourceLoader.getStringValue(getResName(id), values.qualifiers));
+        }
+        return string == NOT_FOUND ? null : (String) string;
     }
 
     @Implementation
@@ -172,11 +207,15 @@ public class ShadowResources {
 
     @Implementation
     public String[] getStringArray(int id) throws Resources.NotFoundException {
-        String[] arrayValue = resourceLoader.getStringArrayValue(getResName(id), getQualifiers());
+        ResolvedValues values = resolvedValues();
+        Object arrayValue = values.stringArrays.get(id);
         if (arrayValue == null) {
+            arrayValue = remember(values.stringArrays, id, resourceLoader.getStringArrayValue(getResName(id), values.qualifiers));
+        }
+        if (arrayValue == NOT_FOUND) {
             throw new Resources.NotFoundException();
         }
-        return arrayValue;
+        return ((String[]) arrayValue).clone();
     }
 
     @Implementation
@@ -215,55 +254,96 @@ public class ShadowResources {
         return displayMetrics;
     }
 
+    /**
+     * Resolves each drawable resource once per set of qualifiers, as the framework does with its
+     * {@code ConstantState} cache, and builds a new drawable from that on every call.
+     */
     @Implementation
     public Drawable getDrawable(int drawableResourceId) throws Resources.NotFoundException {
-        ResName resName = getResName(drawableResourceId);
         String qualifiers = getQualifiers();
-        DrawableNode drawableNode = resourceLoader.getDrawableNode(resName, qualifiers);
-        final DrawableBuilder drawableBuilder = new DrawableBuilder(getResourceLoader().getResourceIndex());
-        return drawableBuilder.getDrawable(resName, realResources, drawableNode);
+        Map<Integer, DrawableBuilder.DrawableState> drawableStates = drawableStatesByQualifiers.get(qualifiers);
+        if (drawableStates == null) {
+            drawableStates = new ConcurrentHashMap<Integer, DrawableBuilder.DrawableState>();
+            drawableStatesByQualifiers.put(qualifiers, drawableStates);
+        }
+
+        DrawableBuilder.DrawableState drawableState = drawableStates.get(drawableResourceId);
+        if (drawableState == null) {
+            drawableCacheMisses.incrementAndGet();
+            ResName resName = getResName(drawableResourceId);
+            DrawableNode drawableNode = resourceLoader.getDrawableNode(resName, qualifiers);
+            DrawableBuilder drawableBuilder = new DrawableBuilder(getResourceLoader().getResourceIndex());
+            drawableState = drawableBuilder.getDrawableState(resName, drawableNode);
+            drawableStates.put(drawableResourceId, drawableState);
+        } else {
+            drawableCacheHits.incrementAndGet();
+        }
+        return drawableState.newDrawable(realResources);
     }
 
-    @Implementation
-    public float getDimension(int id) throws Resources.NotFoundException {
-        String dimenValue = resourceLoader.getDimenValue(getResName(id), getQualifiers());
-        if (dimenValue == null) throw new Resources.NotFoundException(notFound(id));
-//        DimensionConverter.stringToDimension(dimenValue, displayMetrics);
-        return temporaryDimenConverter(dimenValue);
+    /**
+     * Non-Android accessor.
+     *
+     * @return how many calls to {@code getDrawable} found the resource already resolved
+     */
+    public long getDrawableCacheHits() {
+        return drawableCacheHits.get();
     }
 
-    private static final String[] UNITS = {"dp", "dip", "pt", "px", "sp"};
-    Float temporaryDimenConverter(String rawValue) {
-        int end = rawValue.length();
-        for (String unit : UNITS) {
-            int index = rawValue.indexOf(unit);
-            if (index >= 0 && end > index) {
-                end = index;
-            }
-        }
+    /**
+     * Non-Android accessor.
+     *
+     * @return how many calls to {@code getDrawable} had to resolve the resource
+     */
+    public long getDrawableCacheMisses() {
+        return drawableCacheMisses.get();
+    }
 
-        return Float.parseFloat(rawValue.substring(0, end));
+    @Implementation
+    public float getDimension(int id) throws Resources.NotFoundException {
+        ResolvedValues values = resolvedValues();
+        Object dimenValue = values.dimens.get(id);
+        if (dimenValue == null) {
+            dimenValue = remember(values.dimens, id, resourceLoader.getDimenFloatValue(getResName(id), values.qualifiers));
+        }
+        if (dimenValue == NOT_FOUND) throw new Resources.NotFoundException(notFound(id));
+//        DimensionConverter.stringToDimension(dimenValue, displayMetrics);
+        return (Float) dimenValue;
     }
 
     @Implementation
     public int getInteger(int id) throws Resources.NotFoundException {
-        return resourceLoader.getIntegerValue(getResName(id), getQualifiers());
+        ResolvedValues values = resolvedValues();
+        Object integer = values.integers.get(id);
+        if (integer == null) {
+            integer = remember(values.integers, id, resourceLoader.getIntegerValue(getResName(id), values.qualifiers));
+        }
+        return (Integer) integer;
     }
 
     @Implementation
     public int[] getIntArray(int id) throws Resources.NotFoundException {
-        int[] arrayValue = resourceLoader.getIntegerArrayValue(getResName(id), getQualifiers());
-        if (arrayValue == null) throw new Resources.NotFoundException(notFound(id));
-        return arrayValue;
+        ResolvedValues values = resolvedValues();
+        Object arrayValue = values.intArrays.get(id);
+        if (arrayValue == null) {
+            arrayValue = remember(values.intArrays, id, resourceLoader.getIntegerArrayValue(getResName(id), values.qualifiers));
+        }
+        if (arrayValue == NOT_FOUND) throw new Resources.NotFoundException(notFound(id));
+        return ((int[]) arrayValue).clone();
     }
 
     @Implementation
     public boolean getBoolean(int id) throws Resources.NotFoundException {
-        try {
-            return resourceLoader.getBooleanValue(getResName(id), getQualifiers());
-        } catch (NullPointerException e) {
-            throw new Resources.NotFoundException(notFound(id));
+        ResolvedValues values = resolvedValues();
+        Object booleanValue = values.booleans.get(id);
+        if (booleanValue == null) {
+            try {
+                booleanValue = remember(values.booleans, id, resourceLoader.getBooleanValue(getResName(id), values.qualifiers));
+            } catch (NullPointerException e) {
+                throw new Resources.NotFoundException(notFound(id));
+            }
         }
+        return (Boolean) booleanValue;
     }
 
     @Implementation
@@ -305,6 +385,37 @@ public class ShadowResources {
         return "couldn't find resource " + getResName(id).getFullyQualifiedName();
     }
 
+    /**
+     * Values already looked up for one configuration and set of qualifiers, by resource id. Replaced as a whole when
+     * either changes, so a repeated lookup is a single map hit and never sees a value from an old configuration.
+     */
+    private static class ResolvedValues {
+        final Configuration configuration;
+        final ShadowConfiguration shadowConfiguration;
+        final String qualifiers;
+        final Map<Integer, Object> strings = new ConcurrentHashMap<Integer, Object>();
+        final Map<Integer, Object> colors = new ConcurrentHashMap<Integer, Object>();
+        final Map<Integer, Object> dimens = new ConcurrentHashMap<Integer, Object>();
+        final Map<Integer, Object> integers = new ConcurrentHashMap<Integer, Object>();
+        final Map<Integer, Object> booleans = new ConcurrentHashMap<Integer, Object>();
+        final Map<Integer, Object> stringArrays = new ConcurrentHashMap<Integer, Object>();
+        final Map<Integer, Object> intArrays = new ConcurrentHashMap<Integer, Object>();
+
+        ResolvedValues(Configuration configuration, ShadowConfiguration shadowConfiguration) {
+            this.configuration = configuration;
+            this.shadowConfiguration = shadowConfiguration;
+            this.qualifiers = shadowConfiguration.getQualifiers();
+        }
+
+        /**
+         * Qualifiers are interned by {@link ShadowConfiguration#overrideQualifiers(String)}, so they're compared by
+         * identity here.
+         */
+        boolean isFor(Configuration configuration) {
+            return this.configuration == configuration && shadowConfiguration.getQualifiers() == qualifiers;
+        }
+    }
+
     @Implements(Resources.Theme.class)
     public static class ShadowTheme implements UsesResources {
         protected Resources resources;
@@ -5,14 +5,14 @@ import android.database.sqlite.SQLiteCursorDriver;
 import android.database.sqlite.SQLiteQuery;
 import org.robolectric.internal.Implementation;
 import org.robolectric.internal.Implements;
+import org.robolectric.util.ColumnarCursorWindow;
 
+import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Simulates an Android Cursor object, by wrapping a JDBC ResultSet.
@@ -111,15 +111,17 @@ public class ShadowSQLiteCursor extends ShadowAbstractWindowedCursor {
 
     @Implementation
     public void close() {
-        if (resultSet == null) {
+        if (mClosed) {
             return;
         }
+        mClosed = true;
 
         try {
-            resultSet.close();
+            if (resultSet != null) {
+                resultSet.close();
+            }
             resultSet = null;
-            rows = null;
-            currentRow = null;
+            window = null;
         } catch (SQLException e) {
             throw new RuntimeException("SQL exception in close", e);
         }
@@ -127,12 +129,12 @@ public class ShadowSQLiteCursor extends ShadowAbstractWindowedCursor {
 
     @Implementation
     public boolean isClosed() {
-        return (resultSet == null);
+        return mClosed;
     }
 
     /**
      * Allows test cases access to the underlying JDBC ResultSet, for use in
-     * assertions.
+     * assertions. Its rows have already been copied into the cursor, and it's closed once they have.
      *
      * @return the result set
      */
@@ -150,39 +152,33 @@ public class ShadowSQLiteCursor extends ShadowAbstractWindowedCursor {
         return resultSet;
     }
 
-    /**
-     * loads a row's values
-     *
-     * @param rs
-     * @return
-     * @throws SQLException
-     */
-    private Map<String, Object> fillRowValues(ResultSet rs) throws SQLException {
-        Map<String, Object> row = new HashMap<String, Object>();
-        for (String s : getColumnNames()) {
-            row.put(s, rs.getObject(s));
-        }
-        return row;
+    private void fillRows(String sql, Connection connection) throws SQLException {
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        fillRows(statement.executeQuery(sql));
     }
 
-    private void fillRows(String sql, Connection connection) throws SQLException {
+    private void fillRows(ResultSet rs) throws SQLException {
         //ResultSets in SQLite\Android are only TYPE_FORWARD_ONLY. Android caches results in the WindowedCursor to allow moveToPrevious() to function.
-        //Robolectric will have to cache the results too. In the rows map.
-        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-        ResultSet rs = statement.executeQuery(sql);
-        int count = 0;
+        //Robolectric will have to cache the results too, in the window.
+        int columnCount = columnNameArray.length;
+        window = new ColumnarCursorWindow(columnCount);
         if (rs.next()) {
             do {
-                Map<String, Object> row = fillRowValues(rs);
-                rows.put(count, row);
-                count++;
+                Object[] values = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    Object value = rs.getObject(i + 1);
+                    if (value instanceof Clob) {
+                        value = ((Clob) value).getSubString(1, (int) ((Clob) value).length());
+                    }
+                    values[i] = value;
+                }
+                window.addRow(values);
             } while (rs.next());
         } else {
             rs.close();
         }
 
-        rowCount = count;
-
+        rowCount = window.getRowCount();
     }
 
     public void setResultSet(ResultSet result, String sql) {
@@ -199,4 +195,23 @@ public class ShadowSQLiteCursor extends ShadowAbstractWindowedCursor {
             }
         }
     }
+
+    /**
+     * Caches all the rows of {@code result}, which must not have been read yet, without running its query again,
+     * and then closes it; its statement may be reused for another query as soon as this returns.
+     */
+    public void setResultSet(ResultSet result) {
+        this.resultSet = result;
+        rowCount = 0;
+
+        if (resultSet != null) {
+            cacheColumnNames(resultSet);
+            try {
+                fillRows(resultSet);
+                resultSet.close();
+            } catch (SQLException e) {
+                throw new RuntimeException("SQL exception in setResultSet", e);
+            }
+        }
+    }
 }
@@ -16,7 +16,10 @@ import org.robolectric.internal.Implementation;
 import org.robolectric.internal.Implements;
 import org.robolectric.internal.RealObject;
 import org.robolectric.util.DatabaseConfig;
+import org.robolectric.util.DatabaseConnectionPool;
+import org.robolectric.util.DatabaseSnapshot;
 import org.robolectric.util.SQLite.*;
+import org.robolectric.util.StatementCache;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -24,9 +27,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.locks.ReentrantLock;
@@ -39,6 +43,8 @@ import static org.robolectric.util.SQLite.*;
  * Shadow for {@code SQLiteDatabase} that simulates the movement of a {@code Cursor} through database tables.
  * Implemented as a wrapper around an embedded SQL database, accessed via JDBC.  The JDBC connection is
  * made available to test cases for use in fixture setup and assertions.
+ *
+ * Each database path gets its own connection from a {@link DatabaseConnectionPool}, which is emptied between tests.
  */
 @Implements(value = SQLiteDatabase.class, inheritImplementationMethods = true)
 public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
@@ -52,8 +58,12 @@ public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
 
     };
 
+    private static DatabaseConnectionPool connectionPool = new DatabaseConnectionPool();
+
     @RealObject	SQLiteDatabase realSQLiteDatabase;
-    private static Connection connection;
+    private DatabaseConnectionPool.PooledConnection pooledConnection;
+    private Connection connection;
+    private StatementCache statementCache;
     private final ReentrantLock mLock = new ReentrantLock(true);
     private boolean mLockingEnabled = true;
     private WeakHashMap<SQLiteClosable, Object> mPrograms;
@@ -81,10 +91,48 @@ public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
         this.throwOnInsert = throwOnInsert;
     }
 
+    public static void reset() {
+        connectionPool.closeAll();
+    }
+
+    public static DatabaseConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
     @Implementation
     public static SQLiteDatabase openDatabase(String path, SQLiteDatabase.CursorFactory factory, int flags) {
-        connection = DatabaseConfig.getMemoryConnection();
-        return newInstanceOf(SQLiteDatabase.class);
+        SQLiteDatabase database = newInstanceOf(SQLiteDatabase.class);
+        shadowOf(database).open(connectionPool.acquire(path));
+        return database;
+    }
+
+    private void open(DatabaseConnectionPool.PooledConnection pooledConnection) {
+        this.pooledConnection = pooledConnection;
+        this.connection = pooledConnection.getConnection();
+        this.statementCache = pooledConnection.getStatementCache();
+    }
+
+    @Implementation
+    public String getPath() {
+        return pooledConnection == null ? null : pooledConnection.getPath();
+    }
+
+    @Implementation
+    public int getVersion() {
+        try {
+            return pooledConnection.getVersion();
+        } catch (SQLException e) {
+            throw new RuntimeException("SQL exception in getVersion", e);
+        }
+    }
+
+    @Implementation
+    public void setVersion(int version) {
+        try {
+            pooledConnection.setVersion(version);
+        } catch (SQLException e) {
+            throw new RuntimeException("SQL exception in setVersion", e);
+        }
     }
 
     @Implementation
@@ -122,14 +170,8 @@ public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
                                      ContentValues initialValues, int conflictAlgorithm) throws android.database.SQLException {
 
         try {
-            SQLStringAndBindings sqlInsertString = buildInsertString(table, initialValues, conflictAlgorithm);
-            PreparedStatement insert = connection.prepareStatement(sqlInsertString.sql, Statement.RETURN_GENERATED_KEYS);
-            Iterator<Object> columns = sqlInsertString.columnValues.iterator();
-            int i = 1;
+            PreparedStatement insert = prepareInsert(table, initialValues, conflictAlgorithm);
             long result = -1;
-            while (columns.hasNext()) {
-                insert.setObject(i++, columns.next());
-            }
             insert.executeUpdate();
             ResultSet resultSet = insert.getGeneratedKeys();
             if (resultSet.next()) {
@@ -142,34 +184,131 @@ public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
         }
     }
 
+    /**
+     * Inserts all of {@code rows} into {@code table} using JDBC batches, in a single transaction unless one is
+     * already in progress. Much faster than calling {@link SQLiteDatabase#insert} in a loop for seeding large
+     * fixtures; row ids aren't returned.
+     *
+     * @return the number of rows inserted
+     */
+    public int bulkInsert(String table, ContentValues... rows) throws android.database.SQLException {
+        try {
+            boolean ownTransaction = connection.getAutoCommit();
+            if (ownTransaction) connection.setAutoCommit(false);
+            try {
+                int count = 0;
+                PreparedStatement batch = null;
+                for (ContentValues row : rows) {
+                    PreparedStatement insert = prepareInsert(table, row, SQLiteDatabase.CONFLICT_NONE);
+                    if (batch != null && batch != insert) {
+                        count += executeBatch(batch);
+                    }
+                    insert.addBatch();
+                    batch = insert;
+                }
+                if (batch != null) {
+                    count += executeBatch(batch);
+                }
+
+                if (ownTransaction) connection.commit();
+                return count;
+            } catch (SQLException e) {
+                if (ownTransaction) connection.rollback();
+                throw e;
+            } finally {
+                if (ownTransaction) connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new android.database.SQLException(e.getLocalizedMessage());
+        }
+    }
+
+    private int executeBatch(PreparedStatement batch) throws SQLException {
+        int count = 0;
+        for (int updateCount : batch.executeBatch()) {
+            count += updateCount == Statement.SUCCESS_NO_INFO ? 1 : updateCount;
+        }
+        return count;
+    }
+
+    private PreparedStatement prepareInsert(String table, ContentValues values, int conflictAlgorithm) throws SQLException {
+        List<String> columns = new ArrayList<String>(values.size());
+        List<Object> columnValues = new ArrayList<Object>(values.size());
+        for (Map.Entry<String, Object> entry : values.valueSet()) {
+            columns.add(entry.getKey());
+            columnValues.add(entry.getValue());
+        }
+
+        List<Object> key = Arrays.<Object>asList("insert", table, conflictAlgorithm, columns);
+        PreparedStatement insert = statementCache.get(key);
+        if (insert == null) {
+            String sql = buildInsertString(table, values, conflictAlgorithm).sql;
+            insert = statementCache.prepare(key, sql, Statement.RETURN_GENERATED_KEYS);
+        }
+        bind(insert, 1, columnValues);
+        return insert;
+    }
+
+    private static int bind(PreparedStatement statement, int index, List<Object> values) throws SQLException {
+        for (Object value : values) {
+            statement.setObject(index++, value);
+        }
+        return index;
+    }
+
+    private static int bind(PreparedStatement statement, int index, String[] args) throws SQLException {
+        if (args != null) {
+            for (String arg : args) {
+                statement.setString(index++, arg);
+            }
+        }
+        return index;
+    }
+
     @Implementation
     public Cursor query(boolean distinct, String table, String[] columns,
                         String selection, String[] selectionArgs, String groupBy,
                         String having, String orderBy, String limit) {
 
-        String where = selection;
         if (selection != null && selectionArgs != null) {
-            where = buildWhereClause(selection, selectionArgs);
+            checkBindArgs(selection, selectionArgs);
         }
 
         String sql = SQLiteQueryBuilder.buildQueryString(distinct, table,
-                columns, where, groupBy, having, orderBy, limit);
+                columns, selection, groupBy, having, orderBy, limit);
         querySql.add(sql);
 
         ResultSet resultSet;
         try {
-            Statement statement = connection.createStatement(DatabaseConfig.getResultSetType(), ResultSet.CONCUR_READ_ONLY);
-            resultSet = statement.executeQuery(sql);
+            resultSet = executeQuery(sql, selection == null ? null : selectionArgs);
         } catch (SQLException e) {
             throw new RuntimeException("SQL exception in query", e);
         }
 
         SQLiteCursor cursor = new SQLiteCursor(null, null, null, null);
-        shadowOf(cursor).setResultSet(resultSet, sql);
+        shadowOf(cursor).setResultSet(resultSet);
         cursors.add(cursor);
         return cursor;
     }
 
+    /**
+     * Runs {@code sql} with {@code args} bound to its placeholders, reusing the statement prepared the last time
+     * the same SQL was queried. Running it again closes the previous result set, which is fine because cursors copy
+     * all their rows out of the result set as soon as they're given it.
+     */
+    private ResultSet executeQuery(String sql, String[] args) throws SQLException {
+        String scrubbedSql = DatabaseConfig.getScrubSQL(sql);
+        int resultSetType = DatabaseConfig.getResultSetType();
+        List<Object> key = Arrays.<Object>asList("query", scrubbedSql, resultSetType);
+        PreparedStatement statement = statementCache.get(key);
+        if (statement == null) {
+            statement = statementCache.prepare(key, scrubbedSql, resultSetType, ResultSet.CONCUR_READ_ONLY);
+        }
+        statement.clearParameters();
+        bind(statement, 1, args);
+        return statement.executeQuery();
+    }
+
     @Implementation
     public Cursor query(String table, String[] columns, String selection,
                         String[] selectionArgs, String groupBy, String having,
@@ -186,15 +325,27 @@ public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
 
     @Implementation
     public int update(String table, ContentValues values, String whereClause, String[] whereArgs) {
-        SQLStringAndBindings sqlUpdateString = buildUpdateString(table, values, whereClause, whereArgs);
+        if (whereClause != null && whereArgs != null) {
+            checkBindArgs(whereClause, whereArgs);
+        }
+
+        List<String> columns = new ArrayList<String>(values.size());
+        List<Object> columnValues = new ArrayList<Object>(values.size());
+        for (Map.Entry<String, Object> entry : values.valueSet()) {
+            columns.add(entry.getKey());
+            columnValues.add(entry.getValue());
+        }
 
         try {
-            PreparedStatement statement = connection.prepareStatement(sqlUpdateString.sql);
-            Iterator<Object> columns = sqlUpdateString.columnValues.iterator();
-            int i = 1;
-            while (columns.hasNext()) {
-                statement.setObject(i++, columns.next());
+            List<Object> key = Arrays.<Object>asList("update", table, columns, whereClause);
+            PreparedStatement statement = statementCache.get(key);
+            if (statement == null) {
+                String sql = buildUpdateString(table, values, whereClause, null).sql;
+                statement = statementCache.prepare(key, sql, Statement.NO_GENERATED_KEYS);
             }
+            statement.clearParameters();
+            int index = bind(statement, 1, columnValues);
+            if (whereClause != null) bind(statement, index, whereArgs);
 
             return statement.executeUpdate();
         } catch (SQLException e) {
@@ -204,10 +355,21 @@ public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
 
     @Implementation
     public int delete(String table, String whereClause, String[] whereArgs) {
-        String sql = buildDeleteString(table, whereClause, whereArgs);
+        if (whereClause != null && whereArgs != null) {
+            checkBindArgs(whereClause, whereArgs);
+        }
 
         try {
-            return connection.prepareStatement(sql).executeUpdate();
+            List<Object> key = Arrays.<Object>asList("delete", table, whereClause);
+            PreparedStatement statement = statementCache.get(key);
+            if (statement == null) {
+                String sql = buildDeleteString(table, whereClause, null);
+                statement = statementCache.prepare(key, sql, Statement.NO_GENERATED_KEYS);
+            }
+            statement.clearParameters();
+            if (whereClause != null) bind(statement, 1, whereArgs);
+
+            return statement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("SQL exception in delete", e);
         }
@@ -264,9 +426,8 @@ public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
 
     @Implementation
     public Cursor rawQueryWithFactory (SQLiteDatabase.CursorFactory cursorFactory, String sql, String[] selectionArgs, String editTable) {
-        String sqlBody = sql;
         if (sql != null) {
-            sqlBody = buildWhereClause(sql, selectionArgs);
+            checkBindArgs(sql, selectionArgs);
         }
 
         if(cursorFactory == null){
@@ -275,22 +436,13 @@ public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
 
         ResultSet resultSet;
         try {
-            SQLiteStatement stmt = compileStatement(sql);
-            
-             int numArgs = selectionArgs == null ? 0
-                     : selectionArgs.length;
-             for (int i = 0; i < numArgs; i++) {
-                    stmt.bindString(i + 1, selectionArgs[i]);
-             }
-          
-              resultSet = Robolectric.shadowOf(stmt).getStatement().executeQuery();
-          } catch (SQLException e) {
-              throw new RuntimeException("SQL exception in query", e);
-          }
-          //TODO: assert rawquery with args returns actual values
-          
+            resultSet = executeQuery(sql, selectionArgs);
+        } catch (SQLException e) {
+            throw new RuntimeException("SQL exception in query", e);
+        }
+
         SQLiteCursor cursor = (SQLiteCursor) cursorFactory.newCursor(null, null, null, null);
-        shadowOf(cursor).setResultSet(resultSet, sqlBody);
+        shadowOf(cursor).setResultSet(resultSet);
         cursors.add(cursor);
         return cursor;
     }
@@ -305,12 +457,11 @@ public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
         if (!isOpen()) {
             return;
         }
-        try {
-            connection.close();
-            connection = null;
-        } catch (SQLException e) {
-            throw new RuntimeException("SQL exception in close", e);
-        }
+        DatabaseConnectionPool.PooledConnection toRelease = pooledConnection;
+        pooledConnection = null;
+        statementCache = null;
+        connection = null;
+        connectionPool.release(toRelease);
     }
 
     @Implementation
@@ -371,6 +522,33 @@ public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
         return transaction != null && transaction.success && transaction.descendantsSuccess;
     }
 
+    /**
+     * Captures this database's schema, contents and version, so that later tests can {@link #restoreSnapshot}
+     * them instead of building the same fixtures again. Keep the snapshot in a static field to share it.
+     */
+    public DatabaseSnapshot takeSnapshot() {
+        try {
+            return pooledConnection.takeSnapshot();
+        } catch (SQLException e) {
+            throw new RuntimeException("SQL exception in takeSnapshot", e);
+        }
+    }
+
+    /**
+     * Replaces everything in this database, and in any other open on the same path, with the contents of
+     * {@code snapshot}.
+     */
+    public void restoreSnapshot(DatabaseSnapshot snapshot) {
+        if (inTransaction()) {
+            throw new IllegalStateException("can't restore a snapshot during a transaction");
+        }
+        try {
+            pooledConnection.restore(snapshot);
+        } catch (SQLException e) {
+            throw new RuntimeException("SQL exception in restoreSnapshot", e);
+        }
+    }
+
     /**
      * Allows test cases access to the underlying JDBC connection, for use in
      * setup or assertions.
@@ -430,6 +608,15 @@ public class ShadowSQLiteDatabase extends ShadowSQLiteClosable {
         return querySql;
     }
 
+    /**
+     * Non-Android accessor.
+     *
+     * @return the prepared statements this database's connection reuses for queries, inserts, updates and deletes
+     */
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
     private static class Transaction {
         final Transaction parent;
         boolean success;
@@ -7,24 +7,40 @@ import android.database.sqlite.SQLiteOpenHelper;
 import org.robolectric.internal.Implementation;
 import org.robolectric.internal.Implements;
 import org.robolectric.internal.RealObject;
+import org.robolectric.util.DatabaseConfig;
+import org.robolectric.util.DatabaseConnectionPool;
+import org.robolectric.util.DatabaseSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.robolectric.Robolectric.shadowOf;
 
 /**
  * Shadow for {@code SQLiteOpenHelper}.  Provides basic support for retrieving
- * databases and partially implements the subclass contract.  (Currently,
- * support for {@code #onUpgrade} is missing).
+ * databases and partially implements the subclass contract.  Each helper opens
+ * the database with its name, so helpers with different names don't share
+ * tables; {@code #onCreate} is only called if the database hasn't been created
+ * yet, and {@code #onUpgrade} if it was created with an older version.
+ *
+ * With {@code -Drobolectric.sqlite.snapshotOnCreate=true}, the database built
+ * by the first {@code #onCreate} of each helper class, name and version is
+ * snapshotted, and later tests restore that snapshot instead of calling
+ * {@code #onCreate} again.
  */
 @Implements(SQLiteOpenHelper.class)
 public class ShadowSQLiteOpenHelper {
+    public static final String SNAPSHOT_ON_CREATE_PROPERTY = "robolectric.sqlite.snapshotOnCreate";
+    private static final Map<String, DatabaseSnapshot> snapshotsOnCreate = new HashMap<String, DatabaseSnapshot>();
+
     @RealObject private SQLiteOpenHelper realHelper;
-    private static SQLiteDatabase database;
+    private SQLiteDatabase database;
     private String name;
+    private int version;
 
     public void __constructor__(Context context, String name, CursorFactory factory, int version) {
         this.name = name;
-        if (database != null) {
-            database.close();
-        }
-        database = null;
+        this.version = version;
     }
 
     @Implementation
@@ -37,24 +53,46 @@ public class ShadowSQLiteOpenHelper {
 
     @Implementation
     public synchronized SQLiteDatabase getReadableDatabase() {
+        return getWritableDatabase();
+    }
+
+    @Implementation
+    public synchronized SQLiteDatabase getWritableDatabase() {
         if (database == null) {
-            database = SQLiteDatabase.openDatabase("path", null, 0);
-            realHelper.onCreate(database);
+            database = SQLiteDatabase.openDatabase(name == null ? DatabaseConnectionPool.MEMORY_DB_PATH : name, null, 0);
+
+            int currentVersion = database.getVersion();
+            if (currentVersion == 0) {
+                create(database);
+            } else if (currentVersion < version) {
+                realHelper.onUpgrade(database, currentVersion, version);
+                database.setVersion(version);
+            }
         }
 
         realHelper.onOpen(database);
         return database;
     }
 
-    @Implementation
-    public synchronized SQLiteDatabase getWritableDatabase() {
-        if (database == null) {
-            database = SQLiteDatabase.openDatabase("path", null, 0);
+    private void create(SQLiteDatabase database) {
+        if (!Boolean.getBoolean(SNAPSHOT_ON_CREATE_PROPERTY)) {
             realHelper.onCreate(database);
+            database.setVersion(version);
+            return;
         }
 
-        realHelper.onOpen(database);
-        return database;
+        String key = realHelper.getClass().getName() + "/" + name + "/" + version + "/"
+                + DatabaseConfig.getDatabaseMap().getClass().getName();
+        synchronized (snapshotsOnCreate) {
+            DatabaseSnapshot snapshot = snapshotsOnCreate.get(key);
+            if (snapshot != null) {
+                shadowOf(database).restoreSnapshot(snapshot);
+            } else {
+                realHelper.onCreate(database);
+                database.setVersion(version);
+                snapshotsOnCreate.put(key, shadowOf(database).takeSnapshot());
+            }
+        }
     }
 
     @Implementation
@@ -0,0 +1,323 @@
+package org.robolectric.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented row storage for cursor shadows. Each column keeps its values in one primitive array chosen by the
+ * first non-null value added to it (integers in a {@code long[]}, doubles in a {@code double[]}, floats in a
+ * {@code float[]}), strings are stored as indices into a dictionary shared by all columns, and nulls are tracked in
+ * a bitmap per column, so large cursors don't box every value.
+ *
+ * A column whose values turn out to have mixed types falls back to storing them as objects.
+ *
+ * Conversions between types follow Android's {@code MatrixCursor}: numbers are cast, anything else is parsed
+ * from its string form, and nulls read as zero.
+ */
+public class ColumnarCursorWindow {
+    private static final int EMPTY = 0;
+    private static final int LONG = 1;
+    private static final int DOUBLE = 2;
+    private static final int FLOAT = 3;
+    private static final int STRING = 4;
+    private static final int BLOB = 5;
+    private static final int OBJECT = 6;
+
+    private final Column[] columns;
+    private final Map<String, Integer> stringIndices = new HashMap<String, Integer>();
+    private final List<String> strings = new ArrayList<String>();
+    private int rowCount;
+    private int capacity;
+
+    public ColumnarCursorWindow(int columnCount) {
+        this(columnCount, 16);
+    }
+
+    public ColumnarCursorWindow(int columnCount, int initialCapacity) {
+        columns = new Column[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = new Column();
+        }
+        capacity = Math.max(initialCapacity, 1);
+    }
+
+    /**
+     * Adds a row. Missing trailing values are null; values beyond the last column are ignored.
+     */
+    public void addRow(Object[] values) {
+        if (rowCount == capacity) {
+            capacity *= 2;
+            for (Column column : columns) {
+                column.grow(capacity);
+            }
+        }
+
+        int row = rowCount++;
+        for (int i = 0; i < columns.length; i++) {
+            set(columns[i], row, values != null && i < values.length ? values[i] : null);
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @return the number of distinct strings stored
+     */
+    public int getStringCount() {
+        return strings.size();
+    }
+
+    public boolean isNull(int row, int column) {
+        return column(row, column).nulls.get(row);
+    }
+
+    /**
+     * @return the value, boxed; integers come back as {@code Long}s
+     */
+    public Object get(int row, int column) {
+        Column c = column(row, column);
+        return c.nulls.get(row) ? null : box(c, row);
+    }
+
+    public String getString(int row, int column) {
+        Column c = column(row, column);
+        if (c.nulls.get(row)) return null;
+        switch (c.kind) {
+            case LONG:
+                return Long.toString(c.longs[row]);
+            case DOUBLE:
+                return Double.toString(c.doubles[row]);
+            case FLOAT:
+                return Float.toString(c.floats[row]);
+            case STRING:
+                return strings.get(c.stringIndices[row]);
+            default:
+                return box(c, row).toString();
+        }
+    }
+
+    public long getLong(int row, int column) {
+        Column c = column(row, column);
+        if (c.nulls.get(row)) return 0;
+        switch (c.kind) {
+            case LONG:
+                return c.longs[row];
+            case DOUBLE:
+                return (long) c.doubles[row];
+            case FLOAT:
+                return (long) c.floats[row];
+            default:
+                Object value = box(c, row);
+                return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+        }
+    }
+
+    public int getInt(int row, int column) {
+        Column c = column(row, column);
+        if (c.kind == LONG || c.kind == DOUBLE || c.kind == FLOAT) {
+            return (int) getLong(row, column);
+        }
+        if (c.nulls.get(row)) return 0;
+        Object value = box(c, row);
+        return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString());
+    }
+
+    public short getShort(int row, int column) {
+        Column c = column(row, column);
+        if (c.kind == LONG || c.kind == DOUBLE || c.kind == FLOAT) {
+            return (short) getLong(row, column);
+        }
+        if (c.nulls.get(row)) return 0;
+        Object value = box(c, row);
+        return value instanceof Number ? ((Number) value).shortValue() : Short.parseShort(value.toString());
+    }
+
+    public double getDouble(int row, int column) {
+        Column c = column(row, column);
+        if (c.nulls.get(row)) return 0;
+        switch (c.kind) {
+            case LONG:
+                return c.longs[row];
+            case DOUBLE:
+                return c.doubles[row];
+            case FLOAT:
+                return c.floats[row];
+            default:
+                Object value = box(c, row);
+                return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
+        }
+    }
+
+    public float getFloat(int row, int column) {
+        Column c = column(row, column);
+        if (c.nulls.get(row)) return 0;
+        switch (c.kind) {
+            case LONG:
+                return c.longs[row];
+            case DOUBLE:
+                return (float) c.doubles[row];
+            case FLOAT:
+                return c.floats[row];
+            default:
+                Object value = box(c, row);
+                return value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(value.toString());
+        }
+    }
+
+    /**
+     * @throws ClassCastException if the value isn't a {@code byte[]}
+     */
+    public byte[] getBlob(int row, int column) {
+        Column c = column(row, column);
+        if (c.nulls.get(row)) return null;
+        return c.kind == BLOB ? c.blobs[row] : (byte[]) box(c, row);
+    }
+
+    private Column column(int row, int column) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + rowCount);
+        }
+        return columns[column];
+    }
+
+    private void set(Column column, int row, Object value) {
+        if (value == null) {
+            column.nulls.set(row);
+            return;
+        }
+
+        int kind = kindOf(value);
+        if (column.kind == EMPTY) {
+            column.allocate(kind, capacity);
+        } else if (column.kind != kind && column.kind != OBJECT) {
+            Object[] objects = new Object[capacity];
+            for (int i = 0; i < row; i++) {
+                if (!column.nulls.get(i)) objects[i] = box(column, i);
+            }
+            column.allocate(OBJECT, capacity);
+            column.objects = objects;
+        }
+
+        switch (column.kind) {
+            case LONG:
+                column.longs[row] = ((Number) value).longValue();
+                break;
+            case DOUBLE:
+                column.doubles[row] = (Double) value;
+                break;
+            case FLOAT:
+                column.floats[row] = (Float) value;
+                break;
+            case STRING:
+                column.stringIndices[row] = stringIndex((String) value);
+                break;
+            case BLOB:
+                column.blobs[row] = (byte[]) value;
+                break;
+            default:
+                column.objects[row] = value;
+        }
+    }
+
+    private int stringIndex(String value) {
+        Integer index = stringIndices.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            stringIndices.put(value, index);
+        }
+        return index;
+    }
+
+    private Object box(Column column, int row) {
+        switch (column.kind) {
+            case LONG:
+                return column.longs[row];
+            case DOUBLE:
+                return column.doubles[row];
+            case FLOAT:
+                return column.floats[row];
+            case STRING:
+                return strings.get(column.stringIndices[row]);
+            case BLOB:
+                return column.blobs[row];
+            default:
+                return column.objects[row];
+        }
+    }
+
+    private static int kindOf(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return LONG;
+        } else if (value instanceof Double) {
+            return DOUBLE;
+        } else if (value instanceof Float) {
+            return FLOAT;
+        } else if (value instanceof String) {
+            return STRING;
+        } else if (value instanceof byte[]) {
+            return BLOB;
+        } else {
+            return OBJECT;
+        }
+    }
+
+    private static class Column {
+        int kind = EMPTY;
+        final BitSet nulls = new BitSet();
+        long[] longs;
+        double[] doubles;
+        float[] floats;
+        int[] stringIndices;
+        byte[][] blobs;
+        Object[] objects;
+
+        void allocate(int kind, int capacity) {
+            this.kind = kind;
+            longs = null;
+            doubles = null;
+            floats = null;
+            stringIndices = null;
+            blobs = null;
+            objects = null;
+            switch (kind) {
+                case LONG:
+                    longs = new long[capacity];
+                    break;
+                case DOUBLE:
+                    doubles = new double[capacity];
+                    break;
+                case FLOAT:
+                    floats = new float[capacity];
+                    break;
+                case STRING:
+                    stringIndices = new int[capacity];
+                    break;
+                case BLOB:
+                    blobs = new byte[capacity][];
+                    break;
+                default:
+                    objects = new Object[capacity];
+            }
+        }
+
+        void grow(int capacity) {
+            if (longs != null) longs = Arrays.copyOf(longs, capacity);
+            if (doubles != null) doubles = Arrays.copyOf(doubles, capacity);
+            if (floats != null) floats = Arrays.copyOf(floats, capacity);
+            if (stringIndices != null) stringIndices = Arrays.copyOf(stringIndices, capacity);
+            if (blobs != null) blobs = Arrays.copyOf(blobs, capacity);
+            if (objects != null) objects = Arrays.copyOf(objects, capacity);
+        }
+    }
+}
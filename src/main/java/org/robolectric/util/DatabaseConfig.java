@@ -1,5 +1,6 @@
 package org.robolectric.util;
 
+import java.io.File;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
@@ -72,6 +73,24 @@ public class DatabaseConfig {
         }
     }
 
+    /**
+     * Gets a connection to a database stored in {@code file}, creating it if necessary.  Will load DB Driver if not
+     * already loaded.
+     *
+     * @return Connection to the file-backed database.
+     */
+    public static Connection getFileConnection(File file) {
+        if (!isMapLoaded()) LoadSQLiteDriver();
+        if (!(dbMap instanceof FileBackedDatabaseMap)) {
+            throw new UnsupportedOperationException("Error in DatabaseConfig: " + dbMap.getClass().getName() + " doesn't support file-backed databases.");
+        }
+        try {
+            return DriverManager.getConnection(((FileBackedDatabaseMap) dbMap).getConnectionString(file));
+        } catch (SQLException e) {
+            throw new CannotLoadDatabaseMapDriverException("Error in DatabaseConfig, could not retrieve connection to database in " + file + ".", e);
+        }
+    }
+
     /**
      * Makes any edits necessary in the SQL string for it to be compatible with the database in use.
      *
@@ -105,6 +124,25 @@ public class DatabaseConfig {
         int getResultSetType();
     }
 
+    /**
+     * A {@link DatabaseMap} that can also keep databases in files.
+     */
+    public interface FileBackedDatabaseMap extends DatabaseMap {
+        String getConnectionString(File file);
+    }
+
+    /**
+     * A {@link DatabaseMap} that can copy a whole database to and from a file, for {@link DatabaseSnapshot}s.
+     */
+    public interface SnapshottingDatabaseMap extends DatabaseMap {
+        void backup(Connection connection, File image) throws SQLException;
+
+        /**
+         * Replaces all of the database's contents with those in {@code image}.
+         */
+        void restore(Connection connection, File image) throws SQLException;
+    }
+
     public static class NullDatabaseMapException extends RuntimeException {
         private static final long serialVersionUID = -4580960157495617424L;
 
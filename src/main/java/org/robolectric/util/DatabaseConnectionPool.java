@@ -0,0 +1,191 @@
+package org.robolectric.util;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out one JDBC connection per database path, so that several databases can be open at once without sharing
+ * tables, and several {@code SQLiteDatabase}s opened on the same path see the same data, as on a device.
+ *
+ * Connections to named databases stay open, and so keep their contents, until {@link #closeAll()} is called at the
+ * end of the test; connections to unnamed (in-memory) databases are closed as soon as they're released.
+ *
+ * If the system property {@value #FILE_BACKED_DIRECTORY_PROPERTY} names a directory (ideally on tmpfs, e.g.
+ * {@code /dev/shm/robolectric-db}) and the current {@link DatabaseConfig.DatabaseMap} supports it, named
+ * databases are stored in files there instead. Those outlive the test, so a helper whose schema version is already
+ * current skips {@code onCreate} and large fixtures only need to be built once.
+ */
+public class DatabaseConnectionPool {
+    public static final String FILE_BACKED_DIRECTORY_PROPERTY = "robolectric.sqlite.dir";
+    public static final String MEMORY_DB_PATH = ":memory:";
+
+    private final File fileBackedDirectory;
+    private final Map<String, PooledConnection> connections = new HashMap<String, PooledConnection>(); // @GuardedBy("this")
+
+    public DatabaseConnectionPool() {
+        this(directoryFromSystemProperties());
+    }
+
+    /**
+     * @param fileBackedDirectory where to keep named databases, or null to keep them all in memory
+     */
+    public DatabaseConnectionPool(File fileBackedDirectory) {
+        this.fileBackedDirectory = fileBackedDirectory;
+    }
+
+    private static File directoryFromSystemProperties() {
+        String path = System.getProperty(FILE_BACKED_DIRECTORY_PROPERTY);
+        return path == null ? null : new File(path);
+    }
+
+    /**
+     * @param path the database path or name; null or {@value #MEMORY_DB_PATH} for a private in-memory database
+     */
+    public synchronized PooledConnection acquire(String path) {
+        if (path == null || MEMORY_DB_PATH.equals(path)) {
+            PooledConnection pooledConnection = new PooledConnection(MEMORY_DB_PATH, DatabaseConfig.getMemoryConnection(), false, false);
+            pooledConnection.references++;
+            return pooledConnection;
+        }
+
+        PooledConnection pooledConnection = connections.get(path);
+        if (pooledConnection == null) {
+            pooledConnection = connect(path);
+            connections.put(path, pooledConnection);
+        }
+        pooledConnection.references++;
+        return pooledConnection;
+    }
+
+    public synchronized void release(PooledConnection pooledConnection) {
+        pooledConnection.references--;
+        if (pooledConnection.references == 0 && !pooledConnection.shared) {
+            pooledConnection.close();
+        }
+    }
+
+    /**
+     * Closes every connection, in use or not. Named in-memory databases are lost; file-backed ones are kept.
+     */
+    public synchronized void closeAll() {
+        List<PooledConnection> toClose = new ArrayList<PooledConnection>(connections.values());
+        connections.clear();
+        for (PooledConnection pooledConnection : toClose) {
+            pooledConnection.close();
+        }
+    }
+
+    public synchronized int size() {
+        return connections.size();
+    }
+
+    private PooledConnection connect(String path) {
+        if (fileBackedDirectory != null && DatabaseConfig.getDatabaseMap() instanceof DatabaseConfig.FileBackedDatabaseMap) {
+            fileBackedDirectory.mkdirs();
+            File file = new File(fileBackedDirectory, fileNameFor(path));
+            return new PooledConnection(path, DatabaseConfig.getFileConnection(file), true, true);
+        }
+        return new PooledConnection(path, DatabaseConfig.getMemoryConnection(), true, false);
+    }
+
+    static String fileNameFor(String path) {
+        return path.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * A connection to one database, with the prepared statements cached against it.
+     */
+    public static class PooledConnection {
+        private final String path;
+        private final Connection connection;
+        private final StatementCache statementCache;
+        private final boolean shared;
+        private final boolean fileBacked;
+        private int references; // @GuardedBy("DatabaseConnectionPool.this")
+        private int version;
+
+        PooledConnection(String path, Connection connection, boolean shared, boolean fileBacked) {
+            this.path = path;
+            this.connection = connection;
+            this.statementCache = new StatementCache(connection);
+            this.shared = shared;
+            this.fileBacked = fileBacked;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        public StatementCache getStatementCache() {
+            return statementCache;
+        }
+
+        public boolean isFileBacked() {
+            return fileBacked;
+        }
+
+        /**
+         * The schema version, as maintained by {@code SQLiteOpenHelper}. File-backed databases keep it in the
+         * file (as SQLite's {@code user_version}), so it survives the end of the test along with the data.
+         */
+        public synchronized int getVersion() throws SQLException {
+            if (!fileBacked) return version;
+
+            Statement statement = connection.createStatement();
+            try {
+                ResultSet resultSet = statement.executeQuery("PRAGMA user_version");
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            } finally {
+                statement.close();
+            }
+        }
+
+        public synchronized void setVersion(int version) throws SQLException {
+            if (!fileBacked) {
+                this.version = version;
+                return;
+            }
+
+            Statement statement = connection.createStatement();
+            try {
+                statement.execute("PRAGMA user_version = " + version);
+            } finally {
+                statement.close();
+            }
+        }
+
+        public synchronized DatabaseSnapshot takeSnapshot() throws SQLException {
+            return DatabaseSnapshot.take(connection, getVersion());
+        }
+
+        /**
+         * Replaces this database's schema, contents and version with those in {@code snapshot}.
+         */
+        public synchronized void restore(DatabaseSnapshot snapshot) throws SQLException {
+            // cached statements may refer to tables that are about to be replaced
+            statementCache.close();
+            snapshot.restore(connection);
+            setVersion(snapshot.getVersion());
+        }
+
+        void close() {
+            statementCache.close();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                throw new RuntimeException("SQL exception in close", e);
+            }
+        }
+    }
+}
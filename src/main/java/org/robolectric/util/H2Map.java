@@ -1,12 +1,15 @@
 package org.robolectric.util;
 
+import java.io.File;
+import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 
-public class H2Map implements DatabaseConfig.DatabaseMap {
+public class H2Map implements DatabaseConfig.SnapshottingDatabaseMap {
 
     @Override
     public String getDriverClassName() {
@@ -72,4 +75,27 @@ public class H2Map implements DatabaseConfig.DatabaseMap {
         return ResultSet.TYPE_SCROLL_INSENSITIVE;
     }
 
+    /**
+     * H2 has no page-level backup for in-memory databases, so the image is the SQL script from {@code SCRIPT TO}.
+     */
+    @Override
+    public void backup(Connection connection, File image) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("SCRIPT TO '" + image.getAbsolutePath().replace("'", "''") + "'");
+        } finally {
+            statement.close();
+        }
+    }
+
+    @Override
+    public void restore(Connection connection, File image) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM '" + image.getAbsolutePath().replace("'", "''") + "'");
+        } finally {
+            statement.close();
+        }
+    }
 }
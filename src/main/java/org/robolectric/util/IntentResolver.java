@@ -0,0 +1,139 @@
+package org.robolectric.util;
+
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the values registered with {@link IntentFilter}s that match an {@link Intent}, after the framework's
+ * {@code com.android.server.IntentResolver}. Filters are indexed by action, so a query only looks at the filters
+ * that declare the intent's action; those are then checked against the intent's categories, data scheme and MIME
+ * type using sets built when the filter was added.
+ *
+ * As Robolectric always has, a filter that declares no schemes or types accepts intents with any data. Filters are
+ * read when they're added, so changes made to one afterwards aren't seen.
+ *
+ * @param <T> what's registered with each filter, e.g. a receiver
+ */
+public class IntentResolver<T> {
+    private final Map<String, List<Entry<T>>> entriesByAction = new HashMap<String, List<Entry<T>>>();
+    private int size;
+
+    public void add(IntentFilter filter, T value) {
+        Entry<T> entry = new Entry<T>(filter, value);
+        for (String action : entry.actions) {
+            List<Entry<T>> entries = entriesByAction.get(action);
+            if (entries == null) {
+                entries = new ArrayList<Entry<T>>();
+                entriesByAction.put(action, entries);
+            }
+            entries.add(entry);
+        }
+        size++;
+    }
+
+    /**
+     * Removes every registration of {@code value}.
+     *
+     * @return true if it was registered
+     */
+    public boolean remove(T value) {
+        Set<Entry<T>> removed = new HashSet<Entry<T>>();
+        for (Iterator<List<Entry<T>>> lists = entriesByAction.values().iterator(); lists.hasNext(); ) {
+            List<Entry<T>> entries = lists.next();
+            for (Iterator<Entry<T>> iterator = entries.iterator(); iterator.hasNext(); ) {
+                Entry<T> entry = iterator.next();
+                if (entry.value == value) {
+                    iterator.remove();
+                    removed.add(entry);
+                }
+            }
+            if (entries.isEmpty()) lists.remove();
+        }
+        size -= removed.size();
+        return !removed.isEmpty();
+    }
+
+    public void clear() {
+        entriesByAction.clear();
+        size = 0;
+    }
+
+    /**
+     * @return the number of registrations
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the values whose filters match {@code intent}, in the order they were added
+     */
+    public List<T> query(Intent intent) {
+        List<T> values = new ArrayList<T>();
+        List<Entry<T>> candidates = entriesByAction.get(intent.getAction());
+        if (candidates == null) return values;
+
+        Set<String> categories = intent.getCategories();
+        Uri data = intent.getData();
+        String scheme = data == null ? null : data.getScheme();
+        String type = intent.getType();
+        for (Entry<T> entry : candidates) {
+            if (entry.matches(categories, scheme, type)) values.add(entry.value);
+        }
+        return values;
+    }
+
+    /**
+     * @return true if any filter matches {@code intent}
+     */
+    public boolean hasMatch(Intent intent) {
+        return !query(intent).isEmpty();
+    }
+
+    private static class Entry<T> {
+        final T value;
+        final Set<String> actions = new HashSet<String>();
+        final Set<String> categories = new HashSet<String>();
+        final Set<String> schemes = new HashSet<String>();
+        final Set<String> types = new HashSet<String>();
+
+        Entry(IntentFilter filter, T value) {
+            this.value = value;
+            for (int i = 0; i < filter.countActions(); i++) {
+                actions.add(filter.getAction(i));
+            }
+            for (int i = 0; i < filter.countCategories(); i++) {
+                categories.add(filter.getCategory(i));
+            }
+            for (int i = 0; i < filter.countDataSchemes(); i++) {
+                schemes.add(filter.getDataScheme(i));
+            }
+            for (int i = 0; i < filter.countDataTypes(); i++) {
+                types.add(filter.getDataType(i));
+            }
+        }
+
+        boolean matches(Set<String> intentCategories, String scheme, String type) {
+            if (intentCategories != null && !categories.containsAll(intentCategories)) return false;
+            if (!schemes.isEmpty() && !schemes.contains(scheme)) return false;
+            return types.isEmpty() || matchesType(type);
+        }
+
+        private boolean matchesType(String type) {
+            if (type == null) return false;
+            if (types.contains(type) || types.contains("*/*") || types.contains("*")) return true;
+
+            int slash = type.indexOf('/');
+            return slash > 0 && types.contains(type.substring(0, slash) + "/*");
+        }
+    }
+}
@@ -111,12 +111,30 @@ public class SQLite {
      * @return where clause
      */
     public static String buildWhereClause(String selection, String[] selectionArgs) throws SQLiteException {
+        checkBindArgs(selection, selectionArgs);
+
         String whereClause = selection;
+        if (selectionArgs != null) {
+            for (String selectionArg : selectionArgs) {
+                whereClause = whereClause.replaceFirst("\\?", "'" + selectionArg + "'");
+            }
+        }
+        return whereClause;
+    }
+
+    /**
+     * Checks that {@code selectionArgs} has one non-null value for each '?' placeholder in {@code selection}, as
+     * required before binding them.
+     *
+     * @param selection     SQL where clause fragment
+     * @param selectionArgs Array of substitutions for args in selection
+     */
+    public static void checkBindArgs(String selection, String[] selectionArgs) throws SQLiteException {
         int argsNeeded = 0;
         int args = 0;
 
-        for (char c : selection.toCharArray()) {
-            if (c == '?') argsNeeded++;
+        for (int i = 0; i < selection.length(); i++) {
+            if (selection.charAt(i) == '?') argsNeeded++;
         }
         if (selectionArgs != null) {
             for (int x = 0; x < selectionArgs.length; x++) {
@@ -125,14 +143,11 @@ public class SQLite {
                 } else {
                     args++;
                 }
-                whereClause = whereClause.replaceFirst("\\?", "'" + selectionArgs[x] + "'");
             }
         }
         if (argsNeeded != args) {
             throw new SQLiteException("bind or column index out of range: count of selectionArgs does not match count of (?) placeholders for given sql statement!");
         }
-
-        return whereClause;
     }
 
    /**
@@ -1,8 +1,12 @@
 package org.robolectric.util;
 
+import java.io.File;
+import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 
-public class SQLiteMap implements DatabaseConfig.DatabaseMap {
+public class SQLiteMap implements DatabaseConfig.FileBackedDatabaseMap, DatabaseConfig.SnapshottingDatabaseMap {
 
     public String getDriverClassName() {
         return "org.sqlite.JDBC";
@@ -12,6 +16,10 @@ public class SQLiteMap implements DatabaseConfig.DatabaseMap {
         return "jdbc:sqlite::memory:";
     }
 
+    public String getConnectionString(File file) {
+        return "jdbc:sqlite:" + file.getAbsolutePath();
+    }
+
     public String getScrubSQL(String sql) {
         return sql;
     }
@@ -23,4 +31,36 @@ public class SQLiteMap implements DatabaseConfig.DatabaseMap {
     public int getResultSetType() {
         return ResultSet.TYPE_FORWARD_ONLY;
     }
+
+    /**
+     * Uses the SQLite online backup API, via the driver's {@code backup to} command.
+     */
+    public void backup(Connection connection, File image) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.executeUpdate("backup to " + quote(image));
+        } finally {
+            statement.close();
+        }
+    }
+
+    public void restore(Connection connection, File image) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.executeUpdate("restore from " + quote(image));
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * The driver splits {@code backup} and {@code restore} commands on whitespace unless the file name is quoted, and
+     * has no way to escape a quote inside one, so use whichever kind of quote the path doesn't contain.
+     */
+    private static String quote(File image) throws SQLException {
+        String path = image.getAbsolutePath();
+        if (path.indexOf('"') == -1) return '"' + path + '"';
+        if (path.indexOf('\'') == -1) return '\'' + path + '\'';
+        throw new SQLException("can't quote " + path + " for the SQLite driver");
+    }
 }
@@ -0,0 +1,108 @@
+package org.robolectric.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of {@link PreparedStatement}s for a single JDBC connection, so that repeated queries,
+ * inserts, updates and deletes with the same shape don't rebuild their SQL or re-prepare it every time.
+ *
+ * Statements evicted from the cache, and all statements on {@link #close()}, are closed.
+ */
+public class StatementCache {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Connection connection;
+    private final LinkedHashMap<Object, PreparedStatement> statements;
+    private int hits;
+    private int misses;
+
+    public StatementCache(Connection connection) {
+        this(connection, DEFAULT_CAPACITY);
+    }
+
+    public StatementCache(Connection connection, final int capacity) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<Object, PreparedStatement>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<Object, PreparedStatement> eldest) {
+                if (size() <= capacity) return false;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param key identifies the shape of the statement, e.g. table, columns and conflict algorithm; must have
+     *     value semantics
+     * @return the cached statement for {@code key}, or null; its parameters still hold whatever was bound last,
+     *     since clearing them also discards any pending batch
+     */
+    public synchronized PreparedStatement get(Object key) {
+        PreparedStatement statement = statements.get(key);
+        if (statement == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return statement;
+    }
+
+    /**
+     * Prepares {@code sql} and caches it under {@code key}.
+     *
+     * @param autoGeneratedKeys as for {@link Connection#prepareStatement(String, int)}
+     */
+    public synchronized PreparedStatement prepare(Object key, String sql, int autoGeneratedKeys) throws SQLException {
+        return put(key, connection.prepareStatement(sql, autoGeneratedKeys));
+    }
+
+    /**
+     * Prepares {@code sql}, a query, and caches it under {@code key}.
+     *
+     * @param resultSetType as for {@link Connection#prepareStatement(String, int, int)}
+     * @param resultSetConcurrency ditto
+     */
+    public synchronized PreparedStatement prepare(Object key, String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return put(key, connection.prepareStatement(sql, resultSetType, resultSetConcurrency));
+    }
+
+    private PreparedStatement put(Object key, PreparedStatement statement) {
+        PreparedStatement previous = statements.put(key, statement);
+        if (previous != null) closeQuietly(previous);
+        return statement;
+    }
+
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    public synchronized int getHitCount() {
+        return hits;
+    }
+
+    public synchronized int getMissCount() {
+        return misses;
+    }
+
+    public synchronized void close() {
+        List<PreparedStatement> toClose = new ArrayList<PreparedStatement>(statements.values());
+        statements.clear();
+        for (PreparedStatement statement : toClose) {
+            closeQuietly(statement);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
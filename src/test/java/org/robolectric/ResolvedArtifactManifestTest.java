@@ -0,0 +1,127 @@
+package org.robolectric;
+
+import org.apache.maven.model.Dependency;
+import org.junit.Rule;
+import org.junit.Test;
+import org.robolectric.test.TemporaryFolder;
+import org.robolectric.util.Util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class ResolvedArtifactManifestTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final SdkConfig sdkConfig = new SdkConfig("4.1.2_r1_rc");
+
+    @Test
+    public void shouldRememberResolvedArtifactsAcrossInstances() throws Exception {
+        File manifestFile = new File(temporaryFolder.getRoot(), "manifest.properties");
+        File jar = temporaryFolder.newFile("android-res.jar", "jar contents");
+        Dependency dependency = sdkConfig.getSystemResourceDependency();
+
+        new ResolvedArtifactManifest(manifestFile).record(artifacts("org.robolectric:android-res:jar:real", jar), dependency);
+
+        Map<String, URL> urls = new ResolvedArtifactManifest(manifestFile).lookUp(dependency);
+        assertThat(urls).isEqualTo(artifacts("org.robolectric:android-res:jar:real", jar));
+    }
+
+    @Test
+    public void shouldNotReturnAnythingForDifferentDependencies() throws Exception {
+        ResolvedArtifactManifest manifest = new ResolvedArtifactManifest(new File(temporaryFolder.getRoot(), "manifest.properties"));
+        File jar = temporaryFolder.newFile("android-res.jar", "jar contents");
+        manifest.record(artifacts("org.robolectric:android-res:jar:real", jar), sdkConfig.getSystemResourceDependency());
+
+        assertThat(manifest.lookUp(sdkConfig.realAndroidDependency("android-base"))).isNull();
+        assertThat(manifest.lookUp(new SdkConfig("other").getSystemResourceDependency())).isNull();
+    }
+
+    @Test
+    public void shouldNotTrustChangedOrMissingJars() throws Exception {
+        ResolvedArtifactManifest manifest = new ResolvedArtifactManifest(new File(temporaryFolder.getRoot(), "manifest.properties"));
+        File jar = temporaryFolder.newFile("android-res.jar", "jar contents");
+        Dependency dependency = sdkConfig.getSystemResourceDependency();
+        manifest.record(artifacts("org.robolectric:android-res:jar:real", jar), dependency);
+
+        jar.delete();
+        assertThat(manifest.lookUp(dependency)).isNull();
+    }
+
+    @Test
+    public void shouldCheckContentsOfJarsWhoseModificationTimeChanged() throws Exception {
+        ResolvedArtifactManifest manifest = new ResolvedArtifactManifest(new File(temporaryFolder.getRoot(), "manifest.properties"));
+        File jar = temporaryFolder.newFile("android-res.jar", "jar contents");
+        Dependency dependency = sdkConfig.getSystemResourceDependency();
+        manifest.record(artifacts("org.robolectric:android-res:jar:real", jar), dependency);
+
+        jar.setLastModified(jar.lastModified() - 10000);
+        assertThat(manifest.lookUp(dependency)).isNotNull();
+
+        temporaryFolder.newFile("android-res.jar", "JAR CONTENTS");
+        jar.setLastModified(jar.lastModified() - 20000);
+        assertThat(manifest.lookUp(dependency)).isNull();
+    }
+
+    @Test
+    public void shouldKeepEntriesRecordedByOtherInstances() throws Exception {
+        File manifestFile = new File(temporaryFolder.getRoot(), "manifest.properties");
+        ResolvedArtifactManifest first = new ResolvedArtifactManifest(manifestFile);
+        ResolvedArtifactManifest second = new ResolvedArtifactManifest(manifestFile);
+        first.lookUp(sdkConfig.getSystemResourceDependency());
+        second.lookUp(sdkConfig.getSystemResourceDependency());
+
+        File resJar = temporaryFolder.newFile("android-res.jar", "res contents");
+        File baseJar = temporaryFolder.newFile("android-base.jar", "base contents");
+        first.record(artifacts("org.robolectric:android-res:jar:real", resJar), sdkConfig.getSystemResourceDependency());
+        second.record(artifacts("org.robolectric:android-base:jar:real", baseJar), sdkConfig.realAndroidDependency("android-base"));
+
+        ResolvedArtifactManifest reread = new ResolvedArtifactManifest(manifestFile);
+        assertThat(reread.lookUp(sdkConfig.getSystemResourceDependency())).isNotNull();
+        assertThat(reread.lookUp(sdkConfig.realAndroidDependency("android-base"))).isNotNull();
+    }
+
+    @Test
+    public void shouldTreatCorruptEntriesAsMisses() throws Exception {
+        File manifestFile = temporaryFolder.newFile("manifest.properties");
+        Dependency dependency = sdkConfig.getSystemResourceDependency();
+        String key = ResolvedArtifactManifest.requestKey(dependency) + "|org.robolectric:android-res:jar:real";
+        FileOutputStream out = new FileOutputStream(manifestFile);
+        Properties properties = new Properties();
+        properties.setProperty(key, "/some/android-res.jar|not-a-size|0|da39a3ee");
+        properties.store(out, null);
+        out.close();
+
+        assertThat(new ResolvedArtifactManifest(manifestFile).lookUp(dependency)).isNull();
+    }
+
+    @Test
+    public void shouldFindJarsInDirectoriesWithSpaces() throws Exception {
+        ResolvedArtifactManifest manifest = new ResolvedArtifactManifest(new File(temporaryFolder.getRoot(), "manifest.properties"));
+        File jar = temporaryFolder.newFile("local repo/android-res.jar", "jar contents");
+        Dependency dependency = sdkConfig.getSystemResourceDependency();
+        Map<String, URL> urls = new HashMap<String, URL>();
+        urls.put("org.robolectric:android-res:jar:real", jar.toURI().toURL());
+        manifest.record(urls, dependency);
+
+        assertThat(manifest.lookUp(dependency)).isNotNull();
+    }
+
+    @Test
+    public void requestKeyShouldNotDependOnDependencyOrder() throws Exception {
+        Dependency a = sdkConfig.realAndroidDependency("android-base");
+        Dependency b = sdkConfig.realAndroidDependency("android-luni");
+        assertThat(ResolvedArtifactManifest.requestKey(a, b)).isEqualTo(ResolvedArtifactManifest.requestKey(b, a));
+    }
+
+    private static Map<String, URL> artifacts(String key, File jar) throws Exception {
+        Map<String, URL> urls = new HashMap<String, URL>();
+        urls.put(key, Util.url(jar.getPath()));
+        return urls;
+    }
+}
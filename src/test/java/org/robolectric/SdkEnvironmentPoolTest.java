@@ -0,0 +1,51 @@
+package org.robolectric;
+
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class SdkEnvironmentPoolTest {
+    private final SdkConfig sdkConfig = new SdkConfig("4.1.2_r1_rc");
+
+    @Test
+    public void shouldShareEnvironmentsForEqualKeys() throws Exception {
+        SdkEnvironmentPool pool = new SdkEnvironmentPool(SdkEnvironmentPool.Retention.STRONG, 0);
+        SdkEnvironment first = pool.getSdkEnvironment(new SdkEnvironmentPool.Key(sdkConfig, "setup"), new Factory());
+        SdkEnvironment second = pool.getSdkEnvironment(new SdkEnvironmentPool.Key(new SdkConfig("4.1.2_r1_rc"), "setup"), new Factory());
+
+        assertThat(second).isSameAs(first);
+        assertThat(pool.getBuildCount()).isEqualTo(1);
+        assertThat(pool.getReuseCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldBuildSeparateEnvironmentsForDifferentSetups() throws Exception {
+        SdkEnvironmentPool pool = new SdkEnvironmentPool(SdkEnvironmentPool.Retention.STRONG, 0);
+        SdkEnvironment first = pool.getSdkEnvironment(new SdkEnvironmentPool.Key(sdkConfig, "setup"), new Factory());
+        SdkEnvironment second = pool.getSdkEnvironment(new SdkEnvironmentPool.Key(sdkConfig, "other-setup"), new Factory());
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(pool.getBuildCount()).isEqualTo(2);
+        assertThat(pool.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEnvironmentsBeyondMaxCount() throws Exception {
+        SdkEnvironmentPool pool = new SdkEnvironmentPool(SdkEnvironmentPool.Retention.STRONG, 1);
+        SdkEnvironmentPool.Key a = new SdkEnvironmentPool.Key(sdkConfig, "a");
+        SdkEnvironmentPool.Key b = new SdkEnvironmentPool.Key(sdkConfig, "b");
+        pool.getSdkEnvironment(a, new Factory());
+        pool.getSdkEnvironment(b, new Factory());
+        pool.getSdkEnvironment(a, new Factory());
+
+        assertThat(pool.getBuildCount()).isEqualTo(3);
+        assertThat(pool.getEvictionCount()).isEqualTo(2);
+        assertThat(pool.size()).isEqualTo(1);
+    }
+
+    private class Factory implements SdkEnvironment.Factory {
+        @Override public SdkEnvironment create() {
+            return new SdkEnvironment(sdkConfig, getClass().getClassLoader());
+        }
+    }
+}
@@ -1,9 +1,23 @@
 package org.robolectric.bytecode;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.robolectric.bytecode.testing.AChild;
+import org.robolectric.bytecode.testing.AGrandparent;
+import org.robolectric.bytecode.testing.AParent;
+import org.robolectric.test.TemporaryFolder;
 import org.robolectric.util.Transcript;
 
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
 public class AsmInstrumentingClassLoaderTest extends InstrumentingClassLoaderTestBase {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     protected ClassLoader createClassLoader(Setup setup) throws ClassNotFoundException {
         return new AsmInstrumentingClassLoader(setup);
     }
@@ -32,4 +46,21 @@ public class AsmInstrumentingClassLoaderTest extends InstrumentingClassLoaderTes
 
         transcript.assertEventsSoFar("find foo.AClass");
     }
+
+    @Test public void warmUpShouldDefineProfiledClassesAndKeepThemInTheProfile() throws Exception {
+        File file = temporaryFolder.newFile("profile.txt",
+                AChild.class.getName() + "\norg.robolectric.bytecode.testing.NoSuchClass\n");
+        ClassLoadProfile profile = new ClassLoadProfile(file);
+        AsmInstrumentingClassLoader classLoader = new AsmInstrumentingClassLoader(new Setup());
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        classLoader.warmUp(profile, executorService);
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(profile.getLoadedClasses())
+                .containsOnly(AChild.class.getName(), AParent.class.getName(), AGrandparent.class.getName());
+        assertThat(classLoader.loadClass(AChild.class.getName()).getClassLoader()).isSameAs(classLoader);
+        assertThat(profile.getLoadedClasses()).hasSize(3);
+    }
 }
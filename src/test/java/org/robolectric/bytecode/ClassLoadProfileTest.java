@@ -0,0 +1,57 @@
+package org.robolectric.bytecode;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.robolectric.test.TemporaryFolder;
+
+import java.io.File;
+
+import static java.util.Arrays.asList;
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class ClassLoadProfileTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadPreviouslyRecordedClassesInOrder() throws Exception {
+        File file = temporaryFolder.newFile("profile.txt", "android.app.Activity\nandroid.view.View\n\n");
+        ClassLoadProfile profile = new ClassLoadProfile(file);
+        assertThat(profile.getPreviouslyLoadedClasses()).isEqualTo(asList("android.app.Activity", "android.view.View"));
+    }
+
+    @Test
+    public void shouldStartEmptyWhenThereIsNoProfile() throws Exception {
+        ClassLoadProfile profile = new ClassLoadProfile(new File(temporaryFolder.getRoot(), "missing.txt"));
+        assertThat(profile.getPreviouslyLoadedClasses()).isEmpty();
+    }
+
+    @Test
+    public void shouldSaveRecordedClassesOnceEachInLoadOrder() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "sub/profile.txt");
+        ClassLoadProfile profile = new ClassLoadProfile(file);
+        profile.recordLoad("android.view.View");
+        profile.recordLoad("android.app.Activity");
+        profile.recordLoad("android.view.View");
+        profile.save();
+
+        assertThat(new ClassLoadProfile(file).getPreviouslyLoadedClasses())
+                .isEqualTo(asList("android.view.View", "android.app.Activity"));
+    }
+
+    @Test
+    public void shouldShareOneProfilePerFile() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "shared.txt");
+        assertThat(ClassLoadProfile.forFile(file)).isSameAs(ClassLoadProfile.forFile(file.getAbsoluteFile()));
+    }
+
+    @Test
+    public void shouldNotLeaveTempFilesBehind() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "sub/profile.txt");
+        ClassLoadProfile profile = new ClassLoadProfile(file);
+        profile.recordLoad("android.view.View");
+        profile.save();
+        profile.save();
+
+        assertThat(file.getParentFile().list()).containsOnly("profile.txt");
+    }
+}
@@ -0,0 +1,76 @@
+package org.robolectric.bytecode;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.robolectric.test.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class SegmentedClassCacheTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadClassesFlushedByAnEarlierInstance() throws Exception {
+        File dir = temporaryFolder.newFolder("cache");
+        SegmentedClassCache cache = new SegmentedClassCache(dir, 1);
+        cache.addClass("a.A", new byte[]{1, 2, 3});
+        cache.flush();
+        cache.addClass("b.B", new byte[]{4, 5});
+        cache.close();
+
+        SegmentedClassCache reopened = new SegmentedClassCache(dir, 1);
+        assertThat(reopened.getClassBytesFor("a.A")).isEqualTo(new byte[]{1, 2, 3});
+        assertThat(reopened.getClassBytesFor("b.B")).isEqualTo(new byte[]{4, 5});
+        assertThat(reopened.getClassBytesFor("c.C")).isNull();
+    }
+
+    @Test
+    public void shouldIgnoreClassesFromOtherCacheVersions() throws Exception {
+        File dir = temporaryFolder.newFolder("cache");
+        SegmentedClassCache cache = new SegmentedClassCache(dir, 1);
+        cache.addClass("a.A", new byte[]{1, 2, 3});
+        cache.close();
+
+        assertThat(new SegmentedClassCache(dir, 2).getClassBytesFor("a.A")).isNull();
+        assertThat(dir.list()).isEmpty();
+    }
+
+    @Test
+    public void shouldIgnoreTruncatedSegments() throws Exception {
+        File dir = temporaryFolder.newFolder("cache");
+        SegmentedClassCache cache = new SegmentedClassCache(dir, 1);
+        cache.addClass("a.A", new byte[]{1, 2, 3});
+        cache.close();
+
+        File segment = dir.listFiles()[0];
+        FileOutputStream out = new FileOutputStream(segment);
+        out.write(new byte[]{0x52, 0x6f, 0x42, 0x43, 0, 0});
+        out.close();
+
+        assertThat(new SegmentedClassCache(dir, 1).getClassBytesFor("a.A")).isNull();
+    }
+
+    @Test
+    public void shouldOnlyStartWritingWhenClosed() throws Exception {
+        SegmentedClassCache cache = new SegmentedClassCache(temporaryFolder.newFolder("cache"), 1);
+        assertThat(cache.isWriting()).isFalse();
+        cache.close();
+        assertThat(cache.isWriting()).isTrue();
+    }
+
+    @Test
+    public void shouldShareOneFlusherThreadBetweenCaches() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            new SegmentedClassCache(temporaryFolder.newFolder("cache" + i), 1).close();
+        }
+
+        int flusherThreads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("robolectric-class-cache-flusher")) flusherThreads++;
+        }
+        assertThat(flusherThreads).isEqualTo(1);
+    }
+}
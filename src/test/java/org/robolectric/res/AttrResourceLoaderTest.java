@@ -79,6 +79,17 @@ public class AttrResourceLoaderTest {
         assertThat(attrResourceLoader.convertValueToEnum(CustomView.class, SYSTEM_PACKAGE, "gravity", "fill_vertical")).isEqualTo("0x70");
     }
 
+    @Test
+    public void shouldParseFlagExpressionsOnceIntoInts() throws Exception {
+        AttrEnum gravity = attrResourceLoader.getAttrEnum(CustomView.class, TEST_PACKAGE, "gravity");
+        assertThat(gravity.parse("center")).isEqualTo(0x11);
+        assertThat(gravity.parse("center|fill_vertical")).isEqualTo(0x11 | 0x70);
+        assertThat(gravity.getRawValue("fill_vertical")).isEqualTo("0x70");
+
+        assertThat(attrResourceLoader.getAttrEnum(CustomView.class, TEST_PACKAGE, "gravity")).isSameAs(gravity);
+        assertThat(attrResourceLoader.getAttrEnum(CustomView.class, TEST_PACKAGE, "otherItemType")).isNull();
+    }
+
     private class SubCustomView extends CustomView {
         public SubCustomView(Context context, AttributeSet attrs) {
             super(context, attrs);
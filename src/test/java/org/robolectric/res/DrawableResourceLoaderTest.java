@@ -132,6 +132,15 @@ public class DrawableResourceLoaderTest {
         assertThat(drawableBuilder.isNinePatchDrawable(drawableNodes.get(null, ""))).isFalse();
     }
 
+    @Test
+    public void shouldCatalogXmlAndNinePatchDrawables() throws Exception {
+        DrawableCatalog drawableCatalog = new DrawableCatalog(testResources());
+
+        assertThat(drawableCatalog.getXmlFiles()).hasSize(4);
+        assertThat(drawableCatalog.getNinePatchFiles()).hasSize(1);
+        assertThat(drawableCatalog.getNinePatchFiles().get(0).getName()).isEqualTo("nine_patch_drawable.9.png");
+    }
+
     private ResName getResName(int resourceId) {
         return resourceIndex.getResName(resourceId);
     }
@@ -0,0 +1,91 @@
+package org.robolectric.res;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.robolectric.test.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class MappedJarFsTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File jar;
+
+    @Before
+    public void setUp() throws Exception {
+        jar = new File(temporaryFolder.getRoot(), "res.jar");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        out.putNextEntry(new JarEntry("res/"));
+        out.putNextEntry(new JarEntry("res/values/"));
+        out.putNextEntry(new JarEntry("res/values/strings.xml"));
+        out.write("<resources/>".getBytes("UTF-8"));
+        // no directory entry for res/drawable-hdpi
+        out.putNextEntry(storedEntry("res/drawable-hdpi/icon.png", new byte[]{1, 2, 3}));
+        out.write(new byte[]{1, 2, 3});
+        out.close();
+    }
+
+    @Test
+    public void shouldListDirectories() throws Exception {
+        FsFile res = new MappedJarFs(jar, null).join("res");
+        assertThat(res.isDirectory()).isTrue();
+        assertThat(res.listFileNames()).containsExactly("drawable-hdpi", "values");
+        assertThat(res.join("drawable-hdpi").isDirectory()).isTrue();
+        assertThat(res.join("values", "strings.xml").isFile()).isTrue();
+        assertThat(res.join("values", "nope.xml").exists()).isFalse();
+        assertThat(res.join("values", "strings.xml").listFiles()).isNull();
+    }
+
+    @Test
+    public void shouldApplyFileFilters() throws Exception {
+        FsFile res = new MappedJarFs(jar, null).join("res");
+        FsFile[] files = res.listFiles(new DirectoryMatchingFileFilter("drawable"));
+        assertThat(files).containsExactly(res.join("drawable-hdpi"));
+    }
+
+    @Test
+    public void shouldReadDeflatedAndStoredEntries() throws Exception {
+        FsFile res = new MappedJarFs(jar, null).join("res");
+        assertThat(new String(res.join("values", "strings.xml").getBytes(), "UTF-8")).isEqualTo("<resources/>");
+        assertThat(res.join("drawable-hdpi", "icon.png").getBytes()).isEqualTo(new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void shouldNavigateUpAndByName() throws Exception {
+        FsFile strings = new MappedJarFs(jar, null).join("res").join("values", "strings.xml");
+        assertThat(strings.getName()).isEqualTo("strings.xml");
+        assertThat(strings.getBaseName()).isEqualTo("strings");
+        assertThat(strings.getParent().getName()).isEqualTo("values");
+    }
+
+    @Test
+    public void shouldReuseAPersistedIndex() throws Exception {
+        File indexFile = new File(temporaryFolder.getRoot(), "index/res.index");
+        new MappedJarFs(jar, indexFile);
+        assertThat(indexFile.isFile()).isTrue();
+
+        FsFile res = new MappedJarFs(jar, indexFile).join("res");
+        assertThat(res.listFileNames()).containsExactly("drawable-hdpi", "values");
+        assertThat(new String(res.join("values", "strings.xml").getBytes(), "UTF-8")).isEqualTo("<resources/>");
+    }
+
+    private static ZipEntry storedEntry(String name, byte[] bytes) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(bytes.length);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        entry.setCrc(crc.getValue());
+        return entry;
+    }
+}
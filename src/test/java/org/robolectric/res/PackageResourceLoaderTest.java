@@ -0,0 +1,84 @@
+package org.robolectric.res;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.robolectric.R;
+import org.robolectric.test.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class PackageResourceLoaderTest {
+    private static final String PACKAGE_NAME = "org.robolectric";
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File main;
+    private File removed;
+    private File frame;
+    private PackageResourceLoader resourceLoader;
+    private OverlayResourceLoader overlayResourceLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        main = temporaryFolder.newFile("res/layout/main.xml", layout("LinearLayout"));
+        temporaryFolder.newFile("res/layout/unchanged.xml", layout("TextView"));
+        removed = temporaryFolder.newFile("res/layout/removed.xml", layout("Button"));
+        frame = temporaryFolder.newFile("res/drawable/frame.9.png", "first");
+        temporaryFolder.newFile("res/drawable/shape.xml", "<shape/>");
+
+        ResourcePath resourcePath = new ResourcePath(R.class, Fs.newFile(new File(temporaryFolder.getRoot(), "res")), null);
+        resourceLoader = new PackageResourceLoader(resourcePath);
+        overlayResourceLoader = new OverlayResourceLoader(PACKAGE_NAME, Collections.singletonList(resourceLoader));
+    }
+
+    @Test
+    public void shouldReloadOnlyAddedChangedAndRemovedFiles() throws Exception {
+        assertThat(overlayResourceLoader.getLayoutViewNode(layoutName("main"), "").getName()).isEqualTo("LinearLayout");
+        assertThat(overlayResourceLoader.getLayoutViewNode(layoutName("removed"), "")).isNotNull();
+        DrawableNode oldFrame = overlayResourceLoader.getDrawableNode(drawableName("frame"), "");
+        assertThat(oldFrame).isNotNull();
+
+        overwrite("res/layout/main.xml", layout("FrameLayout"));
+        File added = temporaryFolder.newFile("res/layout/added.xml", layout("ImageView"));
+        assertThat(removed.delete()).isTrue();
+        overwrite("res/drawable/frame.9.png", "second");
+
+        assertThat(resourceLoader.reloadChangedResources()).containsOnly(
+                Fs.newFile(main), Fs.newFile(added), Fs.newFile(removed), Fs.newFile(frame));
+
+        assertThat(overlayResourceLoader.getLayoutViewNode(layoutName("main"), "").getName()).isEqualTo("FrameLayout");
+        assertThat(overlayResourceLoader.getLayoutViewNode(layoutName("added"), "").getName()).isEqualTo("ImageView");
+        assertThat(overlayResourceLoader.getLayoutViewNode(layoutName("removed"), "")).isNull();
+        assertThat(overlayResourceLoader.getLayoutViewNode(layoutName("unchanged"), "").getName()).isEqualTo("TextView");
+        DrawableNode newFrame = overlayResourceLoader.getDrawableNode(drawableName("frame"), "");
+        assertThat(newFrame).isInstanceOf(DrawableNode.ImageFile.class).isNotSameAs(oldFrame);
+        assertThat(((DrawableNode.ImageFile) newFrame).isNinePatch).isTrue();
+        assertThat(overlayResourceLoader.getDrawableNode(drawableName("shape"), "")).isNotNull();
+
+        assertThat(resourceLoader.reloadChangedResources()).isEmpty();
+    }
+
+    private static String layout(String viewName) {
+        return "<" + viewName + " xmlns:android=\"http://schemas.android.com/apk/res/android\"/>";
+    }
+
+    private static ResName layoutName(String name) {
+        return new ResName(PACKAGE_NAME, "layout", name);
+    }
+
+    private static ResName drawableName(String name) {
+        return new ResName(PACKAGE_NAME, "drawable", name);
+    }
+
+    private void overwrite(String fileName, String contents) throws Exception {
+        File file = new File(temporaryFolder.getRoot(), fileName);
+        long lastModified = file.lastModified();
+        temporaryFolder.newFile(fileName, contents);
+        // file systems with coarse timestamps could otherwise keep the old mtime
+        assertThat(file.setLastModified(lastModified + 2000)).isTrue();
+    }
+}
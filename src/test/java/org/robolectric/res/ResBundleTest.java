@@ -2,7 +2,11 @@ package org.robolectric.res;
 
 import org.junit.Test;
 
+import java.io.File;
+
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class ResBundleTest {
     @Test
@@ -17,6 +21,29 @@ public class ResBundleTest {
                 "port-notouch-12key"), "en-GB-port-hdpi-notouch-12key").value);
     }
 
+    @Test
+    public void shouldSwapOnlyTheValuesFromChangedFiles() throws Exception {
+        FsFile main = Fs.newFile(new File("res/layout/main.xml"));
+        FsFile mainLand = Fs.newFile(new File("res/layout-land/main.xml"));
+        FsFile other = Fs.newFile(new File("res/layout/other.xml"));
+        ResBundle<String> library = new ResBundle<String>();
+        library.put("layout", "main", "main", new XmlLoader.XmlContext("lib", main));
+        library.put("layout", "main", "main-land", new XmlLoader.XmlContext("lib", mainLand));
+        library.put("layout", "other", "other", new XmlLoader.XmlContext("lib", other));
+        ResBundle<String> overlay = new ResBundle<String>();
+        overlay.addLibrary(library, "lib", "app");
+        assertEquals("main-land", overlay.get(new ResName("app:layout/main"), "land"));
+
+        ResBundle<String> reloaded = new ResBundle<String>();
+        reloaded.put("layout", "main", "edited main-land", new XmlLoader.XmlContext("lib", mainLand));
+        library.replaceValuesFrom(asList(mainLand, other), reloaded);
+
+        assertEquals("main", library.get(new ResName("lib:layout/main"), ""));
+        assertEquals("edited main-land", library.get(new ResName("lib:layout/main"), "land"));
+        assertNull(library.get(new ResName("lib:layout/other"), ""));
+        assertEquals("edited main-land", overlay.get(new ResName("app:layout/main"), "land"));
+    }
+
     private ResBundle.Values<String> asValues(String... qualifierses) {
         ResBundle.Values<String> values = new ResBundle.Values<String>();
         for (String qualifiers : qualifierses) {
@@ -0,0 +1,61 @@
+package org.robolectric.res;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class ResourceIdTableTest {
+    private static final ResName STRING = new ResName("pkg", "string", "hello");
+    private static final ResName COLOR = new ResName("pkg", "color", "red");
+    private static final ResName ANDROID_ID = new ResName("android", "id", "text1");
+
+    @Test
+    public void shouldFindNamesById() throws Exception {
+        ResourceIdTable table = table(0x7f020001, STRING, 0x7f010000, COLOR);
+
+        assertThat(table.get(0x7f020001)).isSameAs(STRING);
+        assertThat(table.get(0x7f010000)).isSameAs(COLOR);
+        assertThat(table.get(0x7f010001)).isNull();
+        assertThat(table.maxId()).isEqualTo(0x7f020001);
+        assertThat(ResourceIdTable.EMPTY.get(1)).isNull();
+    }
+
+    @Test
+    public void shouldMergeTablesInIdOrder() throws Exception {
+        ResourceIdTable merged = ResourceIdTable.merge(
+                table(0x7f020001, STRING, 0x7f010000, COLOR),
+                table(0x01020014, ANDROID_ID));
+
+        assertThat(merged.size()).isEqualTo(3);
+        assertThat(merged.idAt(0)).isEqualTo(0x01020014);
+        assertThat(merged.nameAt(2)).isSameAs(STRING);
+        assertThat(merged.get(0x01020014)).isSameAs(ANDROID_ID);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectOverlappingIdsWhenMerging() throws Exception {
+        ResourceIdTable.merge(table(0x7f010000, COLOR), table(0x7f010000, STRING));
+    }
+
+    @Test
+    public void shouldCopyOnAdd() throws Exception {
+        ResourceIdTable table = table(0x7f010000, COLOR, 0x7f020001, STRING);
+        ResourceIdTable added = table.with(0x7f010005, ANDROID_ID);
+
+        assertThat(table.contains(0x7f010005)).isFalse();
+        assertThat(added.get(0x7f010005)).isSameAs(ANDROID_ID);
+        assertThat(added.idAt(1)).isEqualTo(0x7f010005);
+        assertThat(added.get(0x7f020001)).isSameAs(STRING);
+    }
+
+    private static ResourceIdTable table(Object... idsAndNames) {
+        Map<Integer, ResName> map = new HashMap<Integer, ResName>();
+        for (int i = 0; i < idsAndNames.length; i += 2) {
+            map.put((Integer) idsAndNames[i], (ResName) idsAndNames[i + 1]);
+        }
+        return ResourceIdTable.of(map);
+    }
+}
@@ -15,11 +15,16 @@ import org.robolectric.annotation.Config;
 import org.robolectric.res.builder.LayoutBuilder;
 import org.robolectric.util.I18nException;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.fest.reflect.core.Reflection.field;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.robolectric.Robolectric.shadowOf;
+import static org.robolectric.util.TestUtil.lib1Resources;
+import static org.robolectric.util.TestUtil.lib2Resources;
 import static org.robolectric.util.TestUtil.resourceFile;
 
 @RunWith(TestRunners.WithDefaults.class)
@@ -48,6 +53,47 @@ public class ResourceLoaderTest {
         assertEquals("Local Copy", stringValue);
     }
 
+    @Test
+    public void shouldOnlyLoadTheKindsOfResourcesAskedFor() throws Exception {
+        PackageResourceLoader resourceLoader = new PackageResourceLoader(resourcePath);
+        resourceLoader.getStringValue(new ResName("org.robolectric:string/copy"), "");
+        resourceLoader.getStringValue(new ResName("org.robolectric:string/hello"), "");
+
+        assertThat(resourceLoader.isLoaded(ResourceKind.VALUES)).isTrue();
+        assertThat(resourceLoader.getLookupCount(ResourceKind.VALUES)).isEqualTo(2);
+        assertThat(resourceLoader.isLoaded(ResourceKind.LAYOUT)).isFalse();
+        assertThat(resourceLoader.isLoaded(ResourceKind.DRAWABLE)).isFalse();
+
+        assertNotNull(resourceLoader.getLayoutViewNode(new ResName("org.robolectric:layout/main"), ""));
+        assertThat(resourceLoader.isLoaded(ResourceKind.LAYOUT)).isTrue();
+        assertThat(resourceLoader.getLookupCount(ResourceKind.LAYOUT)).isEqualTo(1);
+        assertThat(resourceLoader.isLoaded(ResourceKind.MENU)).isFalse();
+    }
+
+    @Test
+    public void shouldSeeLibraryResourcesThroughAnOverlayWithoutCopyingThem() throws Exception {
+        PackageResourceLoader lib1 = new PackageResourceLoader(lib1Resources());
+        List<PackageResourceLoader> subResourceLoaders = Arrays.asList(new PackageResourceLoader(resourcePath), lib1, new PackageResourceLoader(lib2Resources()));
+        OverlayResourceLoader first = new OverlayResourceLoader("org.robolectric", subResourceLoaders);
+        OverlayResourceLoader second = new OverlayResourceLoader("org.robolectric", subResourceLoaders);
+
+        assertThat(first.getStringValue(new ResName("org.robolectric:string/in_all_libs"), "")).isEqualTo("from main");
+        assertThat(first.getStringValue(new ResName("org.robolectric:string/only_in_lib2"), "")).isEqualTo("from lib2");
+        assertThat(second.getStringValue(new ResName("org.robolectric:string/only_in_lib1"), "")).isEqualTo("from lib1");
+        assertThat(second.getStringValue(new ResName("org.robolectric.lib1:string/only_in_lib1"), "")).isNull();
+        assertThat(lib1.getLookupCount(ResourceKind.VALUES)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldResolveReferencesToTypedValues() throws Exception {
+        ResourceLoader resourceLoader = new PackageResourceLoader(resourcePath);
+        assertThat(resourceLoader.getColorIntValue(new ResName("org.robolectric:color/foreground"), "")).isEqualTo(0xFFF5F5F5);
+        assertThat(resourceLoader.getColorIntValue(new ResName("org.robolectric:color/color_with_alpha"), "")).isEqualTo(0x802C76AD);
+        assertThat(resourceLoader.getColorIntValue(new ResName("org.robolectric:color/android_red"), "")).isEqualTo(0xFFFF0000);
+        assertThat(resourceLoader.getColorIntValue(new ResName("org.robolectric:color/no_such_color"), "")).isNull();
+        assertThat(resourceLoader.getDimenFloatValue(new ResName("org.robolectric:dimen/test_dp_dimen"), "")).isEqualTo(8f);
+    }
+
     @Test(expected = I18nException.class)
     public void shouldThrowExceptionOnI18nStrictModeInflateView() throws Exception {
         shadowOf(Robolectric.application).setStrictI18n(true);
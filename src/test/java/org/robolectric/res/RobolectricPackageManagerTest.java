@@ -103,6 +103,23 @@ public class RobolectricPackageManagerTest {
         assertThat(activities.get(0).nonLocalizedLabel.toString()).isEqualTo(TEST_PACKAGE_LABEL);
     }
 
+    @Test
+    public void queryIntentActivities__MatchesIntentFilters() throws Exception {
+        IntentFilter filter = new IntentFilter(Intent.ACTION_VIEW);
+        filter.addCategory(Intent.CATEGORY_DEFAULT);
+        filter.addDataType("image/*");
+        ResolveInfo info = new ResolveInfo();
+        info.nonLocalizedLabel = TEST_PACKAGE_LABEL;
+        rpm.addResolveInfoForIntentFilter(filter, info);
+
+        Intent image = new Intent(Intent.ACTION_VIEW).setType("image/png").addCategory(Intent.CATEGORY_DEFAULT);
+        assertThat(rpm.queryIntentActivities(image, 0)).containsExactly(info);
+        assertThat(rpm.resolveActivity(image, 0).filter).isSameAs(filter);
+
+        assertThat(rpm.queryIntentActivities(new Intent(Intent.ACTION_VIEW).setType("text/plain"), 0)).isEmpty();
+        assertThat(rpm.queryIntentActivities(new Intent(Intent.ACTION_EDIT).setType("image/png"), 0)).isEmpty();
+    }
+
     @Test
     public void resolveActivity__Match() throws Exception {
         Intent i = new Intent(Intent.ACTION_MAIN, null).addCategory(Intent.CATEGORY_LAUNCHER);
@@ -47,16 +47,16 @@ public class XmlFileLoaderTest {
     private XmlFileLoader xmlFileLoader;
     private XmlFileBuilder xmlFileBuilder;
     private XmlResourceParserImpl parser;
-    private ResBundle<Document> resBundle;
+    private ResBundle<XmlBlock> resBundle;
 
     @Before
     public void setUp() throws Exception {
-        resBundle = new ResBundle<Document>();
+        resBundle = new ResBundle<XmlBlock>();
         xmlFileLoader = new XmlFileLoader(resBundle);
         new DocumentLoader(testResources()).load("xml", xmlFileLoader);
         xmlFileBuilder = new XmlFileBuilder();
 
-        Document document = resBundle.get(new ResName(TEST_PACKAGE, "xml", "preferences"), "");
+        Document document = resBundle.get(new ResName(TEST_PACKAGE, "xml", "preferences"), "").getDocument();
         parser = (XmlResourceParserImpl) xmlFileBuilder.getXml(document);
     }
 
@@ -110,6 +110,13 @@ public class XmlFileLoaderTest {
         return parser.getAttributeCount() + 1;
     }
 
+    @Test
+    public void shouldBuildANewDocumentEachTimeOneIsAskedFor() throws Exception {
+        XmlBlock xmlBlock = resBundle.get(new ResName(TEST_PACKAGE, "xml", "preferences"), "");
+        assertThat(xmlBlock.getDocument()).isNotSameAs(xmlBlock.getDocument());
+        assertThat(xmlBlock.getDocument().getDocumentElement().getNodeName()).isEqualTo("PreferenceScreen");
+    }
+
     @Test
     public void testGetXmlInt() throws XmlPullParserException, IOException {
         assertThat(parser).isNotNull();
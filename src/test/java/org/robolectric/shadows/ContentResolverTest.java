@@ -6,12 +6,14 @@ import android.content.ContentProvider;
 import android.content.ContentProviderOperation;
 import android.content.ContentProviderResult;
 import android.content.ContentResolver;
+import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Intent;
 import android.content.OperationApplicationException;
 import android.content.PeriodicSync;
 import android.database.ContentObserver;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
@@ -230,6 +232,86 @@ public class ContentResolverTest {
         assertThat(result).isEqualTo(contentProviderResults);
     }
 
+    @Test
+    public void applyBatch_shouldApplyOperationsToRegisteredProvider() throws Exception {
+        ItemsProvider provider = new ItemsProvider();
+        ShadowContentResolver.registerProvider(AUTHORITY, provider);
+        Uri uri = Uri.parse("content://" + AUTHORITY + "/items");
+
+        ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+        operations.add(ContentProviderOperation.newInsert(uri).withValue("name", "parent").build());
+        operations.add(ContentProviderOperation.newInsert(uri)
+                .withValue("name", "child")
+                .withValueBackReference("parent_id", 0)
+                .build());
+        operations.add(ContentProviderOperation.newUpdate(uri)
+                .withSelection("name = ?", new String[]{"parent"})
+                .withValue("name", "renamed")
+                .build());
+        ContentProviderResult[] results = contentResolver.applyBatch(AUTHORITY, operations);
+
+        assertThat(results.length).isEqualTo(3);
+        assertThat(results[0].uri).isEqualTo(Uri.parse("content://" + AUTHORITY + "/items/1"));
+        assertThat(results[2].count).isEqualTo(1);
+        Cursor cursor = provider.database.rawQuery("SELECT name, parent_id FROM items ORDER BY id", null);
+        assertThat(cursor.moveToFirst()).isTrue();
+        assertThat(cursor.getString(0)).isEqualTo("renamed");
+        assertThat(cursor.moveToNext()).isTrue();
+        assertThat(cursor.getString(0)).isEqualTo("child");
+        assertThat(cursor.getLong(1)).isEqualTo(1L);
+
+        assertThat(shadowContentResolver.getBatchTimings().size()).isEqualTo(1);
+        ShadowContentResolver.BatchTiming timing = shadowContentResolver.getBatchTimings().get(0);
+        assertThat(timing.getAuthority()).isEqualTo(AUTHORITY);
+        assertThat(timing.getOperationCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void applyBatch_shouldLetProviderRollBackWhenAnOperationFails() throws Exception {
+        ItemsProvider provider = new ItemsProvider();
+        ShadowContentResolver.registerProvider(AUTHORITY, provider);
+        Uri uri = Uri.parse("content://" + AUTHORITY + "/items");
+
+        ArrayList<ContentProviderOperation> operations = new ArrayList<ContentProviderOperation>();
+        operations.add(ContentProviderOperation.newInsert(uri).withValue("name", "first").build());
+        operations.add(ContentProviderOperation.newInsert(uri).withValue("no_such_column", "x").build());
+        try {
+            contentResolver.applyBatch(AUTHORITY, operations);
+            fail("expected OperationApplicationException");
+        } catch (OperationApplicationException expected) {
+        }
+
+        assertThat(provider.database.rawQuery("SELECT * FROM items", null).getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void bulkInsert_shouldUseRegisteredProvider() throws Exception {
+        ItemsProvider provider = new ItemsProvider();
+        ShadowContentResolver.registerProvider(AUTHORITY, provider);
+        Uri uri = Uri.parse("content://" + AUTHORITY + "/items");
+        ContentValues[] values = new ContentValues[10];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new ContentValues();
+            values[i].put("name", "item" + i);
+        }
+
+        assertThat(contentResolver.bulkInsert(uri, values)).isEqualTo(10);
+        assertThat(provider.database.rawQuery("SELECT * FROM items", null).getCount()).isEqualTo(10);
+        assertThat(shadowContentResolver.getBatchTimings().get(0).getOperationCount()).isEqualTo(10);
+    }
+
+    @Test
+    public void bulkInsert_withoutProviderShouldRecordInsertStatements() throws Exception {
+        ContentValues first = new ContentValues();
+        first.put("name", "a");
+        ContentValues second = new ContentValues();
+        second.put("name", "b");
+
+        assertThat(contentResolver.bulkInsert(EXTERNAL_CONTENT_URI, new ContentValues[]{first, second})).isEqualTo(2);
+        assertThat(shadowContentResolver.getInsertStatements().size()).isEqualTo(2);
+        assertThat(shadowContentResolver.getInsertStatements().get(1).getContentValues().getAsString("name")).isEqualTo("b");
+    }
+
     @Test
     public void shouldKeepTrackOfSyncRequests() throws Exception {
         ShadowContentResolver.Status status = ShadowContentResolver.getStatus(a, AUTHORITY, true);
@@ -384,6 +466,69 @@ public class ContentResolverTest {
     	contentResolver.notifyChange(EXTERNAL_CONTENT_URI, null);
         assertThat(co.changed).isFalse();
     }
+
+    @Test
+    public void shouldNotifyEveryObserverOfAUri() throws Exception {
+        TestContentObserver first = new TestContentObserver(null);
+        TestContentObserver second = new TestContentObserver(null);
+        contentResolver.registerContentObserver(EXTERNAL_CONTENT_URI, false, first);
+        contentResolver.registerContentObserver(EXTERNAL_CONTENT_URI, false, second);
+
+        assertThat(shadowContentResolver.getContentObservers(EXTERNAL_CONTENT_URI)).containsExactly(first, second);
+
+        contentResolver.notifyChange(EXTERNAL_CONTENT_URI, null);
+        assertThat(first.changed).isTrue();
+        assertThat(second.changed).isTrue();
+    }
+
+    @Test
+    public void shouldNotifyObserversOfAncestorsOnlyIfTheyAskedForDescendants() throws Exception {
+        TestContentObserver descendants = new TestContentObserver(null);
+        TestContentObserver exact = new TestContentObserver(null);
+        contentResolver.registerContentObserver(EXTERNAL_CONTENT_URI, true, descendants);
+        contentResolver.registerContentObserver(EXTERNAL_CONTENT_URI, false, exact);
+
+        contentResolver.notifyChange(uri21, null);
+        assertThat(descendants.changed).isTrue();
+        assertThat(exact.changed).isFalse();
+    }
+
+    @Test
+    public void shouldNotifyObserversOfDescendantsWhenAnAncestorChanges() throws Exception {
+        TestContentObserver child = new TestContentObserver(null);
+        TestContentObserver sibling = new TestContentObserver(null);
+        contentResolver.registerContentObserver(uri21, false, child);
+        contentResolver.registerContentObserver(Uri.parse("content://other/21"), false, sibling);
+
+        contentResolver.notifyChange(EXTERNAL_CONTENT_URI, null);
+        assertThat(child.changed).isTrue();
+        assertThat(sibling.changed).isFalse();
+    }
+
+    @Test
+    public void shouldDispatchChangesThroughTheObserversHandler() throws Exception {
+        TestContentObserver co = new TestContentObserver(new Handler());
+        contentResolver.registerContentObserver(EXTERNAL_CONTENT_URI, true, co);
+
+        Robolectric.pauseMainLooper();
+        contentResolver.notifyChange(uri21, null);
+        assertThat(co.changed).isFalse();
+
+        Robolectric.unPauseMainLooper();
+        assertThat(co.changed).isTrue();
+    }
+
+    @Test
+    public void shouldOnlyRememberTheMostRecentNotifications() throws Exception {
+        shadowContentResolver.setNotificationLogLimit(2);
+        contentResolver.notifyChange(EXTERNAL_CONTENT_URI, null);
+        contentResolver.notifyChange(uri21, null);
+        contentResolver.notifyChange(uri22, null);
+
+        assertThat(shadowContentResolver.getNotifiedUris().size()).isEqualTo(2);
+        assertThat(shadowContentResolver.getNotifiedUris().get(0).uri).isEqualTo(uri21);
+        assertThat(shadowContentResolver.getNotifiedUris().get(1).uri).isEqualTo(uri22);
+    }
     
    
     static class QueryParamTrackingTestCursor extends TestCursor {
@@ -403,6 +548,46 @@ public class ContentResolverTest {
         }
     }
     
+    private static class ItemsProvider extends ContentProvider {
+        private final SQLiteDatabase database;
+
+        ItemsProvider() {
+            database = SQLiteDatabase.openDatabase("items.db", null, 0);
+            database.execSQL("CREATE TABLE items (id INTEGER PRIMARY KEY AUTOINCREMENT, name VARCHAR(255), parent_id INTEGER)");
+        }
+
+        @Override public boolean onCreate() {
+            return true;
+        }
+        @Override public ContentProviderResult[] applyBatch(ArrayList<ContentProviderOperation> operations)
+                throws OperationApplicationException {
+            database.beginTransaction();
+            try {
+                ContentProviderResult[] results = super.applyBatch(operations);
+                database.setTransactionSuccessful();
+                return results;
+            } finally {
+                database.endTransaction();
+            }
+        }
+        @Override public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+            return database.query("items", projection, selection, selectionArgs, null, null, sortOrder);
+        }
+        @Override public Uri insert(Uri uri, ContentValues values) {
+            long id = database.insert("items", null, values);
+            return id == -1 ? null : ContentUris.withAppendedId(uri, id);
+        }
+        @Override public int delete(Uri uri, String selection, String[] selectionArgs) {
+            return database.delete("items", selection, selectionArgs);
+        }
+        @Override public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+            return database.update("items", values, selection, selectionArgs);
+        }
+        @Override public String getType(Uri uri) {
+            return null;
+        }
+    }
+
 	private class TestContentObserver extends ContentObserver {
 		public TestContentObserver(Handler handler) {
 			super(handler);
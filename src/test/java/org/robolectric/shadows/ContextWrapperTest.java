@@ -8,6 +8,7 @@ import android.content.Context;
 import android.content.ContextWrapper;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.net.Uri;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -78,6 +79,102 @@ public class ContextWrapperTest {
         transcript.assertNoEventsSoFar();
     }
 
+    @Test
+    public void sendBroadcast_shouldOnlyReachReceiversWhoseFiltersAcceptTheCategoriesAndData() throws Exception {
+        IntentFilter categoryFilter = intentFilter("foo");
+        categoryFilter.addCategory("cat");
+        contextWrapper.registerReceiver(broadcastReceiver("Larry"), categoryFilter);
+
+        IntentFilter schemeFilter = intentFilter("foo");
+        schemeFilter.addDataScheme("package");
+        contextWrapper.registerReceiver(broadcastReceiver("Bob"), schemeFilter);
+
+        contextWrapper.sendBroadcast(new Intent("foo").addCategory("cat"));
+        transcript.assertEventsSoFar("Larry notified of foo");
+
+        contextWrapper.sendBroadcast(new Intent("foo", Uri.parse("package:org.robolectric")));
+        transcript.assertEventsSoFar("Larry notified of foo", "Bob notified of foo");
+
+        contextWrapper.sendBroadcast(new Intent("foo", Uri.parse("http://example.com")));
+        transcript.assertEventsSoFar("Larry notified of foo");
+    }
+
+    @Test
+    public void getReceiversForIntent_shouldReturnMatchingReceiversInRegistrationOrder() throws Exception {
+        BroadcastReceiver larryReceiver = broadcastReceiver("Larry");
+        BroadcastReceiver bobReceiver = broadcastReceiver("Bob");
+        contextWrapper.registerReceiver(larryReceiver, intentFilter("foo", "baz"));
+        contextWrapper.registerReceiver(bobReceiver, intentFilter("baz"));
+
+        ShadowApplication shadowApplication = shadowOf(Robolectric.application);
+        assertThat(shadowApplication.getReceiversForIntent(new Intent("baz"))).containsExactly(larryReceiver, bobReceiver);
+        assertThat(shadowApplication.hasReceiverForIntent(new Intent("womp"))).isFalse();
+
+        contextWrapper.unregisterReceiver(larryReceiver);
+        assertThat(shadowApplication.getReceiversForIntent(new Intent("baz"))).containsExactly(bobReceiver);
+        assertThat(shadowApplication.hasReceiverForIntent(new Intent("foo"))).isFalse();
+    }
+
+    @Test
+    public void sendBroadcast_shouldDeliverThroughTheMainLooper() throws Exception {
+        contextWrapper.registerReceiver(broadcastReceiver("Larry"), intentFilter("foo"));
+
+        Robolectric.pauseMainLooper();
+        contextWrapper.sendBroadcast(new Intent("foo"));
+        transcript.assertNoEventsSoFar();
+
+        Robolectric.unPauseMainLooper();
+        transcript.assertEventsSoFar("Larry notified of foo");
+    }
+
+    @Test
+    public void sendOrderedBroadcast_shouldDeliverByPriorityAndPassTheResultAlong() throws Exception {
+        contextWrapper.registerReceiver(resultAppendingReceiver("Low"), intentFilter(-1, "foo"));
+        contextWrapper.registerReceiver(resultAppendingReceiver("High"), intentFilter(10, "foo"));
+        contextWrapper.registerReceiver(resultAppendingReceiver("Default"), intentFilter(0, "foo"));
+
+        contextWrapper.sendOrderedBroadcast(new Intent("foo"), null, resultAppendingReceiver("Final"), null, 0, "", null);
+        transcript.assertEventsSoFar("High got 0:", "Default got 1:High", "Low got 2:High,Default", "Final got 3:High,Default,Low");
+    }
+
+    @Test
+    public void sendOrderedBroadcast_shouldStopWhenAReceiverAbortsButStillDeliverTheFinalResult() throws Exception {
+        contextWrapper.registerReceiver(new BroadcastReceiver() {
+            @Override public void onReceive(Context context, Intent intent) {
+                transcript.add("Aborter notified");
+                setResultData("aborted");
+                abortBroadcast();
+            }
+        }, intentFilter(10, "foo"));
+        contextWrapper.registerReceiver(broadcastReceiver("Larry"), intentFilter("foo"));
+
+        contextWrapper.sendOrderedBroadcast(new Intent("foo"), null, new BroadcastReceiver() {
+            @Override public void onReceive(Context context, Intent intent) {
+                transcript.add("Final got " + getResultData());
+            }
+        }, null, 0, null, null);
+        transcript.assertEventsSoFar("Aborter notified", "Final got aborted");
+    }
+
+    @Test
+    public void sendOrderedBroadcast_shouldWaitForReceiversThatGoAsync() throws Exception {
+        final BroadcastReceiver.PendingResult[] pendingResult = new BroadcastReceiver.PendingResult[1];
+        contextWrapper.registerReceiver(new BroadcastReceiver() {
+            @Override public void onReceive(Context context, Intent intent) {
+                transcript.add("Async notified");
+                pendingResult[0] = goAsync();
+            }
+        }, intentFilter(10, "foo"));
+        contextWrapper.registerReceiver(broadcastReceiver("Larry"), intentFilter("foo"));
+
+        contextWrapper.sendOrderedBroadcast(new Intent("foo"), null);
+        transcript.assertEventsSoFar("Async notified");
+
+        pendingResult[0].setResultCode(7);
+        pendingResult[0].finish();
+        transcript.assertEventsSoFar("Larry notified of foo");
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void unregisterReceiver_shouldThrowExceptionWhenReceiverIsNotRegistered() throws Exception {
         contextWrapper.unregisterReceiver(new AppWidgetProvider());
@@ -186,6 +283,22 @@ public class ContextWrapperTest {
         };
     }
 
+    private BroadcastReceiver resultAppendingReceiver(final String name) {
+        return new BroadcastReceiver() {
+            @Override public void onReceive(Context context, Intent intent) {
+                transcript.add(name + " got " + getResultCode() + ":" + getResultData());
+                setResultCode(getResultCode() + 1);
+                setResultData(getResultData().length() == 0 ? name : getResultData() + "," + name);
+            }
+        };
+    }
+
+    private IntentFilter intentFilter(int priority, String... actions) {
+        IntentFilter intentFilter = intentFilter(actions);
+        intentFilter.setPriority(priority);
+        return intentFilter;
+    }
+
     private IntentFilter intentFilter(String... actions) {
         IntentFilter larryIntentFilter = new IntentFilter();
         for (String action : actions) {
@@ -7,6 +7,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.robolectric.Robolectric;
+import org.robolectric.util.StatementCache;
 
 import java.sql.ResultSet;
 import java.sql.Statement;
@@ -348,6 +349,90 @@ public abstract class DatabaseTestBase {
         assertEmptyDatabase();
     }
 
+    @Test
+    public void testUpdateAndDeleteWithWhereArgs() throws Exception {
+        addChuck();
+        addJulie();
+
+        ContentValues values = new ContentValues();
+        values.put("name", "Buster");
+        assertThat(database.update("table_name", values, "name = ?", new String[]{"Chuck"})).isEqualTo(1);
+        assertThat(database.update("table_name", values, "name = ?", new String[]{"Chuck"})).isEqualTo(0);
+
+        assertThat(database.delete("table_name", "name = ?", new String[]{"Buster"})).isEqualTo(1);
+        assertThat(database.delete("table_name", "name = ?", new String[]{"Julie"})).isEqualTo(1);
+        assertEmptyDatabase();
+    }
+
+    @Test
+    public void testRepeatedInsertsShouldReuseStatements() throws Exception {
+        long first = addPerson(1L, "Chuck");
+        long second = addPerson(2L, "Julie");
+
+        assertThat(first).isEqualTo(1L);
+        assertThat(second).isEqualTo(2L);
+        Cursor cursor = database.query("table_name", new String[]{"id", "name"}, null, null, null, null, "id");
+        assertThat(cursor.moveToFirst()).isTrue();
+        assertIdAndName(cursor, 1L, "Chuck");
+        assertThat(cursor.moveToNext()).isTrue();
+        assertIdAndName(cursor, 2L, "Julie");
+    }
+
+    @Test
+    public void testRepeatedParameterizedQueriesShouldBindTheirOwnArgs() throws Exception {
+        addPerson(1L, "Chuck");
+        addPerson(2L, "O'Brien");
+
+        Cursor chuck = database.query("table_name", new String[]{"id", "name"}, "name = ?", new String[]{"Chuck"}, null, null, null);
+        Cursor obrien = database.query("table_name", new String[]{"id", "name"}, "name = ?", new String[]{"O'Brien"}, null, null, null);
+        Cursor raw = database.rawQuery("SELECT id, name FROM table_name WHERE id = ?", new String[]{"2"});
+
+        assertThat(chuck.moveToFirst()).isTrue();
+        assertIdAndName(chuck, 1L, "Chuck");
+        assertThat(chuck.moveToNext()).isFalse();
+        assertThat(obrien.moveToFirst()).isTrue();
+        assertIdAndName(obrien, 2L, "O'Brien");
+        assertThat(raw.getCount()).isEqualTo(1);
+        assertThat(raw.moveToFirst()).isTrue();
+        assertIdAndName(raw, 2L, "O'Brien");
+    }
+
+    @Test
+    public void shouldReuseOneStatementForRepeatedParameterizedQueries() throws Exception {
+        StatementCache statementCache = shDatabase.getStatementCache();
+        int hits = statementCache.getHitCount();
+        int misses = statementCache.getMissCount();
+
+        Cursor first = database.rawQuery("SELECT first_column FROM rawtable WHERE first_column = ?", new String[]{"column_value"});
+        Cursor second = database.rawQuery("SELECT first_column FROM rawtable WHERE first_column = ?", new String[]{"column_value2"});
+
+        assertThat(statementCache.getMissCount() - misses).isEqualTo(1);
+        assertThat(statementCache.getHitCount() - hits).isEqualTo(1);
+        assertThat(first.moveToFirst()).isTrue();
+        assertThat(first.getString(0)).isEqualTo("column_value");
+        assertThat(second.moveToFirst()).isTrue();
+        assertThat(second.getString(0)).isEqualTo("column_value2");
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void testBulkInsert() throws Exception {
+        ContentValues[] rows = new ContentValues[100];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new ContentValues();
+            rows[i].put("name", "person" + i);
+            if (i % 10 == 0) rows[i].put("big_int", i); // different columns break up the batch
+        }
+
+        assertThat(shDatabase.bulkInsert("table_name", rows)).isEqualTo(100);
+
+        Cursor cursor = database.rawQuery("SELECT COUNT(*) FROM table_name", null);
+        assertThat(cursor.moveToFirst()).isTrue();
+        assertThat(cursor.getInt(0)).isEqualTo(100);
+        assertThat(database.inTransaction()).isFalse();
+    }
+
 
     @Test
     public void testExecSQL() throws Exception {
@@ -30,4 +30,14 @@ public class IntentFilterTest {
         assertThat(intentFilter.getDataAuthority(1).getHost()).isEqualTo("example.com");
         assertThat(intentFilter.getDataAuthority(1).getPort()).isEqualTo(42);
     }
+
+    @Test
+    public void addDataType_shouldAddTheDataType() throws Exception {
+        IntentFilter intentFilter = new IntentFilter("foo", "image/*");
+        intentFilter.addDataType("text/plain");
+
+        assertThat(intentFilter.countDataTypes()).isEqualTo(2);
+        assertThat(intentFilter.getDataType(0)).isEqualTo("image/*");
+        assertThat(intentFilter.hasDataType("text/plain")).isTrue();
+    }
 }
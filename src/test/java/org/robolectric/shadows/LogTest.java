@@ -13,6 +13,7 @@ import static junit.framework.Assert.assertEquals;
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.robolectric.shadows.ShadowLog.LogItem;
 
 @RunWith(TestRunners.WithDefaults.class)
@@ -197,6 +198,100 @@ public class LogTest {
         ShadowLog.stream = old;
     }
 
+    @Test
+    public void shouldDropTheOldestEntriesBeyondCapacity() throws Exception {
+        ShadowLog.setCapacity(2);
+        Log.d("tag1", "1");
+        Log.d("tag2", "2");
+        Log.d("tag1", "3");
+
+        assertThat(ShadowLog.getLogs().size()).isEqualTo(2);
+        assertThat(ShadowLog.getLogs().get(0).msg).isEqualTo("2");
+        assertThat(ShadowLog.getLogsForTag("tag1").size()).isEqualTo(1);
+        assertThat(ShadowLog.getLogsForTag("tag1").get(0).msg).isEqualTo("3");
+    }
+
+    @Test
+    public void shouldLimitEntriesPerTagWithoutDroppingOtherTags() throws Exception {
+        ShadowLog.setTagCapacity(2);
+        Log.e("quiet", "0");
+        for (int i = 1; i <= 100; i++) {
+            Log.d("chatty", Integer.toString(i));
+        }
+
+        List<LogItem> logs = ShadowLog.getLogs();
+        assertThat(logs.size()).isEqualTo(3);
+        assertThat(logs.get(0).msg).isEqualTo("0");
+        assertThat(logs.get(1).msg).isEqualTo("99");
+        assertThat(ShadowLog.getLogsForLevel(Log.DEBUG).size()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldLimitEntriesPerLevel() throws Exception {
+        ShadowLog.setLevelCapacity(1);
+        Log.d("tag", "1");
+        Log.i("tag", "2");
+        Log.d("tag", "3");
+
+        assertThat(ShadowLog.getLogsForLevel(Log.DEBUG).get(0).msg).isEqualTo("3");
+        assertThat(ShadowLog.getLogsForTag("tag").size()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRejectNegativeCapacitiesAndKeepEntries() throws Exception {
+        Log.d("tag", "1");
+        try {
+            ShadowLog.setCapacity(-1);
+            fail("didn't receive the expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            ShadowLog.setTagCapacity(-1);
+            fail("didn't receive the expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            ShadowLog.setLevelCapacity(-1);
+            fail("didn't receive the expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        Log.d("tag", "2");
+
+        assertThat(ShadowLog.getLogs().size()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resetShouldRejectANegativeCapacityProperty() throws Exception {
+        System.setProperty(ShadowLog.TAG_CAPACITY_PROPERTY, "-5");
+        try {
+            ShadowLog.reset();
+        } finally {
+            System.clearProperty(ShadowLog.TAG_CAPACITY_PROPERTY);
+            ShadowLog.reset();
+        }
+    }
+
+    @Test
+    public void shouldKeepEveryEntryLoggedConcurrently() throws Exception {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        Log.i("tag", "msg");
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(ShadowLog.getLogs().size()).isEqualTo(4000);
+        assertThat(ShadowLog.getLogs().get(0).toString()).isEqualTo("I/tag: msg");
+    }
+
     private void assertLogged(int type, String tag, String msg, Throwable throwable) {
         LogItem lastLog = ShadowLog.getLogs().get(0);
         assertEquals(type, lastLog.type);
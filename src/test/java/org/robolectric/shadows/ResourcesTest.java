@@ -8,6 +8,7 @@ import android.content.res.XmlResourceParser;
 import android.graphics.drawable.AnimationDrawable;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.graphics.drawable.NinePatchDrawable;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -92,6 +93,24 @@ public class ResourcesTest {
         assertThat(hello).isEqualTo("Bonjour");
     }
 
+    @Test
+    public void shouldLookUpValuesAgainWhenTheQualifiersChange() {
+        assertThat(resources.getString(R.string.hello)).isEqualTo("Hello");
+
+        shadowOf(resources.getConfiguration()).overrideQualifiers("fr");
+        assertThat(resources.getString(R.string.hello)).isEqualTo("Bonjour");
+
+        shadowOf(resources.getConfiguration()).overrideQualifiers(new String(""));
+        assertThat(resources.getString(R.string.hello)).isEqualTo("Hello");
+    }
+
+    @Test
+    public void shouldReturnANewArrayFromEachLookup() {
+        int[] ints = resources.getIntArray(R.array.zero_to_four_int_array);
+        ints[0] = 42;
+        assertThat(resources.getIntArray(R.array.zero_to_four_int_array)[0]).isEqualTo(0);
+    }
+
     /**
      * given an R.color.id value, will return a ColorDrawable
      */
@@ -134,6 +153,21 @@ public class ResourcesTest {
         assertThat(Robolectric.getShadowApplication().getResources().getDrawable(R.drawable.nine_patch_drawable)).isInstanceOf(NinePatchDrawable.class);
     }
 
+    @Test
+    public void shouldResolveEachDrawableOnceButReturnNewInstances() {
+        ShadowResources shadowResources = shadowOf(resources);
+        long misses = shadowResources.getDrawableCacheMisses();
+        long hits = shadowResources.getDrawableCacheHits();
+
+        Drawable first = resources.getDrawable(R.drawable.test_drawable_1);
+        Drawable second = resources.getDrawable(R.drawable.test_drawable_1);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second).isInstanceOf(BitmapDrawable.class);
+        assertThat(shadowResources.getDrawableCacheMisses()).isEqualTo(misses + 1);
+        assertThat(shadowResources.getDrawableCacheHits()).isEqualTo(hits + 1);
+    }
+
     @Test(expected = Resources.NotFoundException.class)
     public void testGetBitmapDrawableForUnknownId() {
         assertThat(resources.getDrawable(Integer.MAX_VALUE)).isInstanceOf(BitmapDrawable.class);
@@ -76,6 +76,42 @@ public class SQLiteOpenHelperTest {
         assertThat(database.isOpen()).isFalse();
     }
 
+    @Test
+    public void helpersWithDifferentNamesShouldHaveSeparateDatabases() throws Exception {
+        SQLiteDatabase database1 = helper.getWritableDatabase();
+        SQLiteDatabase database2 = new TestOpenHelper(null, "other", null, 1).getWritableDatabase();
+
+        database1.execSQL("CREATE TABLE t (x INTEGER)");
+        database2.execSQL("CREATE TABLE t (x INTEGER)");
+        database1.execSQL("INSERT INTO t VALUES (1)");
+
+        assertThat(database1.isOpen()).isTrue();
+        assertThat(database1.query("t", null, null, null, null, null, null).getCount()).isEqualTo(1);
+        assertThat(database2.query("t", null, null, null, null, null, null).getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void helpersWithTheSameNameShouldShareTheDatabase() throws Exception {
+        helper.getWritableDatabase().execSQL("CREATE TABLE t (x INTEGER)");
+
+        TestOpenHelper other = new TestOpenHelper(null, "path", null, 1);
+        SQLiteDatabase database = other.getWritableDatabase();
+        assertThat(other.onCreateCalled).isFalse();
+        database.execSQL("INSERT INTO t VALUES (1)");
+    }
+
+    @Test
+    public void shouldUpgradeDatabasesCreatedWithAnOlderVersion() throws Exception {
+        helper.getWritableDatabase();
+        helper.close();
+
+        TestOpenHelper newer = new TestOpenHelper(null, "path", null, 2);
+        SQLiteDatabase database = newer.getWritableDatabase();
+        assertThat(newer.onCreateCalled).isFalse();
+        assertThat(newer.onUpgradeCalled).isTrue();
+        assertThat(database.getVersion()).isEqualTo(2);
+    }
+
     private void assertInitialDB(SQLiteDatabase database) {
         assertDatabaseOpened(database);
         assertThat(helper.onCreateCalled).isTrue();
@@ -0,0 +1,81 @@
+package org.robolectric.util;
+
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class ColumnarCursorWindowTest {
+    @Test
+    public void shouldStoreTypedColumns() throws Exception {
+        ColumnarCursorWindow window = new ColumnarCursorWindow(4, 1);
+        window.addRow(new Object[]{1, 2.5, "a", new byte[]{1}});
+        window.addRow(new Object[]{3000000000L, null, "b", null});
+        window.addRow(new Object[]{(short) 7, 0.5});
+
+        assertThat(window.getRowCount()).isEqualTo(3);
+        assertThat(window.getLong(1, 0)).isEqualTo(3000000000L);
+        assertThat(window.getInt(2, 0)).isEqualTo(7);
+        assertThat(window.getString(0, 0)).isEqualTo("1");
+        assertThat(window.getDouble(0, 1)).isEqualTo(2.5);
+        assertThat(window.getInt(0, 1)).isEqualTo(2);
+        assertThat(window.getString(1, 2)).isEqualTo("b");
+        assertThat(window.getBlob(0, 3)).isEqualTo(new byte[]{1});
+    }
+
+    @Test
+    public void shouldTrackNullsAndReadThemAsZero() throws Exception {
+        ColumnarCursorWindow window = new ColumnarCursorWindow(2);
+        window.addRow(new Object[]{null, 1L});
+        window.addRow(new Object[]{"x", null});
+
+        assertThat(window.isNull(0, 0)).isTrue();
+        assertThat(window.getString(0, 0)).isNull();
+        assertThat(window.isNull(1, 1)).isTrue();
+        assertThat(window.getLong(1, 1)).isEqualTo(0L);
+        assertThat(window.getDouble(1, 1)).isEqualTo(0.0);
+        assertThat(window.getBlob(1, 1)).isNull();
+        assertThat(window.isNull(0, 1)).isFalse();
+    }
+
+    @Test
+    public void shouldKeepFloatsExact() throws Exception {
+        ColumnarCursorWindow window = new ColumnarCursorWindow(1);
+        window.addRow(new Object[]{0.1f});
+
+        assertThat(window.getFloat(0, 0)).isEqualTo(0.1f);
+        assertThat(window.getString(0, 0)).isEqualTo("0.1");
+    }
+
+    @Test
+    public void shouldShareAStringDictionaryAcrossColumns() throws Exception {
+        ColumnarCursorWindow window = new ColumnarCursorWindow(2);
+        for (int i = 0; i < 1000; i++) {
+            window.addRow(new Object[]{"red", i % 2 == 0 ? "red" : "blue"});
+        }
+
+        assertThat(window.getStringCount()).isEqualTo(2);
+        assertThat(window.getString(999, 1)).isEqualTo("blue");
+        assertThat(window.getString(998, 1)).isEqualTo("red");
+    }
+
+    @Test
+    public void shouldFallBackToObjectsForMixedColumns() throws Exception {
+        ColumnarCursorWindow window = new ColumnarCursorWindow(1);
+        window.addRow(new Object[]{42});
+        window.addRow(new Object[]{null});
+        window.addRow(new Object[]{"12"});
+        window.addRow(new Object[]{true});
+
+        assertThat(window.getLong(0, 0)).isEqualTo(42L);
+        assertThat(window.isNull(1, 0)).isTrue();
+        assertThat(window.getInt(2, 0)).isEqualTo(12);
+        assertThat(window.getString(3, 0)).isEqualTo("true");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldRejectRowsOutOfRange() throws Exception {
+        ColumnarCursorWindow window = new ColumnarCursorWindow(1);
+        window.addRow(new Object[]{1});
+        window.getLong(1, 0);
+    }
+}
@@ -0,0 +1,108 @@
+package org.robolectric.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.robolectric.test.TemporaryFolder;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class DatabaseConnectionPoolTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private DatabaseConfig.DatabaseMap originalMap;
+    private DatabaseConnectionPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        originalMap = DatabaseConfig.getDatabaseMap();
+        DatabaseConfig.setDatabaseMap(new SQLiteMap());
+        pool = new DatabaseConnectionPool(null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.closeAll();
+        DatabaseConfig.setDatabaseMap(originalMap);
+    }
+
+    @Test
+    public void shouldShareConnectionsBetweenOpenersOfTheSamePath() throws Exception {
+        DatabaseConnectionPool.PooledConnection a = pool.acquire("a.db");
+        DatabaseConnectionPool.PooledConnection b = pool.acquire("b.db");
+
+        assertThat(pool.acquire("a.db")).isSameAs(a);
+        assertThat(b).isNotSameAs(a);
+        assertThat(pool.size()).isEqualTo(2);
+
+        execute(a, "CREATE TABLE t (x INTEGER)");
+        execute(b, "CREATE TABLE t (x INTEGER)");
+        execute(a, "INSERT INTO t VALUES (1)");
+        assertThat(count(a)).isEqualTo(1);
+        assertThat(count(b)).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldKeepNamedDatabasesUntilCloseAll() throws Exception {
+        DatabaseConnectionPool.PooledConnection a = pool.acquire("a.db");
+        a.setVersion(3);
+        pool.release(a);
+
+        assertThat(a.getConnection().isClosed()).isFalse();
+        assertThat(pool.acquire("a.db").getVersion()).isEqualTo(3);
+
+        pool.closeAll();
+        assertThat(a.getConnection().isClosed()).isTrue();
+        assertThat(pool.acquire("a.db").getVersion()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldCloseUnnamedDatabasesWhenReleased() throws Exception {
+        DatabaseConnectionPool.PooledConnection first = pool.acquire(null);
+        DatabaseConnectionPool.PooledConnection second = pool.acquire(DatabaseConnectionPool.MEMORY_DB_PATH);
+        assertThat(second).isNotSameAs(first);
+        assertThat(pool.size()).isEqualTo(0);
+
+        pool.release(first);
+        assertThat(first.getConnection().isClosed()).isTrue();
+        assertThat(second.getConnection().isClosed()).isFalse();
+    }
+
+    @Test
+    public void fileBackedDatabasesShouldSurviveCloseAll() throws Exception {
+        File directory = temporaryFolder.newFolder("db");
+        pool = new DatabaseConnectionPool(directory);
+
+        DatabaseConnectionPool.PooledConnection connection = pool.acquire("/data/data/app/databases/a.db");
+        assertThat(connection.isFileBacked()).isTrue();
+        execute(connection, "CREATE TABLE t (x INTEGER)");
+        execute(connection, "INSERT INTO t VALUES (1)");
+        connection.setVersion(2);
+        pool.closeAll();
+
+        assertThat(new File(directory, "_data_data_app_databases_a.db").isFile()).isTrue();
+        connection = pool.acquire("/data/data/app/databases/a.db");
+        assertThat(connection.getVersion()).isEqualTo(2);
+        assertThat(count(connection)).isEqualTo(1);
+    }
+
+    private static void execute(DatabaseConnectionPool.PooledConnection connection, String sql) throws Exception {
+        Statement statement = connection.getConnection().createStatement();
+        statement.execute(sql);
+        statement.close();
+    }
+
+    private static int count(DatabaseConnectionPool.PooledConnection connection) throws Exception {
+        Statement statement = connection.getConnection().createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM t");
+        resultSet.next();
+        int count = resultSet.getInt(1);
+        statement.close();
+        return count;
+    }
+}
@@ -0,0 +1,112 @@
+package org.robolectric.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.robolectric.test.TemporaryFolder;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class DatabaseSnapshotTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private DatabaseConfig.DatabaseMap originalMap;
+    private DatabaseConnectionPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        originalMap = DatabaseConfig.getDatabaseMap();
+        pool = new DatabaseConnectionPool(null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.closeAll();
+        DatabaseConfig.setDatabaseMap(originalMap);
+    }
+
+    @Test
+    public void shouldRestoreSQLiteSnapshots() throws Exception {
+        DatabaseConfig.setDatabaseMap(new SQLiteMap());
+        assertSnapshotsRestore();
+    }
+
+    @Test
+    public void shouldRestoreH2Snapshots() throws Exception {
+        DatabaseConfig.setDatabaseMap(new H2Map());
+        assertSnapshotsRestore();
+    }
+
+    @Test
+    public void shouldBackUpAndRestoreSQLiteImagesInDirectoriesWithSpaces() throws Exception {
+        SQLiteMap sqliteMap = new SQLiteMap();
+        Class.forName(sqliteMap.getDriverClassName());
+        File image = new File(temporaryFolder.newFolder("snapshot dir"), "fixtures image.db");
+
+        Connection original = DriverManager.getConnection(sqliteMap.getConnectionString());
+        Statement statement = original.createStatement();
+        statement.execute("CREATE TABLE t (x INTEGER)");
+        statement.execute("INSERT INTO t VALUES (1)");
+        statement.close();
+        sqliteMap.backup(original, image);
+        original.close();
+
+        Connection restored = DriverManager.getConnection(sqliteMap.getConnectionString());
+        sqliteMap.restore(restored, image);
+        statement = restored.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM t");
+        resultSet.next();
+        assertThat(resultSet.getInt(1)).isEqualTo(1);
+        statement.close();
+        restored.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotRestoreSnapshotsTakenWithAnotherDatabaseMap() throws Exception {
+        DatabaseConfig.setDatabaseMap(new SQLiteMap());
+        DatabaseSnapshot snapshot = pool.acquire("fixtures.db").takeSnapshot();
+
+        DatabaseConfig.setDatabaseMap(new H2Map());
+        pool.acquire(null).restore(snapshot);
+    }
+
+    private void assertSnapshotsRestore() throws Exception {
+        DatabaseConnectionPool.PooledConnection fixtures = pool.acquire("fixtures.db");
+        execute(fixtures, "CREATE TABLE t (x INTEGER)");
+        execute(fixtures, "INSERT INTO t VALUES (1)");
+        execute(fixtures, "INSERT INTO t VALUES (2)");
+        fixtures.setVersion(4);
+        DatabaseSnapshot snapshot = fixtures.takeSnapshot();
+        pool.closeAll();
+
+        DatabaseConnectionPool.PooledConnection restored = pool.acquire("fixtures.db");
+        execute(restored, "CREATE TABLE unrelated (y INTEGER)");
+        restored.restore(snapshot);
+
+        assertThat(restored.getVersion()).isEqualTo(4);
+        assertThat(count(restored, "t")).isEqualTo(2);
+        execute(restored, "CREATE TABLE unrelated (y INTEGER)");
+    }
+
+    private static void execute(DatabaseConnectionPool.PooledConnection connection, String sql) throws Exception {
+        Statement statement = connection.getConnection().createStatement();
+        statement.execute(sql);
+        statement.close();
+    }
+
+    private static int count(DatabaseConnectionPool.PooledConnection connection, String table) throws Exception {
+        Statement statement = connection.getConnection().createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table);
+        resultSet.next();
+        int count = resultSet.getInt(1);
+        statement.close();
+        return count;
+    }
+}
@@ -0,0 +1,71 @@
+package org.robolectric.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class StatementCacheTest {
+    private Connection connection;
+    private StatementCache statementCache;
+
+    @Before
+    public void setUp() throws Exception {
+        Class.forName("org.h2.Driver");
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        statementCache = new StatementCache(connection, 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        statementCache.close();
+        connection.close();
+    }
+
+    @Test
+    public void shouldReturnTheSameStatementForTheSameKey() throws Exception {
+        assertThat(statementCache.get("a")).isNull();
+        PreparedStatement statement = statementCache.prepare("a", "SELECT 1", Statement.NO_GENERATED_KEYS);
+
+        assertThat(statementCache.get("a")).isSameAs(statement);
+        assertThat(statementCache.getHitCount()).isEqualTo(1);
+        assertThat(statementCache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldPrepareQueriesWithTheRequestedResultSetType() throws Exception {
+        PreparedStatement statement = statementCache.prepare("q", "SELECT 1", ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+
+        assertThat(statementCache.get("q")).isSameAs(statement);
+        assertThat(statement.getResultSetType()).isEqualTo(ResultSet.TYPE_SCROLL_INSENSITIVE);
+    }
+
+    @Test
+    public void shouldCloseLeastRecentlyUsedStatementsBeyondCapacity() throws Exception {
+        PreparedStatement a = statementCache.prepare("a", "SELECT 1", Statement.NO_GENERATED_KEYS);
+        PreparedStatement b = statementCache.prepare("b", "SELECT 2", Statement.NO_GENERATED_KEYS);
+        statementCache.get("a");
+        statementCache.prepare("c", "SELECT 3", Statement.NO_GENERATED_KEYS);
+
+        assertThat(statementCache.size()).isEqualTo(2);
+        assertThat(statementCache.get("b")).isNull();
+        assertThat(b.isClosed()).isTrue();
+        assertThat(a.isClosed()).isFalse();
+    }
+
+    @Test
+    public void shouldCloseAllStatementsOnClose() throws Exception {
+        PreparedStatement a = statementCache.prepare("a", "SELECT 1", Statement.NO_GENERATED_KEYS);
+        statementCache.close();
+
+        assertThat(a.isClosed()).isTrue();
+        assertThat(statementCache.size()).isEqualTo(0);
+    }
+}